@@ -0,0 +1,80 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.tvo.propertyregister.repository.OwnerRepository;
+import com.tvo.propertyregister.repository.PropertyRepository;
+import com.tvo.propertyregister.repository.inmemory.InMemoryOwnerRepository;
+import com.tvo.propertyregister.repository.inmemory.InMemoryPropertyRepository;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Owner and property repositories seeded with {@link MongoBenchmarkSupport#owner(int)}, either in memory or in MongoDB.
+ */
+public final class BenchmarkBackend implements AutoCloseable {
+
+    private final MongoBenchmarkSupport mongo;
+    private final OwnerRepository ownerRepository;
+    private final PropertyRepository propertyRepository;
+    private final int numberOfOwners;
+
+    private BenchmarkBackend(MongoBenchmarkSupport mongo, OwnerRepository ownerRepository,
+                             PropertyRepository propertyRepository, int numberOfOwners) {
+        this.mongo = mongo;
+        this.ownerRepository = ownerRepository;
+        this.propertyRepository = propertyRepository;
+        this.numberOfOwners = numberOfOwners;
+    }
+
+    public static BenchmarkBackend open(String backend, int numberOfOwners) {
+        return switch (backend) {
+            case "inMemory" -> inMemory(numberOfOwners);
+            case "mongo" -> mongo(numberOfOwners);
+            default -> throw new IllegalArgumentException(backend);
+        };
+    }
+
+    private static BenchmarkBackend inMemory(int numberOfOwners) {
+        InMemoryOwnerRepository ownerRepository = new InMemoryOwnerRepository();
+        for (int id = 1; id <= numberOfOwners; id++) {
+            ownerRepository.save(MongoBenchmarkSupport.owner(id));
+        }
+
+        return new BenchmarkBackend(null, ownerRepository, new InMemoryPropertyRepository(), numberOfOwners);
+    }
+
+    private static BenchmarkBackend mongo(int numberOfOwners) {
+        MongoBenchmarkSupport mongo = new MongoBenchmarkSupport();
+        mongo.seedOwners(numberOfOwners);
+
+        BenchmarkBackend backend = new BenchmarkBackend(mongo, mongo.ownerRepository(), mongo.propertyRepository(), numberOfOwners);
+        backend.ownerRepository.reconcileTotalDebt();
+        return backend;
+    }
+
+    public OwnerRepository ownerRepository() {
+        return this.ownerRepository;
+    }
+
+    public PropertyRepository propertyRepository() {
+        return this.propertyRepository;
+    }
+
+    public void resetDebts() {
+        if (Objects.isNull(this.mongo)) {
+            this.ownerRepository.streamAll(Set.of()).toList()
+                    .forEach(owner -> this.ownerRepository.update(owner.getId(), owner.withTaxesDebt(MongoBenchmarkSupport.debt(owner.getId()))));
+        } else {
+            this.mongo.seedOwners(this.numberOfOwners);
+        }
+
+        this.ownerRepository.reconcileTotalDebt();
+    }
+
+    @Override
+    public void close() {
+        if (Objects.nonNull(this.mongo)) {
+            this.mongo.close();
+        }
+    }
+}
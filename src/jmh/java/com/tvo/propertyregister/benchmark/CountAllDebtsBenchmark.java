@@ -0,0 +1,65 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.repository.mongodb.MongoDbOwnerRepository;
+import org.bson.types.Decimal128;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CountAllDebtsBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int numberOfOwners;
+
+    private MongoBenchmarkSupport mongo;
+    private MongoTemplate mongoTemplate;
+    private MongoDbOwnerRepository ownerRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.mongo = new MongoBenchmarkSupport();
+        this.mongo.seedOwners(this.numberOfOwners);
+        this.mongoTemplate = this.mongo.getMongoTemplate();
+        this.ownerRepository = this.mongo.ownerRepository();
+        this.ownerRepository.reconcileTotalDebt();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.mongo.close();
+    }
+
+    @Benchmark
+    public BigDecimal clientSideReduce() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("taxesDebt").gt(new Decimal128(BigDecimal.ZERO))),
+                Aggregation.project("id", "firstName", "lastName", "age", "familyStatus", "hasChildren", "email", "phoneNumber", "birthday", "properties")
+                        .andExpression("toDouble(taxesDebt)").as("taxesDebt")
+        );
+
+        return this.mongoTemplate.aggregate(aggregation, "owners", Owner.class).getMappedResults().stream()
+                .map(Owner::getTaxesDebt)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal serverSideGroup() {
+        return this.ownerRepository.aggregateAllDebts();
+    }
+
+    @Benchmark
+    public BigDecimal ledgerRead() {
+        return this.ownerRepository.countAllDebts();
+    }
+}
@@ -0,0 +1,67 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.model.dto.EmailType;
+import com.tvo.propertyregister.service.codec.EmailEventCodec;
+import com.tvo.propertyregister.service.codec.JacksonEmailEventCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EmailEventCodecBenchmark {
+
+    private static final EmailEventDto EMAIL = new EmailEventDto(
+            "owner12345@gmail.com",
+            EmailType.ALL_DEBTOR_NOTIFICATION,
+            Map.of("firstName", "First12345",
+                    "lastName", "Last12345",
+                    "debt", "2345.5",
+                    "numberOfDebtors", "50000"));
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private EmailEventCodec codec;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.codec = switch (this.format) {
+            case "json" -> JacksonEmailEventCodec.json(new ObjectMapper());
+            case "cbor" -> JacksonEmailEventCodec.cbor();
+            case "smile" -> JacksonEmailEventCodec.smile();
+            default -> throw new IllegalArgumentException(this.format);
+        };
+        this.encoded = this.codec.encode(EMAIL);
+    }
+
+    @Benchmark
+    public byte[] encode(MessageSize size) {
+        byte[] message = this.codec.encode(EMAIL);
+        size.messageBytes = message.length;
+
+        return message;
+    }
+
+    @Benchmark
+    public EmailEventDto decode() {
+        return this.codec.decode(this.encoded);
+    }
+
+    /**
+     * Reports the encoded size next to the encode timings as {@code encode:messageBytes}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MessageSize {
+        public long messageBytes;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.model.dto.EmailType;
+import com.tvo.propertyregister.service.InternalEmailSender;
+import com.tvo.propertyregister.service.codec.JacksonEmailEventCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.testcontainers.containers.RabbitMQContainer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.tvo.propertyregister.service.utils.Constants.EMAIL_TOPIC;
+import static com.tvo.propertyregister.service.utils.Constants.MAX_IN_FLIGHT_NOTIFICATIONS;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EmailPublishBenchmark {
+
+    private static final EmailEventDto EMAIL = new EmailEventDto(
+            "owner@gmail.com",
+            EmailType.ALL_DEBTOR_NOTIFICATION,
+            Map.of("firstName", "First", "lastName", "Last", "debt", "1000.5", "numberOfDebtors", "10000"));
+
+    @Param({"10000"})
+    private int numberOfEmails;
+
+    @Param({"64", "256", "1024"})
+    private int batchSize;
+
+    private RabbitMQContainer container;
+    private CachingConnectionFactory connectionFactory;
+    private RabbitAdmin rabbitAdmin;
+    private InternalEmailSender batchingSender;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String uri = System.getProperty("benchmark.rabbit.uri");
+
+        if (Objects.isNull(uri)) {
+            this.container = new RabbitMQContainer("rabbitmq:3.13-management");
+            this.container.start();
+            uri = this.container.getAmqpUrl();
+        }
+
+        this.connectionFactory = new CachingConnectionFactory(URI.create(uri));
+        this.connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.SIMPLE);
+        this.connectionFactory.setPublisherReturns(true);
+
+        this.rabbitAdmin = new RabbitAdmin(this.connectionFactory);
+        this.rabbitAdmin.declareQueue(new Queue(EMAIL_TOPIC, true));
+
+        this.mapper = new ObjectMapper();
+        this.batchingSender = new InternalEmailSender(JacksonEmailEventCodec.json(this.mapper), new RabbitTemplate(this.connectionFactory),
+                new SimpleMeterRegistry(), this.batchSize, Duration.ofMillis(5), Duration.ofSeconds(30), Duration.ofMinutes(1));
+        this.batchingSender.start();
+    }
+
+    @Setup(Level.Iteration)
+    public void purge() {
+        this.rabbitAdmin.purgeQueue(EMAIL_TOPIC, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        this.batchingSender.stop();
+        this.connectionFactory.destroy();
+
+        if (Objects.nonNull(this.container)) {
+            this.container.stop();
+        }
+    }
+
+    @Benchmark
+    public int perMessageConvertAndSend() throws Exception {
+        RabbitTemplate rabbitTemplate = new RabbitTemplate(this.connectionFactory);
+
+        for (int i = 0; i < this.numberOfEmails; i++) {
+            rabbitTemplate.convertAndSend(EMAIL_TOPIC, this.mapper.writeValueAsString(EMAIL));
+        }
+
+        return this.numberOfEmails;
+    }
+
+    @Benchmark
+    public int batchedConfirms() {
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT_NOTIFICATIONS);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < this.numberOfEmails; i++) {
+                inFlight.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        this.batchingSender.send(EMAIL);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        return this.numberOfEmails;
+    }
+}
@@ -0,0 +1,129 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.tvo.propertyregister.config.MongoConfig;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyCondition;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.repository.mongodb.MongoDbIdAllocator;
+import com.tvo.propertyregister.repository.mongodb.MongoDbOwnerRepository;
+import com.tvo.propertyregister.repository.mongodb.MongoDbPropertyRepository;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public final class MongoBenchmarkSupport implements AutoCloseable {
+
+    private static final String DATABASE = "property-register-benchmark";
+    private static final String OWNERS_COLLECTION = "owners";
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final int ID_BLOCK_SIZE = 1000;
+
+    private final MongoDBContainer container;
+    private final MongoClient mongoClient;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoBenchmarkSupport() {
+        String uri = System.getProperty("benchmark.mongo.uri");
+
+        if (Objects.isNull(uri)) {
+            this.container = new MongoDBContainer("mongo:6.0");
+            this.container.start();
+            uri = this.container.getConnectionString();
+        } else {
+            this.container = null;
+        }
+
+        this.mongoClient = MongoClients.create(uri);
+        this.mongoTemplate = new MongoTemplate(new SimpleMongoClientDatabaseFactory(this.mongoClient, DATABASE), converter());
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        return converter;
+    }
+
+    public MongoTemplate getMongoTemplate() {
+        return this.mongoTemplate;
+    }
+
+    public MongoDbOwnerRepository ownerRepository() {
+        return new MongoDbOwnerRepository(this.mongoTemplate, new MongoDbIdAllocator(this.mongoTemplate, ID_BLOCK_SIZE), event -> {});
+    }
+
+    public MongoDbPropertyRepository propertyRepository() {
+        return new MongoDbPropertyRepository(this.mongoTemplate, new MongoDbIdAllocator(this.mongoTemplate, ID_BLOCK_SIZE), event -> {});
+    }
+
+    public void seedOwners(int numberOfOwners) {
+        this.mongoTemplate.dropCollection(OWNERS_COLLECTION);
+        this.mongoTemplate.dropCollection("counters");
+
+        List<Owner> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int id = 1; id <= numberOfOwners; id++) {
+            batch.add(owner(id));
+
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                this.mongoTemplate.insert(batch, OWNERS_COLLECTION);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            this.mongoTemplate.insert(batch, OWNERS_COLLECTION);
+        }
+    }
+
+    public static BigDecimal debt(int id) {
+        return id % 2 == 0 ? new BigDecimal(id % 10_000 + ".5") : BigDecimal.ZERO;
+    }
+
+    public static Owner owner(int id) {
+        FamilyStatus familyStatus = id % 3 == 0 ? FamilyStatus.MARRIED : FamilyStatus.SINGLE;
+
+        Property property = new Property(id, PropertyType.values()[id % 3], "Prague", "Evropska " + id,
+                50 + id % 250, 1 + id % 6, new BigDecimal("750000"),
+                LocalDate.of(2020, 4, 10),
+                LocalDate.of(2012, 1, 9),
+                PropertyCondition.GOOD);
+
+        return new Owner(id, "First" + id, "Last" + id,
+                20 + id % 60, familyStatus,
+                id % 4 == 0, "owner" + id + "@gmail.com",
+                "+420" + id,
+                LocalDate.of(1980, 1, 1).plusDays(id % 10_000),
+                debt(id), new ArrayList<>(List.of(property)));
+    }
+
+    @Override
+    public void close() {
+        this.mongoTemplate.getDb().drop();
+        this.mongoClient.close();
+
+        if (Objects.nonNull(this.container)) {
+            this.container.stop();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.service.columnar.OwnerColumns;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OwnerColumnsBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int numberOfOwners;
+
+    private List<Owner> owners;
+    private OwnerColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.owners = new ArrayList<>(this.numberOfOwners);
+        for (int id = 1; id <= this.numberOfOwners; id++) {
+            this.owners.add(MongoBenchmarkSupport.owner(id));
+        }
+
+        this.columns = OwnerColumns.of(this.owners.stream());
+    }
+
+    @Benchmark
+    public int[] debtorIdsFromObjects() {
+        int[] debtorIds = new int[this.owners.size()];
+        int next = 0;
+
+        for (Owner owner : this.owners) {
+            if (owner.getTaxesDebt().signum() > 0) {
+                debtorIds[next++] = owner.getId();
+            }
+        }
+
+        return debtorIds;
+    }
+
+    @Benchmark
+    public int[] debtorIdsFromColumns() {
+        return this.columns.debtorIds();
+    }
+
+    @Benchmark
+    public BigDecimal totalDebtFromObjects() {
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Owner owner : this.owners) {
+            if (owner.getTaxesDebt().signum() > 0) {
+                total = total.add(owner.getTaxesDebt());
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public OwnerColumns rebuildColumns() {
+        return OwnerColumns.of(this.owners.stream());
+    }
+}
@@ -0,0 +1,60 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.tvo.propertyregister.model.owner.DebtRecount;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.repository.mongodb.MongoDbOwnerRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecountDebtsBenchmark {
+
+    private static final DebtRecount RECOUNT = new DebtRecount(new BigDecimal("1.05"), 1);
+
+    @Param({"10000", "100000"})
+    private int numberOfOwners;
+
+    private MongoBenchmarkSupport mongo;
+    private MongoDbOwnerRepository ownerRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.mongo = new MongoBenchmarkSupport();
+        this.ownerRepository = this.mongo.ownerRepository();
+    }
+
+    @Setup(Level.Iteration)
+    public void seed() {
+        this.mongo.seedOwners(this.numberOfOwners);
+        this.ownerRepository.reconcileTotalDebt();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.mongo.close();
+    }
+
+    @Benchmark
+    public int perDebtorUpdates() {
+        int recounted = 0;
+
+        for (Owner debtor : this.ownerRepository.findDebtors()) {
+            this.ownerRepository.update(debtor.getId(), debtor.withTaxesDebt(RECOUNT.apply(debtor.getTaxesDebt())));
+            recounted++;
+        }
+
+        return recounted;
+    }
+
+    @Benchmark
+    public int bulkRecount() {
+        return this.ownerRepository.recountDebts(RECOUNT);
+    }
+}
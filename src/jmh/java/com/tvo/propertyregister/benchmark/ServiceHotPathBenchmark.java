@@ -0,0 +1,119 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyCondition;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.repository.inmemory.InMemoryTaxRateRepository;
+import com.tvo.propertyregister.service.OwnerService;
+import com.tvo.propertyregister.service.PropertyService;
+import com.tvo.propertyregister.service.TaxRateService;
+import com.tvo.propertyregister.service.columnar.ColumnarOwnerStore;
+import com.tvo.propertyregister.service.utils.OptimisticRetry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service entry points that sit on request or scheduler hot paths. Codec costs of {@code InternalEmailSender} are
+ * covered by {@link EmailEventCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ServiceHotPathBenchmark {
+
+    // owners 1 to 3 and their properties are the only ones InMemoryPropertyRepository knows about
+    private static final int OWNER_ID = 1;
+    private static final int PROPERTY_ID = 1;
+
+    @Param({"inMemory", "mongo"})
+    private String backend;
+
+    @Param({"10000"})
+    private int numberOfOwners;
+
+    private BenchmarkBackend repositories;
+    private OwnerService ownerService;
+    private PropertyService propertyService;
+    private ObjectWriter debtorsWriter;
+    private Property[] propertyUpdates;
+    private int nextOwnerId;
+    private int nextPropertyUpdate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.repositories = BenchmarkBackend.open(this.backend, this.numberOfOwners);
+
+        this.ownerService = new OwnerService(this.repositories.ownerRepository(),
+                new TaxRateService(new InMemoryTaxRateRepository(), null, null),
+                new ColumnarOwnerStore(this.repositories.ownerRepository(), false));
+        this.propertyService = new PropertyService(this.repositories.propertyRepository(),
+                this.repositories.ownerRepository(), new OptimisticRetry(3));
+        this.debtorsWriter = JsonMapper.builder().findAndAddModules().build()
+                .writer(new SimpleFilterProvider().addFilter(Owner.FIELDS_FILTER, SimpleBeanPropertyFilter.serializeAll()));
+
+        this.propertyUpdates = new Property[]{propertyUpdate(PropertyCondition.GOOD), propertyUpdate(PropertyCondition.MEDIUM)};
+        this.nextOwnerId = 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.repositories.close();
+    }
+
+    @Benchmark
+    public BigDecimal countTaxObligation() {
+        if (this.nextOwnerId > this.numberOfOwners) {
+            this.nextOwnerId = 1;
+        }
+
+        return this.ownerService.countTaxObligation(this.nextOwnerId++);
+    }
+
+    @Benchmark
+    public byte[] findDebtors() throws Exception {
+        return this.debtorsWriter.writeValueAsBytes(this.ownerService.findDebtors(Set.of()));
+    }
+
+    @Benchmark
+    public boolean updateProperty() {
+        Property property = this.propertyUpdates[this.nextPropertyUpdate++ & 1];
+        return this.propertyService.update(OWNER_ID, PROPERTY_ID, property);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void recountDebtForDebtors(FreshDebts debts) {
+        this.ownerService.recountDebtForDebtors();
+    }
+
+    @State(Scope.Benchmark)
+    public static class FreshDebts {
+
+        // every recount grows the debts, so each measurement starts from the seeded ones
+        @Setup(Level.Iteration)
+        public void reset(ServiceHotPathBenchmark benchmark) {
+            benchmark.repositories.resetDebts();
+        }
+    }
+
+    private static Property propertyUpdate(PropertyCondition propertyCondition) {
+        return new Property(PROPERTY_ID, PropertyType.FLAT, "Prague", "Evropska 1",
+                51, 2, new BigDecimal("750000"),
+                LocalDate.of(2020, 4, 10),
+                LocalDate.of(2012, 1, 9),
+                propertyCondition);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.service.tax.TaxEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(TaxEngineBenchmark.OWNERS)
+public class TaxEngineBenchmark {
+
+    static final int OWNERS = 1000;
+
+    private final Owner[] owners = new Owner[OWNERS];
+    private TaxRateSnapshot taxRates;
+    private TaxEngine taxEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.taxRates = TaxRateSnapshot.of(List.of(
+                new TaxRate(1, PropertyType.FLAT, new BigDecimal("6.5")),
+                new TaxRate(2, PropertyType.HOUSE, new BigDecimal("8")),
+                new TaxRate(3, PropertyType.OFFICE, new BigDecimal("13.25"))));
+        this.taxEngine = TaxEngine.of(this.taxRates);
+
+        for (int id = 1; id <= OWNERS; id++) {
+            this.owners[id - 1] = MongoBenchmarkSupport.owner(id);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        for (Owner owner : this.owners) {
+            blackhole.consume(bigDecimalTaxObligation(owner, this.taxRates));
+        }
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole blackhole) {
+        for (Owner owner : this.owners) {
+            blackhole.consume(this.taxEngine.taxObligation(owner));
+        }
+    }
+
+    private static BigDecimal bigDecimalTaxObligation(Owner owner, TaxRateSnapshot taxRates) {
+        BigDecimal leeway = new BigDecimal("1");
+        BigDecimal baseTax = new BigDecimal("0");
+
+        for (Property property : owner.getProperties()) {
+            BigDecimal square = new BigDecimal(property.getSquare());
+            baseTax = baseTax.add(square.multiply(taxRates.rate(property.getPropertyType())));
+        }
+
+        if (owner.isHasChildren()) {
+            if (FamilyStatus.SINGLE.equals(owner.getFamilyStatus())) {
+                leeway = leeway.subtract(new BigDecimal("0.3"));
+            } else {
+                leeway = leeway.subtract(new BigDecimal("0.1"));
+            }
+        }
+        if (FamilyStatus.MARRIED.equals(owner.getFamilyStatus())) {
+            leeway = leeway.subtract(new BigDecimal("0.1"));
+        }
+
+        return baseTax.multiply(leeway);
+    }
+}
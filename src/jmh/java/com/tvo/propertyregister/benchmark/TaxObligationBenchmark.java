@@ -0,0 +1,99 @@
+package com.tvo.propertyregister.benchmark;
+
+import com.tvo.propertyregister.model.dto.OwnerTaxObligationDto;
+import com.tvo.propertyregister.model.dto.TaxObligationBatchRequest;
+import com.tvo.propertyregister.repository.inmemory.InMemoryTaxRateRepository;
+import com.tvo.propertyregister.service.OwnerService;
+import com.tvo.propertyregister.service.TaxRateService;
+import com.tvo.propertyregister.service.columnar.ColumnarOwnerStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(TaxObligationBenchmark.BATCH_SIZE)
+public class TaxObligationBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    @Param({"100000"})
+    private int numberOfOwners;
+
+    private MongoBenchmarkSupport mongo;
+    private OwnerService ownerService;
+    private OwnerService columnarOwnerService;
+    private int nextFromId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.mongo = new MongoBenchmarkSupport();
+        this.mongo.seedOwners(this.numberOfOwners);
+        this.ownerService = ownerService(new ColumnarOwnerStore(this.mongo.ownerRepository(), false));
+
+        ColumnarOwnerStore columnarOwnerStore = new ColumnarOwnerStore(this.mongo.ownerRepository(), true);
+        columnarOwnerStore.rebuild();
+        this.columnarOwnerService = ownerService(columnarOwnerStore);
+        this.nextFromId = 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.mongo.close();
+    }
+
+    @Benchmark
+    public void perOwner(Blackhole blackhole) {
+        for (int id : nextBatch()) {
+            blackhole.consume(this.ownerService.countTaxObligation(id));
+        }
+    }
+
+    @Benchmark
+    public void batchByIds(Blackhole blackhole) {
+        consume(this.ownerService.streamTaxObligations(new TaxObligationBatchRequest(nextBatch(), null, null)), blackhole);
+    }
+
+    @Benchmark
+    public void batchByRange(Blackhole blackhole) {
+        List<Integer> batch = nextBatch();
+        consume(this.ownerService.streamTaxObligations(
+                new TaxObligationBatchRequest(null, batch.get(0), batch.get(batch.size() - 1))), blackhole);
+    }
+
+    @Benchmark
+    public void batchByRangeFromColumns(Blackhole blackhole) {
+        List<Integer> batch = nextBatch();
+        consume(this.columnarOwnerService.streamTaxObligations(
+                new TaxObligationBatchRequest(null, batch.get(0), batch.get(batch.size() - 1))), blackhole);
+    }
+
+    private OwnerService ownerService(ColumnarOwnerStore columnarOwnerStore) {
+        return new OwnerService(this.mongo.ownerRepository(),
+                new TaxRateService(new InMemoryTaxRateRepository(), null, null), columnarOwnerStore);
+    }
+
+    private List<Integer> nextBatch() {
+        if (this.nextFromId + BATCH_SIZE > this.numberOfOwners) {
+            this.nextFromId = 1;
+        }
+
+        List<Integer> batch = IntStream.range(this.nextFromId, this.nextFromId + BATCH_SIZE).boxed().toList();
+        this.nextFromId += BATCH_SIZE;
+        return batch;
+    }
+
+    private static void consume(Stream<OwnerTaxObligationDto> obligations, Blackhole blackhole) {
+        try (obligations) {
+            obligations.forEach(blackhole::consume);
+        }
+    }
+}
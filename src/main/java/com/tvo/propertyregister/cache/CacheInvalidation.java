@@ -0,0 +1,9 @@
+package com.tvo.propertyregister.cache;
+
+import java.util.List;
+
+/**
+ * Broadcast to the other instances so they drop their local copies. A {@code null} key list clears the whole cache.
+ */
+public record CacheInvalidation(String origin, String cache, List<String> keys) {
+}
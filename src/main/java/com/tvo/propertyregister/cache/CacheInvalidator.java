@@ -0,0 +1,63 @@
+package com.tvo.propertyregister.cache;
+
+import com.tvo.propertyregister.model.event.DebtsRecountedEvent;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static com.tvo.propertyregister.cache.CacheNames.DEBTORS;
+import static com.tvo.propertyregister.cache.CacheNames.OWNERS;
+import static com.tvo.propertyregister.cache.CacheNames.TAX_RATES;
+
+/**
+ * Maps repository change events to the cache entries they make stale. The write has already happened when an
+ * event arrives, so a failing cache is logged and left to its TTL rather than failing the request.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidator {
+
+    private final TwoTierCacheManager cacheManager;
+
+    @EventListener
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        evict(OWNERS, List.of(event.ownerId()));
+
+        if (event.debtor()) {
+            clear(DEBTORS);
+        }
+    }
+
+    @EventListener
+    public void onDebtsRecounted(DebtsRecountedEvent event) {
+        evict(OWNERS, event.ownerIds());
+        clear(DEBTORS);
+    }
+
+    @EventListener
+    public void onTaxRateChanged(TaxRateChangedEvent event) {
+        clear(TAX_RATES);
+    }
+
+    private void evict(String cacheName, List<Integer> keys) {
+        try {
+            cacheManager.getCache(cacheName).evictAll(keys);
+        } catch (RuntimeException e) {
+            log.warn("Could not evict {} entries from {}", keys.size(), cacheName, e);
+        }
+    }
+
+    private void clear(String cacheName) {
+        try {
+            cacheManager.getCache(cacheName).clear();
+        } catch (RuntimeException e) {
+            log.warn("Could not clear {}", cacheName, e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.tvo.propertyregister.cache;
+
+public class CacheNames {
+
+    public static final String OWNERS = "owners";
+
+    public static final String DEBTORS = "debtors";
+
+    public static final String TAX_RATES = "taxRates";
+}
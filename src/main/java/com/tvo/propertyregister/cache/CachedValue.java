@@ -0,0 +1,4 @@
+package com.tvo.propertyregister.cache;
+
+public record CachedValue<T>(T value, long computeMillis, long expiresAt, long staleUntil) {
+}
@@ -0,0 +1,60 @@
+package com.tvo.propertyregister.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.model.event.RemoteOwnersChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+import static com.tvo.propertyregister.cache.CacheNames.OWNERS;
+
+/**
+ * Every owner write evicts the owner from the cache on its instance, and that eviction is broadcast to the others.
+ * This listener turns the evictions it receives from other instances into {@link RemoteOwnersChangedEvent}s for
+ * in-process views of the owners that are not caches.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OwnerChangeFeed implements MessageListener {
+
+    private final TwoTierCacheManager cacheManager;
+    private final ObjectMapper mapper;
+    private final ApplicationEventPublisher events;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation;
+        try {
+            invalidation = mapper.readValue(message.getBody(), CacheInvalidation.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+
+        if (!OWNERS.equals(invalidation.cache()) || cacheManager.getInstanceId().equals(invalidation.origin())) {
+            return;
+        }
+
+        events.publishEvent(new RemoteOwnersChangedEvent(ownerIds(invalidation.keys())));
+    }
+
+    private static List<Integer> ownerIds(List<String> keys) {
+        if (Objects.isNull(keys)) {
+            return null;
+        }
+
+        try {
+            return keys.stream().map(Integer::valueOf).toList();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
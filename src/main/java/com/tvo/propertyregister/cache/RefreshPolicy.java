@@ -0,0 +1,17 @@
+package com.tvo.propertyregister.cache;
+
+import java.time.Duration;
+
+/**
+ * When a cached value stops being fresh and for how long it may still be served while it is recomputed.
+ *
+ * @param ttl                  how long a value is fresh
+ * @param staleWhileRevalidate how long after {@code ttl} the old value is served while a refresh runs
+ * @param beta                 XFetch weight of the recompute time; {@code 0} disables early refresh
+ */
+public record RefreshPolicy(Duration ttl, Duration staleWhileRevalidate, double beta) {
+
+    public Duration retention() {
+        return ttl.plus(staleWhileRevalidate);
+    }
+}
@@ -0,0 +1,273 @@
+package com.tvo.propertyregister.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final String name;
+    private final Cache<String, CachedValue<?>> local;
+    private final org.springframework.cache.Cache remote;
+    private final RefreshPolicy policy;
+    private final BiConsumer<String, List<String>> invalidations;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // bumped by every eviction before it removes anything, so a load that read the old value can tell not to store it
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public TwoTierCache(String name, Cache<String, CachedValue<?>> local, org.springframework.cache.Cache remote,
+                        RefreshPolicy policy, BiConsumer<String, List<String>> invalidations, Executor refreshExecutor, Clock clock) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.policy = policy;
+        this.invalidations = invalidations;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        CachedValue<?> cached = lookupEntry(key);
+
+        return Objects.isNull(cached) || clock.millis() >= cached.staleUntil() ? null : cached.value();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CachedValue<?> cached = lookupEntry(key);
+        long now = clock.millis();
+
+        if (Objects.nonNull(cached) && now < cached.staleUntil()) {
+            if (now >= cached.expiresAt() || refreshEarly(cached, now)) {
+                refreshInBackground(key, valueLoader);
+            }
+
+            return (T) cached.value();
+        }
+
+        try {
+            return (T) loadOnce(key, valueLoader).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ValueRetrievalException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (Objects.isNull(value)) {
+            evict(key);
+            return;
+        }
+
+        String localKey = localKey(key);
+        bumpGeneration(localKey);
+        store(key, value, 0);
+        invalidations.accept(name, List.of(localKey));
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        bumpGeneration(localKey);
+        local.invalidate(localKey);
+        remote.evict(key);
+        invalidations.accept(name, List.of(localKey));
+    }
+
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<String> localKeys = keys.stream().map(TwoTierCache::localKey).toList();
+        localKeys.forEach(this::bumpGeneration);
+        local.invalidateAll(localKeys);
+        keys.forEach(remote::evict);
+        invalidations.accept(name, localKeys);
+    }
+
+    @Override
+    public void clear() {
+        bumpAllGenerations();
+        local.invalidateAll();
+        remote.clear();
+        invalidations.accept(name, null);
+    }
+
+    void evictLocal(List<String> localKeys) {
+        if (Objects.isNull(localKeys)) {
+            bumpAllGenerations();
+            local.invalidateAll();
+        } else {
+            localKeys.forEach(this::bumpGeneration);
+            local.invalidateAll(localKeys);
+        }
+    }
+
+    private CachedValue<?> lookupEntry(Object key) {
+        String localKey = localKey(key);
+        CachedValue<?> cached = local.getIfPresent(localKey);
+
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+
+        int stripe = stripe(localKey);
+        long generation = generations.get(stripe);
+        ValueWrapper remoteValue = remote.get(key);
+        if (Objects.isNull(remoteValue)) {
+            return null;
+        }
+
+        cached = (CachedValue<?>) remoteValue.get();
+        if (generations.get(stripe) != generation) {
+            return cached;
+        }
+
+        local.put(localKey, cached);
+
+        // the remote value may predate an eviction that ran between the check and the put, so don't keep it locally
+        if (generations.get(stripe) != generation) {
+            local.invalidate(localKey);
+        }
+        return cached;
+    }
+
+    /**
+     * XFetch: the longer a value took to compute, the earlier before expiry one reader volunteers to recompute it.
+     */
+    private boolean refreshEarly(CachedValue<?> cached, long now) {
+        if (policy.beta() <= 0 || cached.computeMillis() == 0) {
+            return false;
+        }
+
+        double gap = -cached.computeMillis() * policy.beta() * Math.log(ThreadLocalRandom.current().nextDouble());
+        return now + gap >= cached.expiresAt();
+    }
+
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        try {
+            refreshExecutor.execute(() -> loadOnce(key, valueLoader).exceptionally(error -> {
+                log.warn("Background refresh of {}::{} failed, keeping the stale value", name, key, error);
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Could not schedule refresh of {}::{}", name, key, e);
+        }
+    }
+
+    private CompletableFuture<Object> loadOnce(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(localKey, load);
+
+        if (Objects.nonNull(running)) {
+            return running;
+        }
+
+        try {
+            long generation = generations.get(stripe(localKey));
+            long start = clock.millis();
+            Object value = valueLoader.call();
+            long computeMillis = Math.max(clock.millis() - start, 1);
+
+            try {
+                fill(key, value, computeMillis, generation);
+            } catch (RuntimeException e) {
+                log.warn("Could not cache {}::{}", name, key, e);
+            }
+
+            load.complete(value);
+        } catch (Exception e) {
+            load.completeExceptionally(new ValueRetrievalException(key, valueLoader, e));
+        } finally {
+            inFlight.remove(localKey, load);
+        }
+
+        return load;
+    }
+
+    /**
+     * Stores a loaded value unless the key was evicted while it loaded. Fills don't notify other instances: their
+     * local tiers were already invalidated by whatever write made the previous value stale.
+     */
+    private void fill(Object key, Object value, long computeMillis, long generation) {
+        String localKey = localKey(key);
+        int stripe = stripe(localKey);
+
+        if (Objects.isNull(value) || generations.get(stripe) != generation) {
+            return;
+        }
+
+        store(key, value, computeMillis);
+
+        // an eviction that slipped in between the check and the store may have run before it, so undo the store
+        if (generations.get(stripe) != generation) {
+            local.invalidate(localKey);
+            remote.evict(key);
+        }
+    }
+
+    private void store(Object key, Object value, long computeMillis) {
+        long now = clock.millis();
+        CachedValue<Object> cached = new CachedValue<>(value, computeMillis,
+                now + policy.ttl().toMillis(), now + policy.retention().toMillis());
+
+        local.put(localKey(key), cached);
+        remote.put(key, cached);
+    }
+
+    private void bumpGeneration(String localKey) {
+        generations.incrementAndGet(stripe(localKey));
+    }
+
+    private void bumpAllGenerations() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(String localKey) {
+        return Math.floorMod(localKey.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tvo.propertyregister.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "property-register:cache-invalidation";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new LinkedHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper mapper;
+
+    public TwoTierCacheManager(Map<String, LocalTier> localTiers, CacheManager remoteCacheManager,
+                               StringRedisTemplate redisTemplate, ObjectMapper mapper, Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.mapper = mapper;
+
+        localTiers.forEach((name, tier) -> caches.put(name, new TwoTierCache(name, tier.cache(),
+                Objects.requireNonNull(remoteCacheManager.getCache(name)), tier.policy(),
+                this::publishInvalidation, refreshExecutor, clock)));
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public TwoTierCache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            CacheInvalidation invalidation = mapper.readValue(message.getBody(), CacheInvalidation.class);
+            TwoTierCache cache = caches.get(invalidation.cache());
+
+            if (!instanceId.equals(invalidation.origin()) && Objects.nonNull(cache)) {
+                cache.evictLocal(invalidation.keys());
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message", e);
+        }
+    }
+
+    private void publishInvalidation(String cache, List<String> keys) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, mapper.writeValueAsString(new CacheInvalidation(instanceId, cache, keys)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record LocalTier(Cache<String, CachedValue<?>> cache, RefreshPolicy policy) {
+    }
+}
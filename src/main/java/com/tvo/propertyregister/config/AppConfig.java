@@ -1,33 +1,73 @@
 package com.tvo.propertyregister.config;
 
+import com.tvo.propertyregister.repository.IndexRepository;
+import com.tvo.propertyregister.repository.OutboxRepository;
 import com.tvo.propertyregister.repository.OwnerRepository;
 import com.tvo.propertyregister.repository.PropertyRepository;
 import com.tvo.propertyregister.repository.TaxRateRepository;
 import com.tvo.propertyregister.repository.inmemory.InMemoryOwnerRepository;
 import com.tvo.propertyregister.repository.inmemory.InMemoryPropertyRepository;
 import com.tvo.propertyregister.repository.inmemory.InMemoryTaxRateRepository;
+import com.tvo.propertyregister.repository.mapped.MappedOwnerRepository;
+import com.tvo.propertyregister.repository.mapped.MappedPropertyRepository;
+import com.tvo.propertyregister.repository.mapped.MappedTaxRateRepository;
+import com.tvo.propertyregister.repository.mapped.OwnerSnapshotStore;
+import com.tvo.propertyregister.repository.mongodb.MongoDbIdAllocator;
+import com.tvo.propertyregister.repository.mongodb.MongoDbIndexRepository;
+import com.tvo.propertyregister.repository.mongodb.MongoDbOutboxRepository;
 import com.tvo.propertyregister.repository.mongodb.MongoDbOwnerRepository;
 import com.tvo.propertyregister.repository.mongodb.MongoDbPropertyRepository;
 import com.tvo.propertyregister.repository.mongodb.MongoDbTaxRateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.core.MongoTemplate;
 
 @Configuration
+@EnableConfigurationProperties(SnapshotProperties.class)
 public class AppConfig {
 
     @Bean
-    public OwnerRepository ownerRealization(MongoTemplate mongoTemplate) {
-        return new MongoDbOwnerRepository(mongoTemplate);
+    public MongoDbIdAllocator idAllocator(MongoTemplate mongoTemplate,
+                                          @Value("${property-register.id-allocation.block-size}") int blockSize) {
+        return new MongoDbIdAllocator(mongoTemplate, blockSize);
     }
 
     @Bean
-    public TaxRateRepository taxRateRepository(MongoTemplate mongoTemplate) {
-        return new MongoDbTaxRateRepository(mongoTemplate);
+    public OwnerSnapshotStore ownerSnapshotStore(SnapshotProperties properties, MongoTemplate mongoTemplate,
+                                                 MongoDbIdAllocator idAllocator, ApplicationEventPublisher events) {
+        return new OwnerSnapshotStore(properties,
+                new MongoDbOwnerRepository(mongoTemplate, idAllocator, events),
+                new MongoDbTaxRateRepository(mongoTemplate, events));
     }
 
     @Bean
-    public PropertyRepository propertyRealization(MongoTemplate mongoTemplate) {
-        return new MongoDbPropertyRepository(mongoTemplate);
+    public OwnerRepository ownerRealization(OwnerSnapshotStore snapshotStore) {
+        return snapshotStore.isEnabled() ? new MappedOwnerRepository(snapshotStore) : snapshotStore.owners();
+    }
+
+    @Bean
+    public TaxRateRepository taxRateRepository(OwnerSnapshotStore snapshotStore) {
+        return snapshotStore.isEnabled() ? new MappedTaxRateRepository(snapshotStore) : snapshotStore.taxRates();
+    }
+
+    @Bean
+    public OutboxRepository outboxRepository(MongoTemplate mongoTemplate) {
+        return new MongoDbOutboxRepository(mongoTemplate);
+    }
+
+    @Bean
+    public IndexRepository indexRepository(MongoTemplate mongoTemplate) {
+        return new MongoDbIndexRepository(mongoTemplate);
+    }
+
+    @Bean
+    public PropertyRepository propertyRealization(MongoTemplate mongoTemplate, MongoDbIdAllocator idAllocator,
+                                                  ApplicationEventPublisher events, OwnerSnapshotStore snapshotStore) {
+        PropertyRepository propertyRepository = new MongoDbPropertyRepository(mongoTemplate, idAllocator, events);
+
+        return snapshotStore.isEnabled() ? new MappedPropertyRepository(snapshotStore, propertyRepository) : propertyRepository;
     }
 }
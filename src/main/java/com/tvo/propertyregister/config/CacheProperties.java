@@ -0,0 +1,23 @@
+package com.tvo.propertyregister.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+
+@ConfigurationProperties("property-register.cache")
+public record CacheProperties(Map<String, Spec> specs) {
+
+    public Spec spec(String cacheName) {
+        return Objects.requireNonNull(specs.get(cacheName), "No cache spec configured for " + cacheName);
+    }
+
+    public record Spec(Duration ttl,
+                       Duration localTtl,
+                       long localMaxSize,
+                       @DefaultValue("0s") Duration staleWhileRevalidate,
+                       @DefaultValue("1.0") double beta) {
+    }
+}
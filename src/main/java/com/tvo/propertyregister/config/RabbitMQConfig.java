@@ -1,10 +1,21 @@
 package com.tvo.propertyregister.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.service.InternalEmailSender;
+import com.tvo.propertyregister.service.codec.EmailEventCodecs;
+import com.tvo.propertyregister.service.codec.JacksonEmailEventCodec;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 @EnableRabbit
 public class RabbitMQConfig {
@@ -13,4 +24,26 @@ public class RabbitMQConfig {
     public Queue emailQueue() {
         return new Queue("email-queue", true);
     }
+
+    @Bean
+    public EmailEventCodecs emailEventCodecs(ObjectMapper mapper,
+                                             @Value("${property-register.email.content-type}") String contentType) {
+        return new EmailEventCodecs(List.of(
+                JacksonEmailEventCodec.json(mapper),
+                JacksonEmailEventCodec.cbor(),
+                JacksonEmailEventCodec.smile()
+        ), contentType);
+    }
+
+    @Bean
+    public InternalEmailSender brokerEmailSender(EmailEventCodecs emailEventCodecs,
+                                                 ConnectionFactory connectionFactory,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${property-register.email.batch-size}") int batchSize,
+                                                 @Value("${property-register.email.linger}") Duration linger,
+                                                 @Value("${property-register.email.confirm-timeout}") Duration confirmTimeout,
+                                                 @Value("${property-register.email.send-timeout}") Duration sendTimeout) {
+        return new InternalEmailSender(emailEventCodecs.writer(), new RabbitTemplate(connectionFactory), meterRegistry,
+                batchSize, linger, confirmTimeout, sendTimeout);
+    }
 }
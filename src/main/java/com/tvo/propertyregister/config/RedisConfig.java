@@ -1,23 +1,50 @@
 package com.tvo.propertyregister.config;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tvo.propertyregister.cache.CacheNames;
+import com.tvo.propertyregister.cache.CachedValue;
+import com.tvo.propertyregister.cache.OwnerChangeFeed;
+import com.tvo.propertyregister.cache.RefreshPolicy;
+import com.tvo.propertyregister.cache.TwoTierCacheManager;
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.service.TaxRateService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
-import java.time.Duration;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @EnableCaching
 @Configuration
-public class RedisConfig {
+@EnableConfigurationProperties(CacheProperties.class)
+public class RedisConfig implements CachingConfigurer {
 
     @Value("${spring.cache.redis.host}")
     private String redisHost;
@@ -35,16 +62,65 @@ public class RedisConfig {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.setFilterProvider(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
         return objectMapper;
     }
 
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
     @Bean
-    public RedisCacheConfiguration redisCacheConfiguration(ObjectMapper mapper) {
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(mapper);
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            ObjectMapper mapper,
+                                            CacheProperties cacheProperties) {
+        TypeFactory types = mapper.getTypeFactory();
+        Map<String, JavaType> cacheTypes = Map.of(
+                CacheNames.OWNERS, types.constructType(Owner.class),
+                CacheNames.DEBTORS, types.constructCollectionType(List.class, Owner.class),
+                CacheNames.TAX_RATES, types.constructCollectionType(List.class, TaxRate.class));
+
+        Map<String, RedisCacheConfiguration> remoteCaches = new HashMap<>();
+        Map<String, TwoTierCacheManager.LocalTier> localTiers = new HashMap<>();
+
+        cacheTypes.forEach((name, type) -> {
+            CacheProperties.Spec spec = cacheProperties.spec(name);
+            RefreshPolicy policy = new RefreshPolicy(spec.ttl(), spec.staleWhileRevalidate(), spec.beta());
+            JavaType cachedType = types.constructParametricType(CachedValue.class, type);
+
+            remoteCaches.put(name, RedisCacheConfiguration.defaultCacheConfig()
+                    .entryTtl(policy.retention())
+                    .disableCachingNullValues()
+                    .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new Jackson2JsonRedisSerializer<>(mapper, cachedType))));
 
-        return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(60))
-                .disableCachingNullValues()
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
+            localTiers.put(name, new TwoTierCacheManager.LocalTier(Caffeine.newBuilder()
+                    .maximumSize(spec.localMaxSize())
+                    .expireAfterWrite(spec.localTtl())
+                    .build(), policy));
+        });
+
+        RedisCacheManager remoteCacheManager = RedisCacheManager
+                .builder(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory, BatchStrategies.scan(1000)))
+                .withInitialCacheConfigurations(remoteCaches)
+                .disableCreateOnMissingCache()
+                .build();
+        remoteCacheManager.initializeCaches();
+
+        return new TwoTierCacheManager(localTiers, remoteCacheManager, stringRedisTemplate, mapper, Clock.systemUTC());
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TwoTierCacheManager cacheManager,
+                                                                       OwnerChangeFeed ownerChangeFeed,
+                                                                       TaxRateService taxRateService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(ownerChangeFeed, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(taxRateService, new ChannelTopic(TaxRateService.SNAPSHOT_CHANNEL));
+        return container;
     }
 }
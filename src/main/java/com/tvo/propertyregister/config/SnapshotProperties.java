@@ -0,0 +1,13 @@
+package com.tvo.propertyregister.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties("property-register.snapshot")
+public record SnapshotProperties(@DefaultValue("false") boolean enabled,
+                                 Path path,
+                                 @DefaultValue("1h") Duration maxAge) {
+}
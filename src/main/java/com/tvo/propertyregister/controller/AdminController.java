@@ -0,0 +1,24 @@
+package com.tvo.propertyregister.controller;
+
+import com.tvo.propertyregister.model.dto.IndexStatsDto;
+import com.tvo.propertyregister.service.IndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/v1/admin")
+public class AdminController {
+
+    private final IndexService indexService;
+
+    @GetMapping("/indexes")
+    public ResponseEntity<List<IndexStatsDto>> getIndexStats() {
+        return ResponseEntity.ok(this.indexService.getIndexStats());
+    }
+}
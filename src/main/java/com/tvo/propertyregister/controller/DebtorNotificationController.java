@@ -1,14 +1,18 @@
 package com.tvo.propertyregister.controller;
 
 import com.tvo.propertyregister.model.dto.BooleanResponseDto;
+import com.tvo.propertyregister.model.dto.NotificationJobDto;
 import com.tvo.propertyregister.service.DebtorNotificationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/v1/debtors/notify")
@@ -17,8 +21,17 @@ public class DebtorNotificationController {
     private final DebtorNotificationService debtorNotificationService;
 
     @PostMapping
-    public ResponseEntity<BooleanResponseDto> notifyAllDebtors() {
-        return ResponseEntity.ok(new BooleanResponseDto(debtorNotificationService.notifyAllDebtors()));
+    public ResponseEntity<NotificationJobDto> notifyAllDebtors() {
+        NotificationJobDto job = debtorNotificationService.notifyAllDebtors();
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/v1/debtors/notify/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<NotificationJobDto> getNotificationJob(@PathVariable String id) {
+        return ResponseEntity.ok(debtorNotificationService.getJob(id));
     }
 
     @PostMapping("/{id}")
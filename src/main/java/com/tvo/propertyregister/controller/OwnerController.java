@@ -1,16 +1,31 @@
 package com.tvo.propertyregister.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.tvo.propertyregister.model.dto.*;
 import com.tvo.propertyregister.model.owner.Owner;
 import com.tvo.propertyregister.model.property.Property;
 import com.tvo.propertyregister.service.OwnerService;
 import com.tvo.propertyregister.service.PropertyService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,10 +34,31 @@ public class OwnerController {
 
     private final OwnerService ownerService;
     private final PropertyService propertyService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<Owner>> getAllOwners() {
-        return ResponseEntity.ok(this.ownerService.getAllOwners());
+    public ResponseEntity<MappingJacksonValue> getOwners(
+            @RequestParam(defaultValue = "0") int afterId,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "") Set<String> fields) {
+        List<Owner> owners = this.ownerService.getOwners(afterId, limit, fields);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (owners.size() == limit) {
+            String nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("afterId", owners.get(owners.size() - 1).getId())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"");
+        }
+
+        return response.body(withFields(owners, fields));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOwners(@RequestParam(defaultValue = "") Set<String> fields) {
+        Stream<Owner> owners = this.ownerService.streamOwners(fields);
+
+        return ndjson(owners, this.objectMapper.writer(fieldsFilter(fields)).forType(Owner.class));
     }
 
     @GetMapping("/{id}")
@@ -31,8 +67,8 @@ public class OwnerController {
     }
 
     @GetMapping("/debtors")
-    public ResponseEntity<List<Owner>> getDebtors() {
-        return ResponseEntity.ok(this.ownerService.findDebtors());
+    public ResponseEntity<MappingJacksonValue> getDebtors(@RequestParam(defaultValue = "") Set<String> fields) {
+        return ResponseEntity.ok(withFields(this.ownerService.findDebtors(fields), fields));
     }
 
     @GetMapping("/{ownerId}/properties")
@@ -84,9 +120,50 @@ public class OwnerController {
         return ResponseEntity.ok(new TaxObligationResponseDto(this.ownerService.countTaxObligation(ownerId)));
     }
 
+    @PostMapping(value = "/tax-obligations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> countTaxObligations(@RequestBody TaxObligationBatchRequest request) {
+        Stream<OwnerTaxObligationDto> obligations = this.ownerService.streamTaxObligations(request);
+
+        return ndjson(obligations, this.objectMapper.writerFor(OwnerTaxObligationDto.class));
+    }
+
     @GetMapping("/totalDebt")
     public ResponseEntity<BigDecimal> countTotalNumberOfDebts() {
         return ResponseEntity.ok(new BigDecimal(ownerService.countTotalDebt()));
     }
 
+    private static <T> ResponseEntity<StreamingResponseBody> ndjson(Stream<T> items, ObjectWriter objectWriter) {
+        StreamingResponseBody body = output -> {
+            try (items;
+                 SequenceWriter writer = objectWriter
+                         .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                         .withRootValueSeparator("\n")
+                         .writeValues(output)) {
+                Iterator<T> iterator = items.iterator();
+
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static MappingJacksonValue withFields(List<Owner> owners, Set<String> fields) {
+        MappingJacksonValue body = new MappingJacksonValue(owners);
+        body.setFilters(fieldsFilter(fields));
+
+        return body;
+    }
+
+    private static FilterProvider fieldsFilter(Set<String> fields) {
+        SimpleBeanPropertyFilter filter = fields.isEmpty()
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(fields);
+
+        return new SimpleFilterProvider().addFilter(Owner.FIELDS_FILTER, filter);
+    }
 }
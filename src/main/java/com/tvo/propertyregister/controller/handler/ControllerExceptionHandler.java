@@ -64,10 +64,31 @@ public class ControllerExceptionHandler extends ResponseEntityExceptionHandler {
         return super.handleExceptionInternal(exception, error, new HttpHeaders(), NOT_FOUND, request);
     }
 
+    @ExceptionHandler(value = NotificationJobNotFoundException.class)
+    public ResponseEntity<Object> handleNotificationJobNotFoundException(Exception exception, WebRequest request) {
+        ErrorDto error = new ErrorDto(NOT_FOUND.getReasonPhrase(), exception.getMessage());
+
+        return super.handleExceptionInternal(exception, error, new HttpHeaders(), NOT_FOUND, request);
+    }
+
     @ExceptionHandler(value = InvalidTaxRateNumberException.class)
     public ResponseEntity<Object> handleInvalidTaxRateNumberException(Exception exception, WebRequest request) {
         ErrorDto error = new ErrorDto(INTERNAL_SERVER_ERROR.getReasonPhrase(), exception.getMessage());
 
         return super.handleExceptionInternal(exception, error, new HttpHeaders(), INTERNAL_SERVER_ERROR, request);
     }
+
+    @ExceptionHandler(value = OwnerConcurrentModificationException.class)
+    public ResponseEntity<Object> handleOwnerConcurrentModificationException(Exception exception, WebRequest request) {
+        ErrorDto error = new ErrorDto(CONFLICT.getReasonPhrase(), exception.getMessage());
+
+        return super.handleExceptionInternal(exception, error, new HttpHeaders(), CONFLICT, request);
+    }
+
+    @ExceptionHandler(value = {InvalidPageRequestException.class, InvalidFieldSelectionException.class, InvalidBatchRequestException.class})
+    public ResponseEntity<Object> handleInvalidPageRequestException(Exception exception, WebRequest request) {
+        ErrorDto error = new ErrorDto(BAD_REQUEST.getReasonPhrase(), exception.getMessage());
+
+        return super.handleExceptionInternal(exception, error, new HttpHeaders(), BAD_REQUEST, request);
+    }
 }
@@ -0,0 +1,7 @@
+package com.tvo.propertyregister.exception;
+
+public class EmailNotPublishedException extends RuntimeException {
+    public EmailNotPublishedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.tvo.propertyregister.exception;
+
+public class InvalidFieldSelectionException extends RuntimeException {
+    public InvalidFieldSelectionException(String message) {
+        super(message);
+    }
+}
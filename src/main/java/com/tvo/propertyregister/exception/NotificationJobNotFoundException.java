@@ -0,0 +1,7 @@
+package com.tvo.propertyregister.exception;
+
+public class NotificationJobNotFoundException extends RuntimeException {
+    public NotificationJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.tvo.propertyregister.exception;
+
+public class OwnerConcurrentModificationException extends RuntimeException {
+    public OwnerConcurrentModificationException(String message) {
+        super(message);
+    }
+}
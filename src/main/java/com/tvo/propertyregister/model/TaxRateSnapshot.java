@@ -0,0 +1,53 @@
+package com.tvo.propertyregister.model;
+
+import com.tvo.propertyregister.exception.InvalidTaxRateNumberException;
+import com.tvo.propertyregister.model.property.PropertyType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import static com.tvo.propertyregister.service.utils.Constants.TAXES_RATE_NUMBER;
+
+/**
+ * Immutable view of the tax rate table. {@code version} is a fingerprint of the rates, so two instances holding
+ * the same rates agree on it without coordinating.
+ */
+public record TaxRateSnapshot(Map<PropertyType, BigDecimal> rates, int documents, String version) {
+
+    public static TaxRateSnapshot of(List<TaxRate> taxRates) {
+        Map<PropertyType, BigDecimal> rates = new EnumMap<>(PropertyType.class);
+        for (TaxRate taxRate : taxRates) {
+            rates.put(taxRate.getPropertyType(), taxRate.getTax());
+        }
+
+        return new TaxRateSnapshot(Collections.unmodifiableMap(rates), taxRates.size(), fingerprint(rates, taxRates.size()));
+    }
+
+    public TaxRateSnapshot requireComplete() {
+        if (documents != TAXES_RATE_NUMBER || rates.size() != TAXES_RATE_NUMBER || rates.containsValue(null)) {
+            throw new InvalidTaxRateNumberException("Invalid number of tax rates. Current size is " + documents);
+        }
+
+        return this;
+    }
+
+    public BigDecimal rate(PropertyType propertyType) {
+        return requireComplete().rates.get(propertyType);
+    }
+
+    private static String fingerprint(Map<PropertyType, BigDecimal> rates, int documents) {
+        StringBuilder canonical = new StringBuilder().append(documents);
+        rates.forEach((type, rate) -> canonical.append(';').append(type).append('=')
+                .append(Objects.isNull(rate) ? "null" : rate.stripTrailingZeros().toPlainString()));
+
+        CRC32 crc = new CRC32();
+        crc.update(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
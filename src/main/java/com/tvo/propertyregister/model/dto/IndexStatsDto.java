@@ -0,0 +1,12 @@
+package com.tvo.propertyregister.model.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record IndexStatsDto(
+        String collection,
+        String name,
+        Map<String, Object> key,
+        long accesses,
+        Instant since) {
+}
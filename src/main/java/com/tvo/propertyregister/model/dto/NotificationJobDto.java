@@ -0,0 +1,12 @@
+package com.tvo.propertyregister.model.dto;
+
+import java.time.Instant;
+
+public record NotificationJobDto(String id,
+                                 NotificationJobStatus status,
+                                 long total,
+                                 long sent,
+                                 long failed,
+                                 Instant startedAt,
+                                 Instant finishedAt) {
+}
@@ -0,0 +1,7 @@
+package com.tvo.propertyregister.model.dto;
+
+public enum NotificationJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.tvo.propertyregister.model.dto;
+
+import java.math.BigDecimal;
+
+public record OwnerTaxObligationDto(int ownerId, BigDecimal taxObligation) {
+}
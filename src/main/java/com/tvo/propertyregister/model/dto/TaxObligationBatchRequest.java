@@ -0,0 +1,6 @@
+package com.tvo.propertyregister.model.dto;
+
+import java.util.List;
+
+public record TaxObligationBatchRequest(List<Integer> ownerIds, Integer fromId, Integer toId) {
+}
@@ -15,6 +15,7 @@ public record UpdateOwnerDto
                 String email,
                 String phoneNumber,
                 LocalDate birthday,
-                BigDecimal taxesDebt
+                BigDecimal taxesDebt,
+                long version
         ) {
 }
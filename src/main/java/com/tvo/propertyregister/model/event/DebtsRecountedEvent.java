@@ -0,0 +1,6 @@
+package com.tvo.propertyregister.model.event;
+
+import java.util.List;
+
+public record DebtsRecountedEvent(List<Integer> ownerIds) {
+}
@@ -0,0 +1,9 @@
+package com.tvo.propertyregister.model.event;
+
+/**
+ * Published after an owner document was written. {@code debtor} is set when the owner was a debtor before or
+ * after the write, i.e. when the change is visible in the debtor list. {@code taxInputsChanged} is set when the write
+ * changed what the tax obligation is computed from and cleared the stored one.
+ */
+public record OwnerChangedEvent(int ownerId, boolean debtor, boolean taxInputsChanged) {
+}
@@ -0,0 +1,9 @@
+package com.tvo.propertyregister.model.event;
+
+import java.util.List;
+
+/**
+ * Owners written by another instance. A {@code null} id list means any owner may have changed.
+ */
+public record RemoteOwnersChangedEvent(List<Integer> ownerIds) {
+}
@@ -0,0 +1,7 @@
+package com.tvo.propertyregister.model.event;
+
+/**
+ * Tax rates changed by another instance, announced with the version of its rate table.
+ */
+public record RemoteTaxRatesChangedEvent(String version) {
+}
@@ -0,0 +1,6 @@
+package com.tvo.propertyregister.model.event;
+
+import com.tvo.propertyregister.model.property.PropertyType;
+
+public record TaxRateChangedEvent(PropertyType propertyType) {
+}
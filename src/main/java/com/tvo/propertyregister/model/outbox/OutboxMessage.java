@@ -0,0 +1,23 @@
+package com.tvo.propertyregister.model.outbox;
+
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    private String id;
+    private EmailEventDto event;
+    private OutboxStatus status;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private String claimedBy;
+    private Instant claimedUntil;
+    private String lastError;
+    private Instant createdAt;
+}
@@ -0,0 +1,7 @@
+package com.tvo.propertyregister.model.outbox;
+
+public enum OutboxStatus {
+    PENDING,
+    IN_FLIGHT,
+    FAILED
+}
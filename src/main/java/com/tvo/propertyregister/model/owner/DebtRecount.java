@@ -0,0 +1,15 @@
+package com.tvo.propertyregister.model.owner;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Raises a debt by {@code rate} and rounds it half up to {@code scale} decimal places. Kept as data rather than a
+ * function so repositories can apply it on the server.
+ */
+public record DebtRecount(BigDecimal rate, int scale) {
+
+    public BigDecimal apply(BigDecimal debt) {
+        return debt.multiply(rate).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -1,10 +1,12 @@
 package com.tvo.propertyregister.model.owner;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.tvo.propertyregister.model.dto.CreateOwnerDto;
 import com.tvo.propertyregister.model.dto.UpdateOwnerDto;
 import com.tvo.propertyregister.model.property.Property;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.With;
 
@@ -14,9 +16,12 @@ import java.util.List;
 
 @Data
 @With
+@JsonFilter(Owner.FIELDS_FILTER)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Owner {
+    public static final String FIELDS_FILTER = "ownerFields";
+
     private int id;
     private String firstName;
     private String lastName;
@@ -28,6 +33,13 @@ public class Owner {
     private LocalDate birthday;
     private BigDecimal taxesDebt;
     private List<Property> properties;
+    @EqualsAndHashCode.Exclude
+    private long version;
+
+    public Owner(int id, String firstName, String lastName, int age, FamilyStatus familyStatus, boolean hasChildren,
+                 String email, String phoneNumber, LocalDate birthday, BigDecimal taxesDebt, List<Property> properties) {
+        this(id, firstName, lastName, age, familyStatus, hasChildren, email, phoneNumber, birthday, taxesDebt, properties, 0);
+    }
 
     public Owner(int id, String email, String firstName, String lastName, BigDecimal taxesDebt, boolean hasChildren, FamilyStatus familyStatus) {
         this.id = id;
@@ -61,5 +73,6 @@ public class Owner {
         this.phoneNumber = ownerDto.phoneNumber();
         this.birthday = ownerDto.birthday();
         this.taxesDebt = ownerDto.taxesDebt();
+        this.version = ownerDto.version();
     }
 }
\ No newline at end of file
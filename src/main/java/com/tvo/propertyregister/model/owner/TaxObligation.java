@@ -0,0 +1,17 @@
+package com.tvo.propertyregister.model.owner;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Tax obligation materialised on the owner document, tagged with the version of the tax rate snapshot it was
+ * computed against.
+ */
+public record TaxObligation(BigDecimal amount, String taxRatesVersion) {
+
+    public static final TaxObligation NONE = new TaxObligation(null, null);
+
+    public boolean isCurrent(String currentTaxRatesVersion) {
+        return Objects.nonNull(amount) && Objects.equals(taxRatesVersion, currentTaxRatesVersion);
+    }
+}
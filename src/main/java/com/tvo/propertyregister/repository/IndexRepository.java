@@ -0,0 +1,12 @@
+package com.tvo.propertyregister.repository;
+
+import com.tvo.propertyregister.model.dto.IndexStatsDto;
+
+import java.util.List;
+
+public interface IndexRepository {
+
+    void ensureIndexes();
+
+    List<IndexStatsDto> findIndexStats();
+}
@@ -0,0 +1,21 @@
+package com.tvo.propertyregister.repository;
+
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.model.outbox.OutboxMessage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxRepository {
+
+    void add(EmailEventDto event);
+
+    List<OutboxMessage> claim(int limit, Duration lease);
+
+    void remove(List<String> ids);
+
+    void reschedule(OutboxMessage message, Instant nextAttemptAt, String error);
+
+    void markFailed(OutboxMessage message, String error);
+}
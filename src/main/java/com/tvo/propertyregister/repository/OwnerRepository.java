@@ -1,23 +1,57 @@
 package com.tvo.propertyregister.repository;
 
+import com.tvo.propertyregister.model.owner.DebtRecount;
 import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.owner.TaxObligation;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public interface OwnerRepository {
 
-    List<Owner> findAll();
+    List<Owner> findPage(int afterId, int limit, Set<String> fields);
+
+    Stream<Owner> streamAll(Set<String> fields);
 
     Owner findById(int id);
 
+    Stream<Owner> streamByIds(Collection<Integer> ids, Set<String> fields);
+
+    Stream<Owner> streamByIdRange(int fromId, int toId, Set<String> fields);
+
+    /**
+     * Streams the owners written at or after {@code since}, in no particular order. Removed owners are not included.
+     */
+    Stream<Owner> streamChangedSince(Instant since);
+
     List<Owner> findDebtors();
 
+    List<Owner> findDebtors(Set<String> fields);
+
+    long countDebtors();
+
+    Stream<Owner> streamDebtors(Set<String> fields);
+
     boolean save(Owner owner);
 
     boolean update(int id, Owner owner);
 
     boolean remove(int id);
 
+    int recountDebts(DebtRecount recount);
+
+    TaxObligation findTaxObligation(int id);
+
+    boolean updateTaxObligation(int id, long version, TaxObligation taxObligation);
+
+    int recomputeTaxObligations(Function<Owner, BigDecimal> taxObligation, String taxRatesVersion);
+
     BigDecimal countAllDebts();
+
+    BigDecimal reconcileTotalDebt();
 }
@@ -1,6 +1,5 @@
 package com.tvo.propertyregister.repository;
 
-import com.fasterxml.jackson.databind.annotation.JsonAppend;
 import com.tvo.propertyregister.model.owner.Owner;
 import com.tvo.propertyregister.model.property.Property;
 
@@ -12,6 +11,8 @@ public interface PropertyRepository {
 
     boolean save(Owner owner, Property property);
 
-    boolean update(int ownerId, List<Property> updatedProperties);
+    boolean update(Owner owner, int propertyId, Property property);
+
+    boolean remove(Owner owner, int propertyId);
 
 }
@@ -9,5 +9,12 @@ import java.util.List;
 public interface TaxRateRepository {
     List<TaxRate> findAll();
 
+    /**
+     * Reads the rates as currently stored, bypassing any local copy {@link #findAll()} may serve.
+     */
+    default List<TaxRate> findLatest() {
+        return findAll();
+    }
+
     boolean changeTax(PropertyType propertyType, BigDecimal rate);
 }
@@ -1,92 +1,348 @@
 package com.tvo.propertyregister.repository.inmemory;
 
 import com.tvo.propertyregister.exception.NoSuchOwnerException;
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
 import com.tvo.propertyregister.exception.UpdateOwnerFailedException;
+import com.tvo.propertyregister.model.owner.DebtRecount;
 import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.owner.TaxObligation;
 import com.tvo.propertyregister.model.property.Property;
 import com.tvo.propertyregister.repository.OwnerRepository;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+/**
+ * Owners keyed by id with a debtor index ordered by debt, largest first. Every change to an owner goes through
+ * {@link ConcurrentHashMap#compute}, which also keeps the index, the debtor count and the debt total in step with it.
+ * Owners are copied on the way in and out and stored owners are replaced rather than modified, so neither callers
+ * nor readers can change what the index was built from.
+ */
 public class InMemoryOwnerRepository implements OwnerRepository {
 
-    private static int ownerCounter = 1;
-    private static int propertyCounter = 1;
-    private final List<Owner> allOwners = new ArrayList<>();
+    private static final int RECONCILE_ATTEMPTS = 3;
+    private static final Comparator<DebtorKey> LARGEST_DEBT_FIRST =
+            Comparator.comparing(DebtorKey::debt).reversed().thenComparingInt(DebtorKey::id);
+
+    private final AtomicInteger ownerSequence = new AtomicInteger();
+    private final AtomicInteger propertySequence = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, StoredOwner> owners = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<DebtorKey> debtors = new ConcurrentSkipListSet<>(LARGEST_DEBT_FIRST);
+    private final LongAdder debtorCount = new LongAdder();
+    private final AtomicReference<BigDecimal> totalDebt = new AtomicReference<>(BigDecimal.ZERO);
+
+    @Override
+    public List<Owner> findPage(int afterId, int limit, Set<String> fields) {
+        return streamIdRange(afterId + 1, this.ownerSequence.get())
+                .limit(limit)
+                .toList();
+    }
 
     @Override
-    public List<Owner> findAll() {
-        return this.allOwners;
+    public Stream<Owner> streamAll(Set<String> fields) {
+        return streamIdRange(1, this.ownerSequence.get());
     }
 
     @Override
     public Owner findById(int id) {
-        for (Owner owner : this.allOwners) {
-            if (owner.getId() == id) {
-                return owner;
-            }
+        StoredOwner stored = this.owners.get(id);
+        if (Objects.isNull(stored)) {
+            throw new NoSuchOwnerException("Owner with id: %s does not exists!".formatted(id));
         }
 
-        throw new NoSuchOwnerException("Owner with id: %s does not exists!".formatted(id));
+        return copy(stored.owner());
+    }
+
+    @Override
+    public Stream<Owner> streamByIds(Collection<Integer> ids, Set<String> fields) {
+        return ids.stream()
+                .distinct()
+                .map(this.owners::get)
+                .filter(Objects::nonNull)
+                .map(stored -> copy(stored.owner()));
+    }
+
+    @Override
+    public Stream<Owner> streamByIdRange(int fromId, int toId, Set<String> fields) {
+        return streamIdRange(fromId, toId);
+    }
+
+    @Override
+    public Stream<Owner> streamChangedSince(Instant since) {
+        return this.owners.values().stream()
+                .filter(stored -> !stored.changedAt().isBefore(since))
+                .map(stored -> copy(stored.owner()));
     }
 
     @Override
     public List<Owner> findDebtors() {
         List<Owner> debtors = new ArrayList<>();
 
-        for (Owner owner : this.allOwners) {
-            if (owner.getTaxesDebt().compareTo(BigDecimal.ZERO) > 0) {
-                debtors.add(owner);
+        for (DebtorKey key : this.debtors) {
+            StoredOwner stored = this.owners.get(key.id());
+
+            if (Objects.nonNull(stored) && isDebtor(stored.owner().getTaxesDebt())) {
+                debtors.add(copy(stored.owner()));
             }
         }
 
         return debtors;
     }
 
+    @Override
+    public List<Owner> findDebtors(Set<String> fields) {
+        return findDebtors();
+    }
+
+    @Override
+    public long countDebtors() {
+        return this.debtorCount.sum();
+    }
+
+    @Override
+    public Stream<Owner> streamDebtors(Set<String> fields) {
+        return findDebtors().stream();
+    }
+
     @Override
     public boolean save(Owner owner) {
-        owner.setId(ownerCounter++);
+        int id = this.ownerSequence.incrementAndGet();
+        owner.setId(id);
 
-        for (Property property : owner.getProperties()) {
-            property.setId(propertyCounter++);
+        if (Objects.nonNull(owner.getProperties())) {
+            for (Property property : owner.getProperties()) {
+                property.setId(this.propertySequence.incrementAndGet());
+            }
         }
 
-        return this.allOwners.add(owner);
+        Owner stored = copy(owner);
+
+        this.owners.compute(id, (key, current) -> store(current, new StoredOwner(stored, TaxObligation.NONE, Instant.now())));
+        return true;
     }
 
+    /**
+     * Like the Mongo update, leaves the owner's properties alone: they are only changed through the property
+     * repository, so whatever list the caller passes is ignored.
+     */
     @Override
     public boolean update(int id, Owner owner) {
+        StoredOwner updated = this.owners.computeIfPresent(id, (key, current) -> {
+            Owner currentOwner = current.owner();
+            if (currentOwner.getVersion() != owner.getVersion()) {
+                throw new OwnerConcurrentModificationException("Owner with id " + id + " was modified concurrently");
+            }
 
-        for (Property property : owner.getProperties()) {
-            property.setId(propertyCounter++);
-        }
+            Owner updatedOwner = new Owner(id, owner.getFirstName(), owner.getLastName(),
+                    currentOwner.getAge(), owner.getFamilyStatus(),
+                    owner.isHasChildren(), owner.getEmail(),
+                    owner.getPhoneNumber(),
+                    currentOwner.getBirthday(),
+                    owner.getTaxesDebt(), currentOwner.getProperties(), currentOwner.getVersion() + 1);
 
-        for (Owner currentOwner : this.allOwners) {
-            if (currentOwner.getId() == id) {
-                currentOwner.setFirstName(owner.getFirstName());
-                currentOwner.setLastName(owner.getLastName());
-                currentOwner.setFamilyStatus(owner.getFamilyStatus());
-                currentOwner.setHasChildren(owner.isHasChildren());
-                currentOwner.setEmail(owner.getEmail());
-                currentOwner.setPhoneNumber(owner.getPhoneNumber());
-                currentOwner.setTaxesDebt(owner.getTaxesDebt());
-                currentOwner.setProperties(owner.getProperties());
-                return true;
-            }
+            TaxObligation taxObligation = sameTaxInputs(currentOwner, updatedOwner) ? current.taxObligation() : TaxObligation.NONE;
+            return store(current, new StoredOwner(updatedOwner, taxObligation, Instant.now()));
+        });
+
+        if (Objects.isNull(updated)) {
+            throw new UpdateOwnerFailedException("Failed updating owner with id: %s".formatted(id));
         }
 
-        throw new UpdateOwnerFailedException("Failed updating owner with id: %s".formatted(id));
+        return true;
     }
 
     @Override
     public boolean remove(int id) {
-        return this.allOwners.removeIf(owner -> owner.getId() == id);
+        AtomicBoolean removed = new AtomicBoolean();
+
+        this.owners.computeIfPresent(id, (key, current) -> {
+            removed.set(true);
+            return store(current, null);
+        });
+
+        return removed.get();
+    }
+
+    @Override
+    public int recountDebts(DebtRecount recount) {
+        AtomicInteger recounted = new AtomicInteger();
+        // recounting moves owners within the index, so walk a snapshot of it
+        List<Integer> debtorIds = this.debtors.stream().map(DebtorKey::id).toList();
+
+        for (int debtorId : debtorIds) {
+            this.owners.computeIfPresent(debtorId, (id, current) -> {
+                Owner owner = current.owner();
+                if (!isDebtor(owner.getTaxesDebt())) {
+                    return current;
+                }
+
+                recounted.incrementAndGet();
+                Owner recountedOwner = owner.withTaxesDebt(recount.apply(owner.getTaxesDebt())).withVersion(owner.getVersion() + 1);
+                return store(current, new StoredOwner(recountedOwner, current.taxObligation(), Instant.now()));
+            });
+        }
+
+        return recounted.get();
+    }
+
+    @Override
+    public TaxObligation findTaxObligation(int id) {
+        StoredOwner stored = this.owners.get(id);
+
+        return Objects.isNull(stored) ? null : stored.taxObligation();
+    }
+
+    @Override
+    public boolean updateTaxObligation(int id, long version, TaxObligation taxObligation) {
+        AtomicBoolean updated = new AtomicBoolean();
+
+        this.owners.computeIfPresent(id, (key, current) -> {
+            if (current.owner().getVersion() != version) {
+                return current;
+            }
+
+            updated.set(true);
+            return current.withTaxObligation(taxObligation);
+        });
+
+        return updated.get();
+    }
+
+    @Override
+    public int recomputeTaxObligations(Function<Owner, BigDecimal> taxObligation, String taxRatesVersion) {
+        AtomicInteger recomputed = new AtomicInteger();
+
+        for (Integer id : this.owners.keySet()) {
+            this.owners.computeIfPresent(id, (key, current) -> {
+                BigDecimal amount = taxObligation.apply(current.owner());
+                if (Objects.isNull(amount)) {
+                    return current;
+                }
+
+                recomputed.incrementAndGet();
+                return current.withTaxObligation(new TaxObligation(amount, taxRatesVersion));
+            });
+        }
+
+        return recomputed.get();
     }
 
     @Override
     public BigDecimal countAllDebts() {
-        return null;
+        return this.totalDebt.get();
+    }
+
+    @Override
+    public BigDecimal reconcileTotalDebt() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            BigDecimal ledger = this.totalDebt.get();
+            BigDecimal actual = BigDecimal.ZERO;
+            for (StoredOwner stored : this.owners.values()) {
+                actual = actual.add(debtContribution(stored));
+            }
+
+            // a write that moved the ledger during the sum may or may not be in it, so only correct an unchanged ledger
+            BigDecimal drift = actual.subtract(ledger);
+            if (this.totalDebt.compareAndSet(ledger, actual)) {
+                return drift;
+            }
+        }
+
+        return BigDecimal.ZERO;
+    }
+
+    private Stream<Owner> streamIdRange(int fromId, int toId) {
+        return IntStream.rangeClosed(Math.max(fromId, 1), Math.min(toId, this.ownerSequence.get()))
+                .mapToObj(this.owners::get)
+                .filter(Objects::nonNull)
+                .map(stored -> copy(stored.owner()));
+    }
+
+    private static Owner copy(Owner owner) {
+        return new Owner(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAge(), owner.getFamilyStatus(),
+                owner.isHasChildren(), owner.getEmail(), owner.getPhoneNumber(), owner.getBirthday(),
+                owner.getTaxesDebt(), copy(owner.getProperties()), owner.getVersion());
+    }
+
+    // properties are never changed by an owner update, so only the owner's own tax inputs can differ
+    private static boolean sameTaxInputs(Owner previous, Owner next) {
+        return previous.getFamilyStatus() == next.getFamilyStatus() && previous.isHasChildren() == next.isHasChildren();
+    }
+
+    private static List<Property> copy(List<Property> properties) {
+        if (Objects.isNull(properties)) {
+            return null;
+        }
+
+        List<Property> copies = new ArrayList<>(properties.size());
+        for (Property property : properties) {
+            copies.add(new Property(property.getId(), property.getPropertyType(), property.getCity(), property.getAddress(),
+                    property.getSquare(), property.getNumberOfRooms(), property.getCost(),
+                    property.getDateOfBecomingOwner(), property.getDateOfBuilding(), property.getPropertyCondition()));
+        }
+
+        return copies;
+    }
+
+    // called from inside compute, so changes to the same owner are applied one at a time
+    private StoredOwner store(StoredOwner previous, StoredOwner next) {
+        if (Objects.nonNull(previous) && isDebtor(previous.owner().getTaxesDebt())) {
+            this.debtors.remove(DebtorKey.of(previous.owner()));
+            this.debtorCount.decrement();
+        }
+        if (Objects.nonNull(next) && isDebtor(next.owner().getTaxesDebt())) {
+            this.debtors.add(DebtorKey.of(next.owner()));
+            this.debtorCount.increment();
+        }
+
+        adjustTotalDebt(debtContribution(next).subtract(debtContribution(previous)));
+        return next;
+    }
+
+    private void adjustTotalDebt(BigDecimal delta) {
+        if (delta.signum() != 0) {
+            this.totalDebt.accumulateAndGet(delta, BigDecimal::add);
+        }
+    }
+
+    private static BigDecimal debtContribution(StoredOwner stored) {
+        if (Objects.isNull(stored) || !isDebtor(stored.owner().getTaxesDebt())) {
+            return BigDecimal.ZERO;
+        }
+
+        return stored.owner().getTaxesDebt();
+    }
+
+    private static boolean isDebtor(BigDecimal taxesDebt) {
+        return Objects.nonNull(taxesDebt) && taxesDebt.signum() > 0;
+    }
+
+    private record StoredOwner(Owner owner, TaxObligation taxObligation, Instant changedAt) {
+
+        StoredOwner withTaxObligation(TaxObligation taxObligation) {
+            return new StoredOwner(this.owner, taxObligation, this.changedAt);
+        }
+    }
+
+    private record DebtorKey(BigDecimal debt, int id) {
+
+        static DebtorKey of(Owner owner) {
+            return new DebtorKey(owner.getTaxesDebt(), owner.getId());
+        }
     }
 }
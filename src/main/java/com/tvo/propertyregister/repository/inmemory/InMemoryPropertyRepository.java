@@ -69,11 +69,28 @@ public class InMemoryPropertyRepository implements PropertyRepository {
 
     @Override
     public boolean save(Owner owner, Property property) {
-        return false;
+        property.setId(++counter);
+
+        return findAll(owner.getId()).add(property);
     }
 
     @Override
-    public boolean update(int ownerId, List<Property> updatedProperties) {
+    public boolean update(Owner owner, int propertyId, Property property) {
+        for (Property currentProperty : findAll(owner.getId())) {
+            if (currentProperty.getId() == propertyId) {
+                currentProperty.setCity(property.getCity());
+                currentProperty.setAddress(property.getAddress());
+                currentProperty.setNumberOfRooms(property.getNumberOfRooms());
+                currentProperty.setPropertyCondition(property.getPropertyCondition());
+                return true;
+            }
+        }
+
         return false;
     }
+
+    @Override
+    public boolean remove(Owner owner, int propertyId) {
+        return findAll(owner.getId()).removeIf(property -> property.getId() == propertyId);
+    }
 }
@@ -0,0 +1,163 @@
+package com.tvo.propertyregister.repository.mapped;
+
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
+import com.tvo.propertyregister.model.owner.DebtRecount;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.owner.TaxObligation;
+import com.tvo.propertyregister.repository.OwnerRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Serves owner reads from the store's {@link OwnerView}, the memory-mapped snapshot with the owners changed since
+ * laid over it, and everything else from its source repository. Single-owner reads go to the source for owners the
+ * store knows to be changed but has not caught up with yet; scans have the store catch up first. Writes the store has
+ * not heard of yet, such as those of another instance whose invalidation is still in flight, can be missed until the
+ * next refresh, so versioned writes may fail on an owner read from the view; the owner is then marked and the retry
+ * reads it from the source. Requested field sets are ignored for view reads, which always return whole owners.
+ */
+public class MappedOwnerRepository implements OwnerRepository {
+
+    private final OwnerSnapshotStore store;
+    private final OwnerRepository source;
+
+    public MappedOwnerRepository(OwnerSnapshotStore store) {
+        this.store = store;
+        this.source = store.owners();
+    }
+
+    @Override
+    public List<Owner> findPage(int afterId, int limit, Set<String> fields) {
+        OwnerView view = this.store.viewForScans();
+        if (Objects.isNull(view)) {
+            return this.source.findPage(afterId, limit, fields);
+        }
+
+        return afterId == Integer.MAX_VALUE ? List.of() : view.range(afterId + 1, Integer.MAX_VALUE).limit(limit).toList();
+    }
+
+    @Override
+    public Stream<Owner> streamAll(Set<String> fields) {
+        OwnerView view = this.store.viewForScans();
+
+        return Objects.isNull(view) ? this.source.streamAll(fields) : view.range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Owner findById(int id) {
+        OwnerView view = this.store.viewFor(id);
+        Owner owner = Objects.isNull(view) ? null : view.owner(id);
+
+        return Objects.isNull(owner) ? this.source.findById(id) : owner;
+    }
+
+    @Override
+    public Stream<Owner> streamByIds(Collection<Integer> ids, Set<String> fields) {
+        OwnerView view = this.store.viewForScans();
+        if (Objects.isNull(view)) {
+            return this.source.streamByIds(ids, fields);
+        }
+
+        return ids.stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .mapToObj(view::owner)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public Stream<Owner> streamByIdRange(int fromId, int toId, Set<String> fields) {
+        OwnerView view = this.store.viewForScans();
+
+        return Objects.isNull(view) ? this.source.streamByIdRange(fromId, toId, fields) : view.range(fromId, toId);
+    }
+
+    @Override
+    public Stream<Owner> streamChangedSince(Instant since) {
+        return this.source.streamChangedSince(since);
+    }
+
+    @Override
+    public List<Owner> findDebtors() {
+        return findDebtors(Set.of());
+    }
+
+    @Override
+    public List<Owner> findDebtors(Set<String> fields) {
+        OwnerView view = this.store.viewForScans();
+
+        return Objects.isNull(view) ? this.source.findDebtors(fields) : view.debtors().toList();
+    }
+
+    @Override
+    public long countDebtors() {
+        OwnerView view = this.store.viewForScans();
+
+        return Objects.isNull(view) ? this.source.countDebtors() : view.countDebtors();
+    }
+
+    @Override
+    public Stream<Owner> streamDebtors(Set<String> fields) {
+        OwnerView view = this.store.viewForScans();
+
+        return Objects.isNull(view) ? this.source.streamDebtors(fields) : view.debtors();
+    }
+
+    @Override
+    public boolean save(Owner owner) {
+        return this.source.save(owner);
+    }
+
+    @Override
+    public boolean update(int id, Owner owner) {
+        try {
+            return this.source.update(id, owner);
+        } catch (OwnerConcurrentModificationException e) {
+            this.store.markChanged(id);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean remove(int id) {
+        return this.source.remove(id);
+    }
+
+    @Override
+    public int recountDebts(DebtRecount recount) {
+        return this.source.recountDebts(recount);
+    }
+
+    @Override
+    public TaxObligation findTaxObligation(int id) {
+        return this.source.findTaxObligation(id);
+    }
+
+    @Override
+    public boolean updateTaxObligation(int id, long version, TaxObligation taxObligation) {
+        return this.source.updateTaxObligation(id, version, taxObligation);
+    }
+
+    @Override
+    public int recomputeTaxObligations(Function<Owner, BigDecimal> taxObligation, String taxRatesVersion) {
+        return this.source.recomputeTaxObligations(taxObligation, taxRatesVersion);
+    }
+
+    @Override
+    public BigDecimal countAllDebts() {
+        return this.source.countAllDebts();
+    }
+
+    @Override
+    public BigDecimal reconcileTotalDebt() {
+        return this.source.reconcileTotalDebt();
+    }
+}
@@ -0,0 +1,431 @@
+package com.tvo.propertyregister.repository.mapped;
+
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyCondition;
+import com.tvo.propertyregister.model.property.PropertyType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Owners, their properties and the tax rates in one read-only memory-mapped file. Lookups binary search the id index
+ * and decode straight from the mapping, so nothing but the decoded owner is held on the heap.
+ *
+ * <p>Layout: owner records in ascending id order, tax rates, the index of {@code (id, record offset)} pairs, the
+ * indexes of debtors, and a fixed-size trailer pointing at each section and recording when the owners were last read
+ * in full from the source and up to when later changes are included. Files are limited to 2 GB.
+ */
+public final class MappedOwnerSnapshot {
+
+    private static final int MAGIC = 0x50524F53;
+    private static final int FORMAT_VERSION = 3;
+    private static final int TRAILER_SIZE = 4 * Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = 2 * Integer.BYTES;
+    private static final byte NONE = -1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final FamilyStatus[] FAMILY_STATUSES = FamilyStatus.values();
+    private static final PropertyType[] PROPERTY_TYPES = PropertyType.values();
+    private static final PropertyCondition[] PROPERTY_CONDITIONS = PropertyCondition.values();
+
+    private final MappedByteBuffer buffer;
+    private final int taxRatesOffset;
+    private final int indexOffset;
+    private final int debtorsOffset;
+    private final int size;
+    private final int debtors;
+    private final Instant sourcedAt;
+    private final Instant changedSince;
+
+    private MappedOwnerSnapshot(MappedByteBuffer buffer) {
+        int trailer = buffer.capacity() - TRAILER_SIZE;
+        if (trailer < 0 || buffer.getInt(buffer.capacity() - Integer.BYTES) != MAGIC) {
+            throw new IllegalStateException("Not an owner snapshot file");
+        }
+        if (buffer.getInt(buffer.capacity() - 2 * Integer.BYTES) != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported owner snapshot format " + buffer.getInt(buffer.capacity() - 2 * Integer.BYTES));
+        }
+
+        this.buffer = buffer;
+        this.taxRatesOffset = buffer.getInt(trailer);
+        this.indexOffset = buffer.getInt(trailer + Integer.BYTES);
+        this.debtorsOffset = buffer.getInt(trailer + 2 * Integer.BYTES);
+        this.size = buffer.getInt(trailer + 3 * Integer.BYTES);
+        this.sourcedAt = Instant.ofEpochMilli(buffer.getLong(trailer + 4 * Integer.BYTES));
+        this.changedSince = Instant.ofEpochMilli(buffer.getLong(trailer + 4 * Integer.BYTES + Long.BYTES));
+        this.debtors = (trailer - this.debtorsOffset) / Integer.BYTES;
+    }
+
+    public static MappedOwnerSnapshot open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new MappedOwnerSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map owner snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Writes owners, streamed in ascending id order, and tax rates to {@code path}. {@code sourcedAt} is when the
+     * owners were last read in full from the source, {@code changedSince} the time from which changes made to them
+     * since are not included. The file is written next to {@code path} first and moved into place, so a mapped older
+     * version stays readable.
+     */
+    public static void write(Path path, Stream<Owner> owners, List<TaxRate> taxRates, Instant sourcedAt,
+                             Instant changedSince) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                writeSections(out, owners, taxRates, sourcedAt, changedSince);
+            }
+
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write owner snapshot " + path, e);
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int countDebtors() {
+        return this.debtors;
+    }
+
+    public Instant sourcedAt() {
+        return this.sourcedAt;
+    }
+
+    public Instant changedSince() {
+        return this.changedSince;
+    }
+
+    public int id(int index) {
+        return this.buffer.getInt(this.indexOffset + index * INDEX_ENTRY_SIZE);
+    }
+
+    /**
+     * Returns the index of the owner, or {@code -(insertion point) - 1} when there is none.
+     */
+    public int indexOf(int id) {
+        int low = 0;
+        int high = this.size - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = id(middle);
+
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    public Owner owner(int index) {
+        Cursor cursor = new Cursor(this.buffer, this.buffer.getInt(this.indexOffset + index * INDEX_ENTRY_SIZE + Integer.BYTES));
+
+        int id = cursor.readInt();
+        long version = cursor.readLong();
+        String firstName = cursor.readString();
+        String lastName = cursor.readString();
+        int age = cursor.readInt();
+        byte familyStatus = cursor.readByte();
+        boolean hasChildren = cursor.readByte() != 0;
+        String email = cursor.readString();
+        String phoneNumber = cursor.readString();
+        LocalDate birthday = cursor.readDate();
+        BigDecimal taxesDebt = cursor.readDecimal();
+
+        int propertyCount = cursor.readInt();
+        List<Property> properties = propertyCount < 0 ? null : new ArrayList<>(propertyCount);
+        for (int i = 0; i < propertyCount; i++) {
+            properties.add(readProperty(cursor));
+        }
+
+        return new Owner(id, firstName, lastName, age,
+                familyStatus == NONE ? null : FAMILY_STATUSES[familyStatus],
+                hasChildren, email, phoneNumber, birthday, taxesDebt, properties, version);
+    }
+
+    public Owner debtor(int debtor) {
+        return owner(debtorIndex(debtor));
+    }
+
+    /**
+     * Returns the index of the debtor's owner. Debtors are in ascending id order.
+     */
+    public int debtorIndex(int debtor) {
+        return this.buffer.getInt(this.debtorsOffset + debtor * Integer.BYTES);
+    }
+
+    public boolean isDebtor(int index) {
+        int low = 0;
+        int high = this.debtors - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleIndex = debtorIndex(middle);
+
+            if (middleIndex < index) {
+                low = middle + 1;
+            } else if (middleIndex > index) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public List<TaxRate> taxRates() {
+        Cursor cursor = new Cursor(this.buffer, this.taxRatesOffset);
+        int count = cursor.readInt();
+        List<TaxRate> taxRates = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int id = cursor.readInt();
+            byte propertyType = cursor.readByte();
+            taxRates.add(new TaxRate(id, propertyType == NONE ? null : PROPERTY_TYPES[propertyType], cursor.readDecimal()));
+        }
+
+        return taxRates;
+    }
+
+    private static Property readProperty(Cursor cursor) {
+        int id = cursor.readInt();
+        byte propertyType = cursor.readByte();
+        String city = cursor.readString();
+        String address = cursor.readString();
+        int square = cursor.readInt();
+        int numberOfRooms = cursor.readInt();
+        BigDecimal cost = cursor.readDecimal();
+        LocalDate dateOfBecomingOwner = cursor.readDate();
+        LocalDate dateOfBuilding = cursor.readDate();
+        byte propertyCondition = cursor.readByte();
+
+        return new Property(id, propertyType == NONE ? null : PROPERTY_TYPES[propertyType], city, address,
+                square, numberOfRooms, cost, dateOfBecomingOwner, dateOfBuilding,
+                propertyCondition == NONE ? null : PROPERTY_CONDITIONS[propertyCondition]);
+    }
+
+    private static void writeSections(DataOutputStream out, Stream<Owner> owners, List<TaxRate> taxRates,
+                                      Instant sourcedAt, Instant changedSince) throws IOException {
+        int[] ids = new int[1024];
+        int[] offsets = new int[1024];
+        int[] debtorIndexes = new int[1024];
+        int size = 0;
+        int debtors = 0;
+
+        for (Iterator<Owner> iterator = owners.iterator(); iterator.hasNext(); ) {
+            Owner owner = iterator.next();
+            if (size > 0 && ids[size - 1] >= owner.getId()) {
+                throw new IllegalStateException("Owners must be written in ascending id order, got " + owner.getId() + " after " + ids[size - 1]);
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            if (Objects.nonNull(owner.getTaxesDebt()) && owner.getTaxesDebt().signum() > 0) {
+                if (debtors == debtorIndexes.length) {
+                    debtorIndexes = Arrays.copyOf(debtorIndexes, debtors * 2);
+                }
+                debtorIndexes[debtors++] = size;
+            }
+
+            ids[size] = owner.getId();
+            offsets[size++] = offset(out);
+            writeOwner(out, owner);
+        }
+
+        int taxRatesOffset = offset(out);
+        out.writeInt(taxRates.size());
+        for (TaxRate taxRate : taxRates) {
+            out.writeInt(taxRate.getId());
+            writeEnum(out, taxRate.getPropertyType());
+            writeDecimal(out, taxRate.getTax());
+        }
+
+        int indexOffset = offset(out);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(ids[i]);
+            out.writeInt(offsets[i]);
+        }
+
+        int debtorsOffset = offset(out);
+        for (int i = 0; i < debtors; i++) {
+            out.writeInt(debtorIndexes[i]);
+        }
+
+        out.writeInt(taxRatesOffset);
+        out.writeInt(indexOffset);
+        out.writeInt(debtorsOffset);
+        out.writeInt(size);
+        out.writeLong(sourcedAt.toEpochMilli());
+        out.writeLong(changedSince.toEpochMilli());
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(MAGIC);
+        offset(out);
+    }
+
+    private static void writeOwner(DataOutputStream out, Owner owner) throws IOException {
+        out.writeInt(owner.getId());
+        out.writeLong(owner.getVersion());
+        writeString(out, owner.getFirstName());
+        writeString(out, owner.getLastName());
+        out.writeInt(owner.getAge());
+        writeEnum(out, owner.getFamilyStatus());
+        out.writeByte(owner.isHasChildren() ? 1 : 0);
+        writeString(out, owner.getEmail());
+        writeString(out, owner.getPhoneNumber());
+        writeDate(out, owner.getBirthday());
+        writeDecimal(out, owner.getTaxesDebt());
+
+        List<Property> properties = owner.getProperties();
+        out.writeInt(Objects.isNull(properties) ? -1 : properties.size());
+        if (Objects.nonNull(properties)) {
+            for (Property property : properties) {
+                out.writeInt(property.getId());
+                writeEnum(out, property.getPropertyType());
+                writeString(out, property.getCity());
+                writeString(out, property.getAddress());
+                out.writeInt(property.getSquare());
+                out.writeInt(property.getNumberOfRooms());
+                writeDecimal(out, property.getCost());
+                writeDate(out, property.getDateOfBecomingOwner());
+                writeDate(out, property.getDateOfBuilding());
+                writeEnum(out, property.getPropertyCondition());
+            }
+        }
+    }
+
+    private static int offset(DataOutputStream out) {
+        // DataOutputStream.size() saturates at Integer.MAX_VALUE
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Owner snapshot exceeds 2 GB");
+        }
+
+        return out.size();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate value) throws IOException {
+        out.writeLong(Objects.isNull(value) ? NO_DATE : value.toEpochDay());
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        out.writeByte(Objects.isNull(value) ? NONE : value.ordinal());
+    }
+
+    // reads with absolute gets only, so any number of threads can decode from the shared mapping
+    private static final class Cursor {
+
+        private final ByteBuffer buffer;
+        private int position;
+
+        private Cursor(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private byte readByte() {
+            return this.buffer.get(this.position++);
+        }
+
+        private int readInt() {
+            int value = this.buffer.getInt(this.position);
+            this.position += Integer.BYTES;
+            return value;
+        }
+
+        private long readLong() {
+            long value = this.buffer.getLong(this.position);
+            this.position += Long.BYTES;
+            return value;
+        }
+
+        private byte[] readBytes(int length) {
+            byte[] bytes = new byte[length];
+            this.buffer.get(this.position, bytes);
+            this.position += length;
+            return bytes;
+        }
+
+        private String readString() {
+            int length = readInt();
+
+            return length < 0 ? null : new String(readBytes(length), StandardCharsets.UTF_8);
+        }
+
+        private BigDecimal readDecimal() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+
+            BigInteger unscaled = new BigInteger(readBytes(length));
+            return new BigDecimal(unscaled, readInt());
+        }
+
+        private LocalDate readDate() {
+            long epochDay = readLong();
+
+            return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+        }
+    }
+}
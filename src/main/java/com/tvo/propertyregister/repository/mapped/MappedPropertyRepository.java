@@ -0,0 +1,53 @@
+package com.tvo.propertyregister.repository.mapped;
+
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.repository.PropertyRepository;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Writes properties through its source repository. A write rejected because the owner changed since it was read
+ * marks the owner in the store, so the retry reads the owner from the source rather than from an outdated snapshot.
+ */
+public class MappedPropertyRepository implements PropertyRepository {
+
+    private final OwnerSnapshotStore store;
+    private final PropertyRepository source;
+
+    public MappedPropertyRepository(OwnerSnapshotStore store, PropertyRepository source) {
+        this.store = store;
+        this.source = source;
+    }
+
+    @Override
+    public List<Property> findAll(int ownerId) {
+        return this.source.findAll(ownerId);
+    }
+
+    @Override
+    public boolean save(Owner owner, Property property) {
+        return write(owner, () -> this.source.save(owner, property));
+    }
+
+    @Override
+    public boolean update(Owner owner, int propertyId, Property property) {
+        return write(owner, () -> this.source.update(owner, propertyId, property));
+    }
+
+    @Override
+    public boolean remove(Owner owner, int propertyId) {
+        return write(owner, () -> this.source.remove(owner, propertyId));
+    }
+
+    private boolean write(Owner owner, Supplier<Boolean> write) {
+        try {
+            return write.get();
+        } catch (OwnerConcurrentModificationException e) {
+            this.store.markChanged(owner.getId());
+            throw e;
+        }
+    }
+}
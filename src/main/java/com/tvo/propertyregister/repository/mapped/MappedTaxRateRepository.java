@@ -0,0 +1,35 @@
+package com.tvo.propertyregister.repository.mapped;
+
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.repository.TaxRateRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+public class MappedTaxRateRepository implements TaxRateRepository {
+
+    private final OwnerSnapshotStore store;
+
+    public MappedTaxRateRepository(OwnerSnapshotStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<TaxRate> findAll() {
+        List<TaxRate> taxRates = this.store.currentTaxRates();
+
+        return Objects.isNull(taxRates) ? this.store.taxRates().findAll() : taxRates;
+    }
+
+    @Override
+    public List<TaxRate> findLatest() {
+        return this.store.taxRates().findLatest();
+    }
+
+    @Override
+    public boolean changeTax(PropertyType propertyType, BigDecimal rate) {
+        return this.store.taxRates().changeTax(propertyType, rate);
+    }
+}
@@ -0,0 +1,309 @@
+package com.tvo.propertyregister.repository.mapped;
+
+import com.tvo.propertyregister.config.SnapshotProperties;
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.event.DebtsRecountedEvent;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.event.RemoteOwnersChangedEvent;
+import com.tvo.propertyregister.model.event.RemoteTaxRatesChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.repository.OwnerRepository;
+import com.tvo.propertyregister.repository.TaxRateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Owns the {@link MappedOwnerSnapshot} file and the {@link OwnerView} laid over it: maps the existing file at startup
+ * instead of reading every owner from the source repository, and keeps the view current on {@link #refresh()}.
+ *
+ * <p>Owner writes stamp the owner with their time. A refresh reads the owners written since the previous one, with
+ * some overlap for clock differences between instances, and lays them over the snapshot, so its cost follows the
+ * number of writes rather than the number of owners. Once the overlay grows too large the file is rewritten from the
+ * view, and once the owners were last read in full longer ago than the configured maximum age it is rewritten from
+ * the source.
+ *
+ * <p>Between refreshes, owners written by this instance or by others are marked from write events, and so are owners
+ * whose versioned write failed against the view. Reads of a marked owner go to the source. Scans first read the marked
+ * owners and lay them over the view, unless there are too many of them, as right after a debt recount, or a refresh is
+ * in progress; they then go to the source. Removals are only learned from write events, so an owner removed by a
+ * write whose event was missed stays in the view until the file is next read from the source.
+ */
+@Slf4j
+public class OwnerSnapshotStore {
+
+    // writes are stamped with the writing instance's clock, so changes are read again with this much overlap
+    private static final Duration CHANGE_OVERLAP = Duration.ofMinutes(1);
+    private static final int SCAN_CATCH_UP_LIMIT = 1000;
+    private static final int MIN_COMPACTED_OVERLAY = 1024;
+    private static final int COMPACTED_OVERLAY_FRACTION = 16;
+
+    private final SnapshotProperties properties;
+    private final OwnerRepository owners;
+    private final TaxRateRepository taxRates;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong changeSequence = new AtomicLong();
+    private final ConcurrentHashMap<Integer, Long> changedOwners = new ConcurrentHashMap<>();
+    private final AtomicLong allOwnersChange = new AtomicLong();
+    private final AtomicLong taxRatesChange = new AtomicLong();
+    private volatile OwnerView view;
+
+    public OwnerSnapshotStore(SnapshotProperties properties, OwnerRepository owners, TaxRateRepository taxRates) {
+        this.properties = properties;
+        this.owners = owners;
+        this.taxRates = taxRates;
+    }
+
+    public boolean isEnabled() {
+        return this.properties.enabled();
+    }
+
+    public OwnerRepository owners() {
+        return this.owners;
+    }
+
+    public TaxRateRepository taxRates() {
+        return this.taxRates;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void load() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            MappedOwnerSnapshot existing = openExisting(this.properties.path());
+
+            if (Objects.nonNull(existing) && !isExpired(existing)) {
+                this.view = OwnerView.of(existing);
+                log.info("Mapped owner snapshot of {} owners read from the source at {}", existing.size(), existing.sourcedAt());
+            }
+
+            refresh();
+        } catch (RuntimeException e) {
+            log.error("Could not load the owner snapshot, reading from the source until the next refresh", e);
+        }
+    }
+
+    /**
+     * Catches the view up with the owners written since the previous refresh and with the marked ones, and rewrites
+     * the file when the overlay has grown too large or the snapshot is too old.
+     */
+    public void refresh() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        this.refreshLock.lock();
+        try {
+            OwnerView current = this.view;
+            if (Objects.isNull(current) || isExpired(current.snapshot())) {
+                rewriteFromSource();
+                return;
+            }
+
+            long start = this.changeSequence.get();
+            Instant changedSince = Instant.now();
+            Map<Integer, Owner> changes = new HashMap<>();
+            try (Stream<Owner> changed = this.owners.streamChangedSince(current.changedSince().minus(CHANGE_OVERLAP))) {
+                changed.forEach(owner -> changes.put(owner.getId(), owner));
+            }
+            readMarked(this.changedOwners.keySet(), changes);
+
+            OwnerView next = current.with(changes, this.taxRates.findLatest(), changedSince);
+            if (next.overlaySize() > Math.max(MIN_COMPACTED_OVERLAY, next.snapshot().size() / COMPACTED_OVERLAY_FRACTION)) {
+                next = rewrite(next.range(Integer.MIN_VALUE, Integer.MAX_VALUE), next.taxRates(),
+                        next.snapshot().sourcedAt(), changedSince);
+                log.info("Compacted owner snapshot of {} owners", next.size());
+            }
+
+            this.view = next;
+            clearChanges(start);
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the view if it is current for the owner, otherwise {@code null}.
+     */
+    public OwnerView viewFor(int ownerId) {
+        return this.allOwnersChange.get() != 0 || this.changedOwners.containsKey(ownerId) ? null : this.view;
+    }
+
+    /**
+     * Returns the view with the marked owners laid over it, or {@code null} if it cannot be made current for every
+     * owner right now.
+     */
+    public OwnerView viewForScans() {
+        OwnerView current = this.view;
+        if (Objects.isNull(current) || this.allOwnersChange.get() != 0) {
+            return null;
+        }
+
+        return this.changedOwners.isEmpty() ? current : catchUp();
+    }
+
+    /**
+     * Returns the tax rates if they are current, otherwise {@code null}.
+     */
+    public List<TaxRate> currentTaxRates() {
+        OwnerView current = this.view;
+
+        return Objects.isNull(current) || this.taxRatesChange.get() != 0 ? null : current.taxRates();
+    }
+
+    /**
+     * Sends reads of the owner to the source until the view has caught up with it.
+     */
+    public void markChanged(int ownerId) {
+        if (isEnabled()) {
+            this.changedOwners.put(ownerId, this.changeSequence.incrementAndGet());
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        markChanged(event.ownerId());
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDebtsRecounted(DebtsRecountedEvent event) {
+        if (isEnabled()) {
+            long sequence = this.changeSequence.incrementAndGet();
+            event.ownerIds().forEach(id -> this.changedOwners.put(id, sequence));
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onTaxRateChanged(TaxRateChangedEvent event) {
+        if (isEnabled()) {
+            this.taxRatesChange.set(this.changeSequence.incrementAndGet());
+        }
+    }
+
+    @EventListener
+    public void onRemoteOwnersChanged(RemoteOwnersChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (Objects.isNull(event.ownerIds())) {
+            this.allOwnersChange.set(this.changeSequence.incrementAndGet());
+        } else {
+            long sequence = this.changeSequence.incrementAndGet();
+            event.ownerIds().forEach(id -> this.changedOwners.put(id, sequence));
+        }
+    }
+
+    @EventListener
+    public void onRemoteTaxRatesChanged(RemoteTaxRatesChangedEvent event) {
+        if (isEnabled()) {
+            this.taxRatesChange.set(this.changeSequence.incrementAndGet());
+        }
+    }
+
+    private OwnerView catchUp() {
+        if (this.changedOwners.size() > SCAN_CATCH_UP_LIMIT || !this.refreshLock.tryLock()) {
+            return null;
+        }
+
+        try {
+            long start = this.changeSequence.get();
+            OwnerView current = this.view;
+            Map<Integer, Owner> changes = new HashMap<>();
+            readMarked(this.changedOwners.keySet(), changes);
+
+            OwnerView next = current.with(changes, current.taxRates(), current.changedSince());
+            this.view = next;
+            this.changedOwners.values().removeIf(sequence -> sequence <= start);
+
+            return next;
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    // reads the marked owners not read yet; those the source no longer has were removed
+    private void readMarked(Collection<Integer> marked, Map<Integer, Owner> changes) {
+        Set<Integer> unread = new HashSet<>(marked);
+        unread.removeAll(changes.keySet());
+        if (unread.isEmpty()) {
+            return;
+        }
+
+        try (Stream<Owner> found = this.owners.streamByIds(Set.copyOf(unread), Set.of())) {
+            found.forEach(owner -> {
+                changes.put(owner.getId(), owner);
+                unread.remove(owner.getId());
+            });
+        }
+        unread.forEach(id -> changes.put(id, null));
+    }
+
+    private void rewriteFromSource() {
+        long start = this.changeSequence.get();
+        Instant sourcedAt = Instant.now();
+
+        try (Stream<Owner> all = this.owners.streamAll(Set.of())) {
+            this.view = rewrite(all, this.taxRates.findLatest(), sourcedAt, sourcedAt);
+        }
+        clearChanges(start);
+
+        log.info("Wrote owner snapshot of {} owners to {}", this.view.size(), this.properties.path());
+    }
+
+    private OwnerView rewrite(Stream<Owner> owners, List<TaxRate> taxRates, Instant sourcedAt, Instant changedSince) {
+        Path path = this.properties.path();
+        MappedOwnerSnapshot.write(path, owners, taxRates, sourcedAt, changedSince);
+
+        return OwnerView.of(MappedOwnerSnapshot.open(path));
+    }
+
+    // changes marked while the view was caught up may or may not be in it, so those stay marked
+    private void clearChanges(long start) {
+        this.changedOwners.values().removeIf(sequence -> sequence <= start);
+        this.allOwnersChange.accumulateAndGet(start, (current, read) -> current <= read ? 0 : current);
+        this.taxRatesChange.accumulateAndGet(start, (current, read) -> current <= read ? 0 : current);
+    }
+
+    private boolean isExpired(MappedOwnerSnapshot snapshot) {
+        return Duration.between(snapshot.sourcedAt(), Instant.now()).compareTo(this.properties.maxAge()) > 0;
+    }
+
+    private static MappedOwnerSnapshot openExisting(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            return MappedOwnerSnapshot.open(path);
+        } catch (IllegalStateException e) {
+            log.info("Discarding unreadable owner snapshot {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.tvo.propertyregister.repository.mapped;
+
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.owner.Owner;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link MappedOwnerSnapshot} with the owners changed since it was written laid over it. The overlay maps owner ids
+ * to their current state, {@code null} for owners that were removed, and takes precedence over the snapshot. Views
+ * are immutable: folding in more changes creates a new one that shares the snapshot.
+ */
+public final class OwnerView {
+
+    private final MappedOwnerSnapshot snapshot;
+    private final NavigableMap<Integer, Owner> overlay;
+    private final List<TaxRate> taxRates;
+    private final Instant changedSince;
+    private final int size;
+    private final int debtors;
+
+    OwnerView(MappedOwnerSnapshot snapshot, NavigableMap<Integer, Owner> overlay, List<TaxRate> taxRates,
+              Instant changedSince) {
+        this.snapshot = snapshot;
+        this.overlay = Collections.unmodifiableNavigableMap(overlay);
+        this.taxRates = List.copyOf(taxRates);
+        this.changedSince = changedSince;
+
+        int size = snapshot.size();
+        int debtors = snapshot.countDebtors();
+        for (Map.Entry<Integer, Owner> change : overlay.entrySet()) {
+            int index = snapshot.indexOf(change.getKey());
+            if (index >= 0) {
+                size--;
+                debtors -= snapshot.isDebtor(index) ? 1 : 0;
+            }
+            if (Objects.nonNull(change.getValue())) {
+                size++;
+                debtors += isDebtor(change.getValue()) ? 1 : 0;
+            }
+        }
+
+        this.size = size;
+        this.debtors = debtors;
+    }
+
+    static OwnerView of(MappedOwnerSnapshot snapshot) {
+        return new OwnerView(snapshot, new TreeMap<>(), snapshot.taxRates(), snapshot.changedSince());
+    }
+
+    /**
+     * Returns a view with {@code changes} laid over this one's overlay, including changes up to {@code changedSince}.
+     */
+    OwnerView with(Map<Integer, Owner> changes, List<TaxRate> taxRates, Instant changedSince) {
+        NavigableMap<Integer, Owner> overlay = new TreeMap<>(this.overlay);
+        overlay.putAll(changes);
+
+        return new OwnerView(this.snapshot, overlay, taxRates, changedSince);
+    }
+
+    MappedOwnerSnapshot snapshot() {
+        return this.snapshot;
+    }
+
+    int overlaySize() {
+        return this.overlay.size();
+    }
+
+    public Instant changedSince() {
+        return this.changedSince;
+    }
+
+    public List<TaxRate> taxRates() {
+        return this.taxRates;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int countDebtors() {
+        return this.debtors;
+    }
+
+    /**
+     * Returns the owner, or {@code null} if there is none.
+     */
+    public Owner owner(int id) {
+        if (this.overlay.containsKey(id)) {
+            return this.overlay.get(id);
+        }
+
+        int index = this.snapshot.indexOf(id);
+        return index < 0 ? null : this.snapshot.owner(index);
+    }
+
+    /**
+     * Streams the owners with ids from {@code fromId} to {@code toId}, both inclusive, in ascending id order.
+     */
+    public Stream<Owner> range(int fromId, int toId) {
+        if (fromId > toId) {
+            return Stream.empty();
+        }
+
+        IntStream indexes = IntStream.range(insertionIndex(fromId), toId == Integer.MAX_VALUE ? this.snapshot.size() : insertionIndex(toId + 1));
+        return merge(indexes, this.overlay.subMap(fromId, true, toId, true), owner -> true);
+    }
+
+    /**
+     * Streams the debtors in ascending id order.
+     */
+    public Stream<Owner> debtors() {
+        IntStream indexes = IntStream.range(0, this.snapshot.countDebtors()).map(this.snapshot::debtorIndex);
+
+        return merge(indexes, this.overlay, OwnerView::isDebtor);
+    }
+
+    // both sides are in ascending id order and the snapshot side skips ids the overlay has, so they never collide
+    private Stream<Owner> merge(IntStream snapshotIndexes, NavigableMap<Integer, Owner> changes, Predicate<Owner> filter) {
+        PrimitiveIterator.OfInt indexes = snapshotIndexes
+                .filter(index -> !this.overlay.containsKey(this.snapshot.id(index)))
+                .iterator();
+        Iterator<Owner> changed = changes.values().stream()
+                .filter(owner -> Objects.nonNull(owner) && filter.test(owner))
+                .iterator();
+
+        Iterator<Owner> merged = new Iterator<>() {
+            private int nextIndex = indexes.hasNext() ? indexes.nextInt() : -1;
+            private Owner nextChanged = changed.hasNext() ? changed.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return this.nextIndex >= 0 || Objects.nonNull(this.nextChanged);
+            }
+
+            @Override
+            public Owner next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                if (Objects.isNull(this.nextChanged)
+                        || this.nextIndex >= 0 && snapshot.id(this.nextIndex) < this.nextChanged.getId()) {
+                    Owner owner = snapshot.owner(this.nextIndex);
+                    this.nextIndex = indexes.hasNext() ? indexes.nextInt() : -1;
+                    return owner;
+                }
+
+                Owner owner = this.nextChanged;
+                this.nextChanged = changed.hasNext() ? changed.next() : null;
+                return owner;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    private int insertionIndex(int id) {
+        int index = this.snapshot.indexOf(id);
+
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static boolean isDebtor(Owner owner) {
+        BigDecimal taxesDebt = owner.getTaxesDebt();
+
+        return Objects.nonNull(taxesDebt) && taxesDebt.signum() > 0;
+    }
+}
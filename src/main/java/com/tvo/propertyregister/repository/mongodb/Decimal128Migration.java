@@ -0,0 +1,61 @@
+package com.tvo.propertyregister.repository.mongodb;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Converts money amounts stored as strings to Decimal128. Each conversion is a single server-side update that
+ * rewrites a document from its own current values, so it is safe to run while owners and their properties are being
+ * written. Once it has completed it is recorded and later startups skip it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class Decimal128Migration implements ApplicationRunner {
+
+    private static final String MIGRATIONS_COLLECTION = "migrations";
+    private static final String MIGRATION_ID = "decimal128";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query record = new Query(Criteria.where("_id").is(MIGRATION_ID));
+        if (mongoTemplate.exists(record, MIGRATIONS_COLLECTION)) {
+            return;
+        }
+
+        migrate("owners", "taxesDebt", new Document("taxesDebt", toDecimal("$taxesDebt")));
+        migrate("owners", "properties.cost", new Document("properties", new Document("$map", new Document()
+                .append("input", "$properties")
+                .append("as", "property")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of(new Document("$type", "$$property.cost"), "string")),
+                        new Document("$mergeObjects", List.of("$$property", new Document("cost", toDecimal("$$property.cost")))),
+                        "$$property"))))));
+        migrate("taxRates", "tax", new Document("tax", toDecimal("$tax")));
+
+        mongoTemplate.upsert(record, new Update().set("completedAt", new Date()), MIGRATIONS_COLLECTION);
+    }
+
+    private void migrate(String collection, String field, Document conversion) {
+        long migrated = mongoTemplate.getCollection(collection)
+                .updateMany(new Document(field, new Document("$type", "string")), List.of(new Document("$set", conversion)))
+                .getModifiedCount();
+
+        log.info("Migrated {} documents of {}.{} to Decimal128", migrated, collection, field);
+    }
+
+    private static Document toDecimal(String expression) {
+        return new Document("$toDecimal", expression);
+    }
+}
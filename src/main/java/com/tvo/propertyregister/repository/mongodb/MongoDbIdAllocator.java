@@ -0,0 +1,79 @@
+package com.tvo.propertyregister.repository.mongodb;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+public class MongoDbIdAllocator {
+
+    private static final String COUNTERS_COLLECTION = "counters";
+
+    private final MongoTemplate mongoTemplate;
+    private final int blockSize;
+    private final Map<String, IdBlock> blocks = new ConcurrentHashMap<>();
+
+    public MongoDbIdAllocator(MongoTemplate mongoTemplate, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Id block size must be positive");
+        }
+
+        this.mongoTemplate = mongoTemplate;
+        this.blockSize = blockSize;
+    }
+
+    public int nextId(String sequence) {
+        return blocks.computeIfAbsent(sequence, IdBlock::new).next();
+    }
+
+    private IdRange reserve(String sequence) {
+        Query query = new Query(Criteria.where("_id").is(sequence));
+        Update update = new Update().inc("sequence_value", blockSize);
+
+        FindAndModifyOptions options = new FindAndModifyOptions();
+        options.returnNew(true).upsert(true);
+
+        Document counter = mongoTemplate.findAndModify(query, update, options, Document.class, COUNTERS_COLLECTION);
+        int last = requireNonNull(counter).getInteger("sequence_value");
+
+        return new IdRange(new AtomicInteger(last - blockSize + 1), last);
+    }
+
+    private record IdRange(AtomicInteger next, int last) {
+        private static final IdRange EXHAUSTED = new IdRange(new AtomicInteger(1), 0);
+    }
+
+    private final class IdBlock {
+        private final String sequence;
+        private volatile IdRange range = IdRange.EXHAUSTED;
+
+        private IdBlock(String sequence) {
+            this.sequence = sequence;
+        }
+
+        private int next() {
+            while (true) {
+                IdRange current = range;
+                int id = current.next().getAndIncrement();
+
+                if (id <= current.last()) {
+                    return id;
+                }
+
+                synchronized (this) {
+                    if (range == current) {
+                        range = reserve(sequence);
+                    }
+                }
+            }
+        }
+    }
+}
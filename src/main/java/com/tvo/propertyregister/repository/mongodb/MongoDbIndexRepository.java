@@ -0,0 +1,78 @@
+package com.tvo.propertyregister.repository.mongodb;
+
+import com.tvo.propertyregister.model.dto.IndexStatsDto;
+import com.tvo.propertyregister.repository.IndexRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class MongoDbIndexRepository implements IndexRepository {
+
+    private static final List<String> COLLECTIONS = List.of("owners", "taxRates", "counters", "outbox");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void ensureIndexes() {
+        Index debtorsIndex = new Index()
+                .on("taxesDebt", Sort.Direction.ASC)
+                .named("taxesDebt_debtors")
+                .partial(PartialIndexFilter.of(Criteria.where("taxesDebt").gt(new Decimal128(BigDecimal.ZERO))));
+
+        mongoTemplate.indexOps("owners").ensureIndex(debtorsIndex);
+
+        // recount tags only live for the duration of a recount, so this index stays small
+        Index debtRecountIndex = new Index()
+                .on("debtRecount.run", Sort.Direction.ASC)
+                .named("debtRecount_run")
+                .sparse();
+
+        mongoTemplate.indexOps("owners").ensureIndex(debtRecountIndex);
+
+        Index updatedAtIndex = new Index()
+                .on("updatedAt", Sort.Direction.ASC)
+                .named("updatedAt");
+
+        mongoTemplate.indexOps("owners").ensureIndex(updatedAtIndex);
+
+        Index outboxIndex = new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("nextAttemptAt", Sort.Direction.ASC)
+                .named("status_nextAttemptAt");
+
+        mongoTemplate.indexOps("outbox").ensureIndex(outboxIndex);
+    }
+
+    @Override
+    public List<IndexStatsDto> findIndexStats() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.stage(new Document("$indexStats", new Document()))
+        );
+
+        return COLLECTIONS.stream()
+                .flatMap(collection -> mongoTemplate.aggregate(aggregation, collection, Document.class).getMappedResults().stream()
+                        .map(stats -> toIndexStats(collection, stats)))
+                .toList();
+    }
+
+    private static IndexStatsDto toIndexStats(String collection, Document stats) {
+        Document accesses = stats.get("accesses", Document.class);
+
+        return new IndexStatsDto(
+                collection,
+                stats.getString("name"),
+                stats.get("key", Document.class),
+                ((Number) accesses.get("ops")).longValue(),
+                accesses.getDate("since").toInstant());
+    }
+}
@@ -0,0 +1,97 @@
+package com.tvo.propertyregister.repository.mongodb;
+
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.model.outbox.OutboxMessage;
+import com.tvo.propertyregister.model.outbox.OutboxStatus;
+import com.tvo.propertyregister.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class MongoDbOutboxRepository implements OutboxRepository {
+
+    private static final String OUTBOX_COLLECTION = "outbox";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void add(EmailEventDto event) {
+        Instant now = Instant.now();
+
+        mongoTemplate.insert(new OutboxMessage(null, event, OutboxStatus.PENDING, 0, now, null, null, null, now), OUTBOX_COLLECTION);
+    }
+
+    @Override
+    public List<OutboxMessage> claim(int limit, Duration lease) {
+        Instant now = Instant.now();
+        Criteria claimable = new Criteria().orOperator(
+                Criteria.where("status").is(OutboxStatus.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(OutboxStatus.IN_FLIGHT).and("claimedUntil").lte(now));
+
+        Query candidates = new Query(claimable).with(Sort.by("nextAttemptAt")).limit(limit);
+        candidates.fields().include("_id");
+
+        List<Object> ids = mongoTemplate.find(candidates, Document.class, OUTBOX_COLLECTION).stream()
+                .map(candidate -> candidate.get("_id"))
+                .toList();
+
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Another relay may have claimed some candidates in the meantime, so the claim re-checks the criteria
+        // and only the documents stamped with this token are returned.
+        String token = UUID.randomUUID().toString();
+        Update update = new Update()
+                .set("status", OutboxStatus.IN_FLIGHT)
+                .set("claimedBy", token)
+                .set("claimedUntil", now.plus(lease))
+                .inc("attempts", 1);
+
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids).andOperator(claimable)), update, OUTBOX_COLLECTION);
+
+        return mongoTemplate.find(new Query(Criteria.where("claimedBy").is(token)), OutboxMessage.class, OUTBOX_COLLECTION);
+    }
+
+    @Override
+    public void remove(List<String> ids) {
+        mongoTemplate.remove(new Query(Criteria.where("id").in(ids)), OutboxMessage.class, OUTBOX_COLLECTION);
+    }
+
+    @Override
+    public void reschedule(OutboxMessage message, Instant nextAttemptAt, String error) {
+        Update update = new Update()
+                .set("status", OutboxStatus.PENDING)
+                .set("nextAttemptAt", nextAttemptAt)
+                .set("lastError", error)
+                .unset("claimedBy")
+                .unset("claimedUntil");
+
+        mongoTemplate.updateFirst(claimedBySameRelay(message), update, OutboxMessage.class, OUTBOX_COLLECTION);
+    }
+
+    @Override
+    public void markFailed(OutboxMessage message, String error) {
+        Update update = new Update()
+                .set("status", OutboxStatus.FAILED)
+                .set("lastError", error)
+                .unset("claimedBy")
+                .unset("claimedUntil");
+
+        mongoTemplate.updateFirst(claimedBySameRelay(message), update, OutboxMessage.class, OUTBOX_COLLECTION);
+    }
+
+    private static Query claimedBySameRelay(OutboxMessage message) {
+        return new Query(Criteria.where("id").is(message.getId()).and("claimedBy").is(message.getClaimedBy()));
+    }
+}
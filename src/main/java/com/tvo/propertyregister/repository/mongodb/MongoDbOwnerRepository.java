@@ -1,38 +1,99 @@
 package com.tvo.propertyregister.repository.mongodb;
 
-import com.mongodb.client.result.DeleteResult;
-import com.mongodb.client.result.UpdateResult;
+import com.tvo.propertyregister.model.event.DebtsRecountedEvent;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.owner.DebtRecount;
 import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.owner.TaxObligation;
 import com.tvo.propertyregister.repository.OwnerRepository;
 import lombok.RequiredArgsConstructor;
 import org.bson.Document;
-import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
-import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.TAX_OBLIGATION;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.TAX_RATES_VERSION;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.UPDATED_AT;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.VERSION;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.atVersion;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.conflict;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.nextTaxInputsVersion;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.nextVersion;
 
 @RequiredArgsConstructor
 public class MongoDbOwnerRepository implements OwnerRepository {
 
     private static final String OWNERS_COLLECTION = "owners";
+    private static final String COUNTERS_COLLECTION = "counters";
+    private static final String TOTAL_DEBT_COUNTER = "totalDebt";
+    private static final String RECOUNT_UNTIL = "recountUntil";
+    private static final Duration RECOUNT_LEASE = Duration.ofMinutes(5);
+    private static final int RECONCILE_ATTEMPTS = 3;
+    private static final int RECOUNT_BATCH_SIZE = 1000;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final String DEBT_RECOUNT = "debtRecount";
+    private static final int RECOUNT_EVENT_ID_RANGE = 100_000;
+    private static final String[] TAX_OBLIGATION_INPUTS = {
+            "familyStatus", "hasChildren", "properties.propertyType", "properties.square", VERSION};
 
     private final MongoTemplate mongoTemplate;
+    private final MongoDbIdAllocator idAllocator;
+    private final ApplicationEventPublisher events;
 
     @Override
-    public List<Owner> findAll() {
-        Query criteria = new Query();
+    public List<Owner> findPage(int afterId, int limit, Set<String> fields) {
+        Query criteria = new Query(Criteria.where("id").gt(afterId))
+                .with(Sort.by("id"))
+                .limit(limit);
+        includeOnly(criteria, fields);
 
         return mongoTemplate.find(criteria, Owner.class, OWNERS_COLLECTION);
     }
 
+    @Override
+    public long countDebtors() {
+        return mongoTemplate.count(new Query(Criteria.where("taxesDebt").gt(BigDecimal.ZERO)), OWNERS_COLLECTION);
+    }
+
+    @Override
+    public Stream<Owner> streamDebtors(Set<String> fields) {
+        Query criteria = new Query(Criteria.where("taxesDebt").gt(BigDecimal.ZERO));
+        criteria.cursorBatchSize(STREAM_BATCH_SIZE);
+        includeOnly(criteria, fields);
+
+        return mongoTemplate.stream(criteria, Owner.class, OWNERS_COLLECTION);
+    }
+
+    @Override
+    public Stream<Owner> streamAll(Set<String> fields) {
+        Query criteria = new Query().with(Sort.by("id"));
+        criteria.cursorBatchSize(STREAM_BATCH_SIZE);
+        includeOnly(criteria, fields);
+
+        return mongoTemplate.stream(criteria, Owner.class, OWNERS_COLLECTION);
+    }
+
     @Override
     public Owner findById(int id) {
         Query criteria = new Query(Criteria.where("id").is(id));
@@ -40,23 +101,96 @@ public class MongoDbOwnerRepository implements OwnerRepository {
         return mongoTemplate.findOne(criteria, Owner.class, OWNERS_COLLECTION);
     }
 
+    @Override
+    public Stream<Owner> streamByIds(Collection<Integer> ids, Set<String> fields) {
+        Query criteria = new Query(Criteria.where("id").in(ids));
+        criteria.cursorBatchSize(STREAM_BATCH_SIZE);
+        includeOnly(criteria, fields);
+
+        return mongoTemplate.stream(criteria, Owner.class, OWNERS_COLLECTION);
+    }
+
+    @Override
+    public Stream<Owner> streamByIdRange(int fromId, int toId, Set<String> fields) {
+        Query criteria = new Query(Criteria.where("id").gte(fromId).lte(toId)).with(Sort.by("id"));
+        criteria.cursorBatchSize(STREAM_BATCH_SIZE);
+        includeOnly(criteria, fields);
+
+        return mongoTemplate.stream(criteria, Owner.class, OWNERS_COLLECTION);
+    }
+
+    @Override
+    public Stream<Owner> streamChangedSince(Instant since) {
+        Query criteria = new Query(Criteria.where(UPDATED_AT).gte(Date.from(since)));
+        criteria.cursorBatchSize(STREAM_BATCH_SIZE);
+
+        return mongoTemplate.stream(criteria, Owner.class, OWNERS_COLLECTION);
+    }
+
     @Override
     public List<Owner> findDebtors() {
-        return findAllDebtors();
+        return findDebtors(Set.of());
     }
 
+    @Override
+    public List<Owner> findDebtors(Set<String> fields) {
+        Query criteria = new Query(Criteria.where("taxesDebt").gt(BigDecimal.ZERO));
+        includeOnly(criteria, fields);
+
+        return mongoTemplate.find(criteria, Owner.class, OWNERS_COLLECTION);
+    }
 
     @Override
     public boolean save(Owner owner) {
-        owner.setId(getNextOwnerId());
-        mongoTemplate.save(owner, OWNERS_COLLECTION);
+        owner.setId(idAllocator.nextId("ownerId"));
+        Document document = new Document();
+        mongoTemplate.getConverter().write(owner, document);
+        mongoTemplate.save(document.append(UPDATED_AT, new Date()), OWNERS_COLLECTION);
+        adjustTotalDebt(debtContribution(owner.getTaxesDebt()));
+        events.publishEvent(new OwnerChangedEvent(owner.getId(), isDebtor(owner.getTaxesDebt()), true));
         return true;
     }
 
+    /**
+     * Most edits leave the family status and children alone, so the first attempt only matches an owner where they
+     * are unchanged and keeps its tax obligation. Only when that misses is the owner written with the obligation
+     * cleared, which costs a second round trip for the edits that need a recompute anyway.
+     */
     @Override
     public boolean update(int id, Owner owner) {
-        Query criteria = new Query(Criteria.where("id").is(id));
-        Update update = new Update()
+        Criteria sameTaxInputs = Criteria.where("id").is(id)
+                .and("familyStatus").is(owner.getFamilyStatus())
+                .and("hasChildren").is(owner.isHasChildren());
+
+        Owner previous = updateOwner(sameTaxInputs, owner, nextVersion(ownerUpdate(owner)));
+        boolean taxInputsChanged = Objects.isNull(previous);
+        if (taxInputsChanged) {
+            previous = updateOwner(Criteria.where("id").is(id), owner, nextTaxInputsVersion(ownerUpdate(owner)));
+        }
+
+        if (Objects.isNull(previous)) {
+            if (mongoTemplate.exists(new Query(Criteria.where("id").is(id)), OWNERS_COLLECTION)) {
+                throw conflict(id);
+            }
+
+            return false;
+        }
+
+        adjustTotalDebt(debtContribution(owner.getTaxesDebt()).subtract(debtContribution(previous.getTaxesDebt())));
+        events.publishEvent(new OwnerChangedEvent(id, isDebtor(owner.getTaxesDebt()) || isDebtor(previous.getTaxesDebt()),
+                taxInputsChanged));
+        return true;
+    }
+
+    private Owner updateOwner(Criteria target, Owner owner, Update update) {
+        Query criteria = new Query(atVersion(target, owner.getVersion()));
+        criteria.fields().include("taxesDebt");
+
+        return mongoTemplate.findAndModify(criteria, update, Owner.class, OWNERS_COLLECTION);
+    }
+
+    private static Update ownerUpdate(Owner owner) {
+        return new Update()
                 .set("firstName", owner.getFirstName())
                 .set("lastName", owner.getLastName())
                 .set("age", owner.getAge())
@@ -66,55 +200,249 @@ public class MongoDbOwnerRepository implements OwnerRepository {
                 .set("phoneNumber", owner.getPhoneNumber())
                 .set("birthday", owner.getBirthday())
                 .set("taxesDebt", owner.getTaxesDebt());
-        UpdateResult result = mongoTemplate.updateFirst(criteria, update, Owner.class, OWNERS_COLLECTION);
-
-        return result.getModifiedCount() > 0;
     }
 
     @Override
     public boolean remove(int id) {
         Query criteria = new Query(Criteria.where("id").is(id));
-        DeleteResult result = mongoTemplate.remove(criteria, Owner.class, OWNERS_COLLECTION);
+        criteria.fields().include("taxesDebt");
 
-        return result.getDeletedCount() > 0;
+        Owner removed = mongoTemplate.findAndRemove(criteria, Owner.class, OWNERS_COLLECTION);
+        if (Objects.isNull(removed)) {
+            return false;
+        }
+
+        adjustTotalDebt(debtContribution(removed.getTaxesDebt()).negate());
+        events.publishEvent(new OwnerChangedEvent(id, isDebtor(removed.getTaxesDebt()), false));
+        return true;
+    }
+
+    @Override
+    public int recountDebts(DebtRecount recount) {
+        String run = new ObjectId().toHexString();
+        beginRecount();
+
+        // the whole recount is one server-side update; each debtor is tagged with this run and the change to its debt,
+        // taken from the same write, so later writes to the owner cannot skew the ledger delta read back from the tags
+        Document recountedDebt = recountedDebt(recount);
+        List<Document> pipeline = List.of(new Document("$set", new Document()
+                .append("taxesDebt", recountedDebt)
+                .append(DEBT_RECOUNT, new Document("run", run)
+                        .append("delta", new Document("$subtract", List.of(recountedDebt, "$taxesDebt"))))
+                .append(VERSION, new Document("$add", List.of(new Document("$ifNull", List.of("$" + VERSION, 0L)), 1L)))
+                .append(UPDATED_AT, new Date())));
+
+        long recounted = mongoTemplate.getCollection(OWNERS_COLLECTION)
+                .updateMany(new Document("taxesDebt", new Document("$gt", new Decimal128(BigDecimal.ZERO))), pipeline)
+                .getModifiedCount();
+
+        endRecount(recounted > 0 ? publishRecounted(run) : BigDecimal.ZERO);
+        if (recounted > 0) {
+            mongoTemplate.updateMulti(new Query(Criteria.where(DEBT_RECOUNT + ".run").is(run)),
+                    new Update().unset(DEBT_RECOUNT), OWNERS_COLLECTION);
+        }
+
+        return Math.toIntExact(recounted);
+    }
+
+    @Override
+    public TaxObligation findTaxObligation(int id) {
+        Query criteria = new Query(Criteria.where("id").is(id));
+        criteria.fields().include(TAX_OBLIGATION, TAX_RATES_VERSION);
+
+        Document owner = mongoTemplate.findOne(criteria, Document.class, OWNERS_COLLECTION);
+        if (Objects.isNull(owner)) {
+            return null;
+        }
+
+        Decimal128 amount = owner.get(TAX_OBLIGATION, Decimal128.class);
+        return new TaxObligation(Objects.isNull(amount) ? null : amount.bigDecimalValue(), owner.getString(TAX_RATES_VERSION));
+    }
+
+    @Override
+    public boolean updateTaxObligation(int id, long version, TaxObligation taxObligation) {
+        Query criteria = new Query(atVersion(Criteria.where("id").is(id), version));
+
+        return mongoTemplate.updateFirst(criteria, taxObligationUpdate(taxObligation), OWNERS_COLLECTION).getMatchedCount() > 0;
+    }
+
+    @Override
+    public int recomputeTaxObligations(Function<Owner, BigDecimal> taxObligation, String taxRatesVersion) {
+        Query query = new Query().with(Sort.by("id"));
+        query.fields().include(TAX_OBLIGATION_INPUTS);
+        query.cursorBatchSize(RECOUNT_BATCH_SIZE);
+
+        int recomputed = 0;
+        int pending = 0;
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OWNERS_COLLECTION);
+
+        try (Stream<Owner> owners = mongoTemplate.stream(query, Owner.class, OWNERS_COLLECTION)) {
+            Iterator<Owner> iterator = owners.iterator();
+
+            while (iterator.hasNext()) {
+                Owner owner = iterator.next();
+                BigDecimal amount = taxObligation.apply(owner);
+
+                if (Objects.isNull(amount)) {
+                    continue;
+                }
+
+                // an owner written since it was read gets its obligation from that write instead
+                operations.updateOne(new Query(atVersion(Criteria.where("id").is(owner.getId()), owner.getVersion())),
+                        taxObligationUpdate(new TaxObligation(amount, taxRatesVersion)));
+
+                if (++pending == RECOUNT_BATCH_SIZE) {
+                    recomputed += operations.execute().getMatchedCount();
+                    operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OWNERS_COLLECTION);
+                    pending = 0;
+                }
+            }
+        }
+
+        if (pending > 0) {
+            recomputed += operations.execute().getMatchedCount();
+        }
+
+        return recomputed;
     }
 
     @Override
     public BigDecimal countAllDebts() {
-        var allDebtors = findAllDebtors();
-        try {
-            // emulating high load operation
-            Thread.sleep(Duration.ofSeconds(1));
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        Document counter = mongoTemplate.findById(TOTAL_DEBT_COUNTER, Document.class, COUNTERS_COLLECTION);
+        if (Objects.isNull(counter)) {
+            return BigDecimal.ZERO;
+        }
+
+        return counter.get("value", Decimal128.class).bigDecimalValue();
+    }
+
+    /**
+     * Corrects the ledger to the sum of debts, but only if no ledger write landed while the debts were summed: the
+     * correction is conditional on the ledger version read before the sum and retried when it moved. Nothing is
+     * corrected while a recount holds the ledger, since its owners may already be recounted but not yet counted.
+     */
+    @Override
+    public BigDecimal reconcileTotalDebt() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            Document ledger = mongoTemplate.findById(TOTAL_DEBT_COUNTER, Document.class, COUNTERS_COLLECTION);
+            if (Objects.isNull(ledger)) {
+                BigDecimal drift = aggregateAllDebts();
+                adjustTotalDebt(drift);
+                return drift;
+            }
+
+            Date recountUntil = ledger.getDate(RECOUNT_UNTIL);
+            if (Objects.nonNull(recountUntil) && recountUntil.toInstant().isAfter(Instant.now())) {
+                return BigDecimal.ZERO;
+            }
+
+            Number version = ledger.get(VERSION, Number.class);
+            BigDecimal drift = aggregateAllDebts().subtract(ledger.get("value", Decimal128.class).bigDecimalValue());
+            if (drift.signum() == 0) {
+                return drift;
+            }
+
+            Query unchanged = new Query(atVersion(Criteria.where("_id").is(TOTAL_DEBT_COUNTER),
+                    Objects.isNull(version) ? 0 : version.longValue()));
+            Update correction = new Update().inc("value", new Decimal128(drift)).inc(VERSION, 1L);
+
+            if (mongoTemplate.updateFirst(unchanged, correction, COUNTERS_COLLECTION).getMatchedCount() > 0) {
+                return drift;
+            }
         }
 
-        return allDebtors.stream()
-                .map(Owner::getTaxesDebt)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return BigDecimal.ZERO;
     }
 
-    private List<Owner> findAllDebtors() {
-        Aggregation aggregation = Aggregation.newAggregation(
-                Aggregation.match(Criteria.where("taxesDebt").gt("0")),
-                Aggregation.project("id", "firstName", "lastName", "age", "familyStatus", "hasChildren", "email", "phoneNumber", "birthday", "properties")
-                        .andExpression("toDouble(taxesDebt)").as("taxesDebt")
+    public BigDecimal aggregateAllDebts() {
+        TypedAggregation<Owner> aggregation = Aggregation.newAggregation(Owner.class,
+                Aggregation.match(Criteria.where("taxesDebt").gt(BigDecimal.ZERO)),
+                Aggregation.group().sum("taxesDebt").as("totalDebt")
         );
 
-        AggregationResults<Owner> results = mongoTemplate.aggregate(aggregation, OWNERS_COLLECTION, Owner.class);
-        return results.getMappedResults();
+        Document result = mongoTemplate.aggregate(aggregation, OWNERS_COLLECTION, Document.class).getUniqueMappedResult();
+        if (Objects.isNull(result)) {
+            return BigDecimal.ZERO;
+        }
+
+        return result.get("totalDebt", Decimal128.class).bigDecimalValue();
+    }
+
+    private static void includeOnly(Query query, Set<String> fields) {
+        if (!fields.isEmpty()) {
+            query.fields().include(fields.toArray(String[]::new));
+        }
+    }
+
+    private static Update taxObligationUpdate(TaxObligation taxObligation) {
+        return new Update()
+                .set(TAX_OBLIGATION, taxObligation.amount())
+                .set(TAX_RATES_VERSION, taxObligation.taxRatesVersion());
+    }
+
+    // debts only grow and stay positive, so rounding half up is adding half a unit and truncating
+    private static Document recountedDebt(DebtRecount recount) {
+        Decimal128 half = new Decimal128(new BigDecimal(5).movePointLeft(recount.scale() + 1));
+        Document raised = new Document("$multiply", List.of("$taxesDebt", new Decimal128(recount.rate())));
+
+        return new Document("$trunc", List.of(new Document("$add", List.of(raised, half)), recount.scale()));
+    }
+
+    private BigDecimal publishRecounted(String run) {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document(DEBT_RECOUNT + ".run", run)),
+                new Document("$group", new Document("_id", new Document("$floor", new Document("$divide", List.of("$_id", RECOUNT_EVENT_ID_RANGE))))
+                        .append("delta", new Document("$sum", "$" + DEBT_RECOUNT + ".delta"))
+                        .append("ids", new Document("$push", "$_id"))));
+
+        BigDecimal delta = BigDecimal.ZERO;
+        for (Document group : mongoTemplate.getCollection(OWNERS_COLLECTION).aggregate(pipeline)) {
+            delta = delta.add(group.get("delta", Decimal128.class).bigDecimalValue());
+            events.publishEvent(new DebtsRecountedEvent(group.getList("ids", Integer.class)));
+        }
+
+        return delta;
+    }
+
+    private void adjustTotalDebt(BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+
+        Query query = new Query(Criteria.where("_id").is(TOTAL_DEBT_COUNTER));
+        Update update = new Update().inc("value", new Decimal128(delta)).inc(VERSION, 1L);
+
+        mongoTemplate.upsert(query, update, Document.class, COUNTERS_COLLECTION);
+    }
+
+    // a recount that dies before ending leaves the lease to expire, after which reconciliation repairs the ledger
+    private void beginRecount() {
+        Query query = new Query(Criteria.where("_id").is(TOTAL_DEBT_COUNTER));
+        Update update = new Update()
+                .set(RECOUNT_UNTIL, Date.from(Instant.now().plus(RECOUNT_LEASE)))
+                .inc(VERSION, 1L)
+                .setOnInsert("value", new Decimal128(BigDecimal.ZERO));
+
+        mongoTemplate.upsert(query, update, Document.class, COUNTERS_COLLECTION);
     }
 
-    private int getNextOwnerId() {
-        Query query = new Query(Criteria.where("_id").is("ownerId"));
-        Update update = new Update().inc("sequence_value", 1);
+    private void endRecount(BigDecimal delta) {
+        Query query = new Query(Criteria.where("_id").is(TOTAL_DEBT_COUNTER));
+        Update update = new Update().inc("value", new Decimal128(delta)).inc(VERSION, 1L).unset(RECOUNT_UNTIL);
 
-        FindAndModifyOptions options = new FindAndModifyOptions();
-        options.returnNew(true).upsert(true);
+        mongoTemplate.updateFirst(query, update, COUNTERS_COLLECTION);
+    }
 
-        Document counter = mongoTemplate.findAndModify(query, update, options, Document.class, "counters");
+    private static BigDecimal debtContribution(BigDecimal taxesDebt) {
+        if (!isDebtor(taxesDebt)) {
+            return BigDecimal.ZERO;
+        }
+
+        return taxesDebt;
+    }
 
-        return Objects.requireNonNull(counter).getInteger("sequence_value");
+    private static boolean isDebtor(BigDecimal taxesDebt) {
+        return Objects.nonNull(taxesDebt) && taxesDebt.signum() > 0;
     }
 
 }
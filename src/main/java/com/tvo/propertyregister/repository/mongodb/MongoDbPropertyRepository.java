@@ -1,22 +1,25 @@
 package com.tvo.propertyregister.repository.mongodb;
 
 import com.mongodb.client.result.UpdateResult;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
 import com.tvo.propertyregister.model.owner.Owner;
 import com.tvo.propertyregister.model.property.Property;
 import com.tvo.propertyregister.repository.PropertyRepository;
 import lombok.RequiredArgsConstructor;
 import org.bson.Document;
-import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-import static java.util.Objects.requireNonNull;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.atVersion;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.conflict;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.nextTaxInputsVersion;
+import static com.tvo.propertyregister.repository.mongodb.OwnerVersioning.nextVersion;
 
 @RequiredArgsConstructor
 public class MongoDbPropertyRepository implements PropertyRepository {
@@ -24,6 +27,8 @@ public class MongoDbPropertyRepository implements PropertyRepository {
     private static final String OWNERS_COLLECTION = "owners";
 
     private final MongoTemplate mongoTemplate;
+    private final MongoDbIdAllocator idAllocator;
+    private final ApplicationEventPublisher events;
 
     @Override
     public List<Property> findAll(int ownerId) {
@@ -33,40 +38,59 @@ public class MongoDbPropertyRepository implements PropertyRepository {
         return owners.get(0).getProperties();
     }
 
+    @Override
     public boolean save(Owner owner, Property property) {
-        Query criteria = new Query(Criteria.where("id").is(owner.getId()));
-        property.setId(getNextPropertyId());
-
-        List<Property> allProperties = owner.getProperties();
-        allProperties.add(property);
+        Query criteria = new Query(atVersion(Criteria.where("id").is(owner.getId()), owner.getVersion()));
+        property.setId(idAllocator.nextId("propertyId"));
 
-        Update update = new Update().set("properties", allProperties);
+        Update update = nextTaxInputsVersion(new Update().push("properties", property));
         UpdateResult result = mongoTemplate.updateFirst(criteria, update, Owner.class, OWNERS_COLLECTION);
 
-        return result.getModifiedCount() > 0;
+        return changed(owner, result, true) || conflictOn(owner, Criteria.where("id").is(owner.getId()));
     }
 
     @Override
-    public boolean update(int ownerId, List<Property> properties) {
-        Query criteria = new Query(Criteria.where("id").is(ownerId));
-
-        Update update = new Update().set("properties", properties);
+    public boolean update(Owner owner, int propertyId, Property property) {
+        Query criteria = new Query(atVersion(ownerWithProperty(owner.getId(), propertyId), owner.getVersion()));
+        Update update = nextVersion(new Update()
+                .set("properties.$[elem].city", property.getCity())
+                .set("properties.$[elem].address", property.getAddress())
+                .set("properties.$[elem].numberOfRooms", property.getNumberOfRooms())
+                .set("properties.$[elem].propertyCondition", property.getPropertyCondition()))
+                .filterArray(Criteria.where("elem._id").is(propertyId));
         UpdateResult result = mongoTemplate.updateFirst(criteria, update, Owner.class, OWNERS_COLLECTION);
 
-        return result.getModifiedCount() > 0;
+        return changed(owner, result, false) || conflictOn(owner, ownerWithProperty(owner.getId(), propertyId));
     }
 
-    private int getNextPropertyId() {
-        Query query = new Query(Criteria.where("_id").is("propertyId"));
-        Update update = new Update().inc("sequence_value", 1);
+    @Override
+    public boolean remove(Owner owner, int propertyId) {
+        Query criteria = new Query(atVersion(ownerWithProperty(owner.getId(), propertyId), owner.getVersion()));
+        Update update = nextTaxInputsVersion(new Update().pull("properties", new Document("_id", propertyId)));
+        UpdateResult result = mongoTemplate.updateFirst(criteria, update, Owner.class, OWNERS_COLLECTION);
+
+        return changed(owner, result, true) || conflictOn(owner, ownerWithProperty(owner.getId(), propertyId));
+    }
 
-        FindAndModifyOptions options = new FindAndModifyOptions();
-        options.returnNew(true).upsert(true);
+    private static Criteria ownerWithProperty(int ownerId, int propertyId) {
+        return Criteria.where("id").is(ownerId).and("properties._id").is(propertyId);
+    }
 
-        Document counter = mongoTemplate.findAndModify(query, update, options, Document.class, "counters");
+    private boolean changed(Owner owner, UpdateResult result, boolean taxInputsChanged) {
+        if (result.getMatchedCount() == 0) {
+            return false;
+        }
 
-        return requireNonNull(counter).getInteger("sequence_value");
+        boolean debtor = Objects.nonNull(owner.getTaxesDebt()) && owner.getTaxesDebt().signum() > 0;
+        events.publishEvent(new OwnerChangedEvent(owner.getId(), debtor, taxInputsChanged));
+        return true;
     }
 
+    private boolean conflictOn(Owner owner, Criteria target) {
+        if (mongoTemplate.exists(new Query(target), OWNERS_COLLECTION)) {
+            throw conflict(owner.getId());
+        }
 
+        return false;
+    }
 }
@@ -2,9 +2,11 @@ package com.tvo.propertyregister.repository.mongodb;
 
 import com.mongodb.client.result.UpdateResult;
 import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
 import com.tvo.propertyregister.model.property.PropertyType;
 import com.tvo.propertyregister.repository.TaxRateRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -19,6 +21,7 @@ public class MongoDbTaxRateRepository implements TaxRateRepository {
     private static final String TAX_RATE_COLLECTION = "taxRates";
 
     private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher events;
 
     @Override
     public List<TaxRate> findAll() {
@@ -30,10 +33,15 @@ public class MongoDbTaxRateRepository implements TaxRateRepository {
     @Override
     public boolean changeTax(PropertyType propertyType, BigDecimal rate) {
         Query criteria = new Query(Criteria.where("propertyType").is(propertyType.toString()));
-        Update update = new Update().set("tax", rate.toString());
+        Update update = new Update().set("tax", rate);
         UpdateResult result = mongoTemplate.updateFirst(criteria, update, TaxRate.class, TAX_RATE_COLLECTION);
 
-        return result.getModifiedCount() > 0;
+        if (result.getModifiedCount() == 0) {
+            return false;
+        }
+
+        events.publishEvent(new TaxRateChangedEvent(propertyType));
+        return true;
     }
 
 }
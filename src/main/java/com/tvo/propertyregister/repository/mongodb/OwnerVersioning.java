@@ -0,0 +1,47 @@
+package com.tvo.propertyregister.repository.mongodb;
+
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+
+final class OwnerVersioning {
+
+    static final String VERSION = "version";
+    static final String TAX_OBLIGATION = "taxObligation";
+    static final String TAX_RATES_VERSION = "taxRatesVersion";
+    static final String UPDATED_AT = "updatedAt";
+
+    private OwnerVersioning() {
+    }
+
+    static Criteria atVersion(Criteria criteria, long version) {
+        if (version == 0) {
+            return criteria.orOperator(Criteria.where(VERSION).is(0L), Criteria.where(VERSION).exists(false));
+        }
+
+        return criteria.and(VERSION).is(version);
+    }
+
+    /**
+     * Moves the owner to its next version, keeping the stored tax obligation: the write must not touch anything the
+     * obligation is computed from. Also stamps the write time, which copies of the owners use to catch up.
+     */
+    static Update nextVersion(Update update) {
+        return update.inc(VERSION, 1).set(UPDATED_AT, new Date());
+    }
+
+    /**
+     * Moves the owner to its next version for a write that changes its tax obligation. The stored one was computed
+     * from the previous version's data, so it is cleared in the same update rather than left to the recompute that
+     * follows.
+     */
+    static Update nextTaxInputsVersion(Update update) {
+        return nextVersion(update).unset(TAX_OBLIGATION).unset(TAX_RATES_VERSION);
+    }
+
+    static OwnerConcurrentModificationException conflict(int ownerId) {
+        return new OwnerConcurrentModificationException("Owner with id " + ownerId + " was modified concurrently");
+    }
+}
@@ -1,8 +1,14 @@
 package com.tvo.propertyregister.scheduler;
 
+import com.tvo.propertyregister.repository.mapped.OwnerSnapshotStore;
+import com.tvo.propertyregister.service.OutboxRelayService;
 import com.tvo.propertyregister.service.OwnerService;
+import com.tvo.propertyregister.service.TaxRateService;
+import com.tvo.propertyregister.service.columnar.ColumnarOwnerStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -12,10 +18,53 @@ import org.springframework.stereotype.Service;
 public class ScheduledTaskService {
 
     private final OwnerService ownerService;
+    private final OutboxRelayService outboxRelayService;
+    private final ColumnarOwnerStore columnarOwnerStore;
+    private final OwnerSnapshotStore ownerSnapshotStore;
+    private final TaxRateService taxRateService;
 
     @Scheduled(cron = "0 * * * * *")
     public void recountDebtForDebtors() {
         log.info("Recounting debt for debtors");
         ownerService.recountDebtForDebtors();
     }
+
+    @Scheduled(cron = "0 */15 * * * *")
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileTotalDebt() {
+        log.info("Reconciling total debt ledger");
+        ownerService.reconcileTotalDebt();
+    }
+
+    @Scheduled(fixedDelayString = "${property-register.outbox.poll-interval}")
+    public void relayOutbox() {
+        int relayed = outboxRelayService.relay();
+
+        if (relayed > 0) {
+            log.info("Relayed {} outbox messages", relayed);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${property-register.columnar.refresh-interval}")
+    public void refreshOwnerColumns() {
+        columnarOwnerStore.refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${property-register.columnar.rebuild-interval}",
+            initialDelayString = "${property-register.columnar.rebuild-interval}")
+    public void rebuildOwnerColumns() {
+        columnarOwnerStore.load();
+    }
+
+    @Scheduled(fixedDelayString = "${property-register.snapshot.refresh-interval}",
+            initialDelayString = "${property-register.snapshot.refresh-interval}")
+    public void refreshOwnerSnapshot() {
+        ownerSnapshotStore.refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${property-register.tax-rates.check-interval}",
+            initialDelayString = "${property-register.tax-rates.check-interval}")
+    public void checkTaxRateSnapshot() {
+        taxRateService.checkSnapshot();
+    }
 }
@@ -2,52 +2,72 @@ package com.tvo.propertyregister.service;
 
 import com.tvo.propertyregister.exception.DontHaveTaxDebtsException;
 import com.tvo.propertyregister.exception.NoDebtorsInDebtorListException;
-import com.tvo.propertyregister.exception.NoSuchOwnerException;
+import com.tvo.propertyregister.exception.NotificationJobNotFoundException;
 import com.tvo.propertyregister.model.dto.EmailEventDto;
 import com.tvo.propertyregister.model.dto.EmailType;
+import com.tvo.propertyregister.model.dto.NotificationJobDto;
+import com.tvo.propertyregister.model.dto.NotificationJobStatus;
 import com.tvo.propertyregister.model.owner.Owner;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
-
-
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.tvo.propertyregister.service.utils.Constants.MAX_IN_FLIGHT_NOTIFICATIONS;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DebtorNotificationService {
 
+    private static final Set<String> NOTIFICATION_FIELDS = Set.of("firstName", "lastName", "email", "taxesDebt");
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
     private final OwnerService ownerService;
     private final EmailSender emailSender;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, NotificationJob> jobs = new ConcurrentHashMap<>();
 
-    public boolean notifyAllDebtors() {
-        List<Owner> debtors = this.ownerService.findDebtors();
+    public NotificationJobDto notifyAllDebtors() {
+        long numberOfDebtors = this.ownerService.countDebtors();
 
-        if (debtors.isEmpty()) {
+        if (numberOfDebtors == 0) {
             throw new NoDebtorsInDebtorListException("No debtors in debtor list");
         }
 
-        Map<String, String> params = new HashMap<>();
-        params.put("numberOfDebtors", String.valueOf(debtors.size()));
+        evictFinishedJobs();
+
+        NotificationJob job = new NotificationJob(UUID.randomUUID().toString(), numberOfDebtors);
+        this.jobs.put(job.id, job);
+        this.executor.execute(() -> publish(job));
 
-        for (Owner debtor : debtors) {
-            params.put("firstName", debtor.getFirstName());
-            params.put("lastName", debtor.getLastName());
-            params.put("debt", String.valueOf(debtor.getTaxesDebt()));
+        return job.toDto();
+    }
 
-            EmailEventDto emailEvent = new EmailEventDto(
-                    debtor.getEmail(),
-                    EmailType.ALL_DEBTOR_NOTIFICATION,
-                    params
-            );
+    public NotificationJobDto getJob(String id) {
+        NotificationJob job = this.jobs.get(id);
 
-            emailSender.send(emailEvent);
+        if (Objects.isNull(job)) {
+            throw new NotificationJobNotFoundException("Notification job " + id + " was not found");
         }
 
-        return true;
+        return job.toDto();
     }
 
     public boolean notifyDebtorById(int id) {
@@ -60,19 +80,123 @@ public class DebtorNotificationService {
         String hasChildren = debtor.isHasChildren() ? "Yes" : "No";
         String familyStatus = String.valueOf(debtor.getFamilyStatus()).charAt(0) + String.valueOf(debtor.getFamilyStatus()).toLowerCase().substring(1);
 
-        EmailEventDto emailEvent = new EmailEventDto(
-                debtor.getEmail(),
-                EmailType.SINGLE_DEBTOR_NOTIFICATION,
-                Map.of("firstName", debtor.getFirstName(),
-                        "lastName", debtor.getLastName(),
-                        "debt", String.valueOf(debtor.getTaxesDebt()),
-                        "hasChildren", hasChildren,
-                        "familyStatus", familyStatus)
-        );
+        Map<String, String> params = debtorParams(debtor);
+        params.put("hasChildren", hasChildren);
+        params.put("familyStatus", familyStatus);
 
+        EmailEventDto emailEvent = new EmailEventDto(debtor.getEmail(), EmailType.SINGLE_DEBTOR_NOTIFICATION, params);
 
         emailSender.send(emailEvent);
 
         return true;
     }
+
+    private void publish(NotificationJob job) {
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT_NOTIFICATIONS);
+        String numberOfDebtors = String.valueOf(job.total);
+        NotificationJobStatus status = NotificationJobStatus.FAILED;
+
+        try (Stream<Owner> debtors = this.ownerService.streamDebtors(NOTIFICATION_FIELDS)) {
+            Iterator<Owner> iterator = debtors.iterator();
+
+            while (iterator.hasNext()) {
+                Owner debtor = iterator.next();
+                EmailEventDto emailEvent;
+
+                try {
+                    emailEvent = allDebtorsEmail(debtor, numberOfDebtors);
+                } catch (RuntimeException e) {
+                    job.failed.incrementAndGet();
+                    log.warn("Notification job {} skipped debtor {}", job.id, debtor.getId(), e);
+                    continue;
+                }
+
+                inFlight.acquireUninterruptibly();
+                this.executor.execute(() -> send(job, emailEvent, inFlight));
+            }
+
+            status = NotificationJobStatus.COMPLETED;
+        } catch (RuntimeException e) {
+            log.error("Notification job {} stopped reading debtors", job.id, e);
+        } finally {
+            inFlight.acquireUninterruptibly(MAX_IN_FLIGHT_NOTIFICATIONS);
+            job.finish(status);
+            log.info("Notification job {} finished as {}: {} sent, {} failed", job.id, status, job.sent, job.failed);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.executor.shutdownNow();
+    }
+
+    private static EmailEventDto allDebtorsEmail(Owner debtor, String numberOfDebtors) {
+        if (Objects.isNull(debtor.getEmail())) {
+            throw new IllegalArgumentException("Debtor " + debtor.getId() + " has no email");
+        }
+
+        Map<String, String> params = debtorParams(debtor);
+        params.put("numberOfDebtors", numberOfDebtors);
+
+        return new EmailEventDto(debtor.getEmail(), EmailType.ALL_DEBTOR_NOTIFICATION, params);
+    }
+
+    // names are optional on owners, so missing ones are left out of the params instead of failing the email
+    private static Map<String, String> debtorParams(Owner debtor) {
+        Map<String, String> params = new HashMap<>();
+        putIfPresent(params, "firstName", debtor.getFirstName());
+        putIfPresent(params, "lastName", debtor.getLastName());
+        putIfPresent(params, "debt", Objects.toString(debtor.getTaxesDebt(), null));
+
+        return params;
+    }
+
+    private static void putIfPresent(Map<String, String> params, String key, String value) {
+        if (Objects.nonNull(value)) {
+            params.put(key, value);
+        }
+    }
+
+    private void send(NotificationJob job, EmailEventDto emailEvent, Semaphore inFlight) {
+        try {
+            this.emailSender.send(emailEvent);
+            job.sent.incrementAndGet();
+        } catch (RuntimeException e) {
+            job.failed.incrementAndGet();
+            log.warn("Notification job {} failed to notify {}", job.id, emailEvent.email(), e);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant threshold = Instant.now().minus(FINISHED_JOB_RETENTION);
+
+        this.jobs.values().removeIf(job -> Objects.nonNull(job.finishedAt) && job.finishedAt.isBefore(threshold));
+    }
+
+    private static final class NotificationJob {
+
+        private final String id;
+        private final long total;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile NotificationJobStatus status = NotificationJobStatus.RUNNING;
+        private volatile Instant finishedAt;
+
+        private NotificationJob(String id, long total) {
+            this.id = id;
+            this.total = total;
+        }
+
+        private void finish(NotificationJobStatus status) {
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+
+        private NotificationJobDto toDto() {
+            return new NotificationJobDto(id, status, total, sent.get(), failed.get(), startedAt, finishedAt);
+        }
+    }
 }
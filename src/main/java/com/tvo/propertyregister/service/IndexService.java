@@ -0,0 +1,29 @@
+package com.tvo.propertyregister.service;
+
+import com.tvo.propertyregister.model.dto.IndexStatsDto;
+import com.tvo.propertyregister.repository.IndexRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IndexService {
+
+    private final IndexRepository indexRepository;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void ensureIndexes() {
+        log.info("Ensuring indexes");
+        this.indexRepository.ensureIndexes();
+    }
+
+    public List<IndexStatsDto> getIndexStats() {
+        return this.indexRepository.findIndexStats();
+    }
+}
@@ -1,28 +1,235 @@
 package com.tvo.propertyregister.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.exception.EmailNotPublishedException;
 import com.tvo.propertyregister.model.dto.EmailEventDto;
-import lombok.RequiredArgsConstructor;
+import com.tvo.propertyregister.service.codec.EmailEventCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.ReturnedMessage;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.tvo.propertyregister.service.utils.Constants.EMAIL_TOPIC;
 
-@Service
-@RequiredArgsConstructor
+@Slf4j
 public class InternalEmailSender implements EmailSender {
 
-    private final ObjectMapper mapper;
+    private final EmailEventCodec codec;
     private final RabbitTemplate rabbitTemplate;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long confirmTimeoutMillis;
+    private final long sendTimeoutMillis;
+
+    private final Counter confirmed;
+    private final Counter nacked;
+    private final Counter failed;
+    private final Counter returned;
+
+    private final BlockingQueue<PendingEmail> queue = new LinkedBlockingQueue<>();
+    private final Map<String, PendingEmail> unconfirmed = new ConcurrentHashMap<>();
+    private final Thread publisher = Thread.ofPlatform().name("email-publisher").daemon().unstarted(this::publishBatches);
+    private volatile boolean running = true;
+
+    public InternalEmailSender(EmailEventCodec codec, RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                               int batchSize, Duration linger, Duration confirmTimeout, Duration sendTimeout) {
+        this.codec = codec;
+        this.rabbitTemplate = rabbitTemplate;
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.confirmTimeoutMillis = confirmTimeout.toMillis();
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+
+        this.confirmed = meterRegistry.counter("email.publish.confirmed");
+        this.nacked = meterRegistry.counter("email.publish.nacked");
+        this.failed = meterRegistry.counter("email.publish.failed");
+        this.returned = meterRegistry.counter("email.publish.returned");
+
+        this.rabbitTemplate.setMandatory(true);
+        this.rabbitTemplate.setReturnsCallback(this::onReturned);
+    }
+
+    @PostConstruct
+    public void start() {
+        this.publisher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        this.publisher.interrupt();
+        this.publisher.join();
+        failQueued();
+    }
 
     @Override
     public void send(EmailEventDto message) {
+        send(UUID.randomUUID().toString(), message);
+    }
+
+    /**
+     * Publishes the email with {@code id} as its AMQP message id, which must be unique across instances and restarts
+     * so consumers can deduplicate redelivered emails.
+     */
+    public void send(String id, EmailEventDto message) {
+        PendingEmail email = new PendingEmail(id, toMessage(id, message));
+
+        if (!this.running) {
+            throw new EmailNotPublishedException("Email sender is stopped");
+        }
+
+        this.queue.add(email);
+        // the publisher may have stopped after the check above and will never drain this email
+        if (!this.running && this.queue.remove(email)) {
+            throw new EmailNotPublishedException("Email sender is stopped");
+        }
+
         try {
-            String body = mapper.writeValueAsString(message);
-            rabbitTemplate.convertAndSend(EMAIL_TOPIC, body);
-        } catch (JsonProcessingException exception) {
-            throw new RuntimeException(exception);
+            email.result.get(this.sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw new EmailNotPublishedException("Email " + id + " was not published: " + exception.getCause());
+        } catch (TimeoutException exception) {
+            this.queue.remove(email);
+            throw new EmailNotPublishedException("Email " + id + " was not confirmed within " + this.sendTimeoutMillis + " ms");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new EmailNotPublishedException("Interrupted while publishing email " + id);
+        }
+    }
+
+    private Message toMessage(String id, EmailEventDto message) {
+        return MessageBuilder.withBody(this.codec.encode(message))
+                .setContentType(this.codec.contentType())
+                .setMessageId(id)
+                .build();
+    }
+
+    private void publishBatches() {
+        try {
+            publishWhileRunning();
+        } finally {
+            // whatever stopped the publisher, nobody is left to drain the queue
+            this.running = false;
+            failQueued();
+        }
+    }
+
+    private void publishWhileRunning() {
+        List<PendingEmail> batch = new ArrayList<>(this.batchSize);
+
+        while (this.running) {
+            try {
+                batch.add(this.queue.take());
+
+                long deadline = System.nanoTime() + this.lingerNanos;
+                while (batch.size() < this.batchSize) {
+                    PendingEmail next = this.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (Objects.isNull(next)) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!batch.isEmpty()) {
+                publish(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void publish(List<PendingEmail> batch) {
+        batch.forEach(email -> this.unconfirmed.put(email.id, email));
+
+        try {
+            Boolean acked = this.rabbitTemplate.invoke(operations -> {
+                for (PendingEmail email : batch) {
+                    operations.send(EMAIL_TOPIC, email.message);
+                }
+                return operations.waitForConfirms(this.confirmTimeoutMillis);
+            });
+
+            if (!Boolean.TRUE.equals(acked)) {
+                // confirms do not say which messages were nacked, so the whole batch is failed
+                log.warn("Batch of {} emails was nacked by the broker", batch.size());
+                this.nacked.increment(batch.size());
+                failBatch(batch, "was nacked by the broker");
+                return;
+            }
+
+            for (PendingEmail email : batch) {
+                if (email.returned) {
+                    email.result.completeExceptionally(new EmailNotPublishedException("Email " + email.id + " was not routed to " + EMAIL_TOPIC));
+                } else {
+                    this.confirmed.increment();
+                    email.result.complete(null);
+                }
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Batch of {} emails was not confirmed", batch.size(), exception);
+            this.failed.increment(batch.size());
+            failBatch(batch, "was not confirmed by the broker");
+        } finally {
+            batch.forEach(email -> this.unconfirmed.remove(email.id));
+        }
+    }
+
+    private static void failBatch(List<PendingEmail> batch, String reason) {
+        for (PendingEmail email : batch) {
+            email.result.completeExceptionally(new EmailNotPublishedException("Email " + email.id + " " + reason));
+        }
+    }
+
+    private void failQueued() {
+        for (PendingEmail email = this.queue.poll(); Objects.nonNull(email); email = this.queue.poll()) {
+            email.result.completeExceptionally(new EmailNotPublishedException("Email sender was stopped"));
+        }
+    }
+
+    private void onReturned(ReturnedMessage returnedMessage) {
+        this.returned.increment();
+        log.warn("Email was returned by the broker: {} {}", returnedMessage.getReplyCode(), returnedMessage.getReplyText());
+
+        PendingEmail email = this.unconfirmed.get(returnedMessage.getMessage().getMessageProperties().getMessageId());
+        if (Objects.nonNull(email)) {
+            email.returned = true;
+        }
+    }
+
+    private static final class PendingEmail {
+
+        private final String id;
+        private final Message message;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private volatile boolean returned;
+
+        private PendingEmail(String id, Message message) {
+            this.id = id;
+            this.message = message;
         }
     }
 }
@@ -0,0 +1,20 @@
+package com.tvo.propertyregister.service;
+
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+@Primary
+@Service
+@RequiredArgsConstructor
+public class OutboxEmailSender implements EmailSender {
+
+    private final OutboxRepository outboxRepository;
+
+    @Override
+    public void send(EmailEventDto message) {
+        outboxRepository.add(message);
+    }
+}
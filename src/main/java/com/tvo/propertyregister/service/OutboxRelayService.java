@@ -0,0 +1,101 @@
+package com.tvo.propertyregister.service;
+
+import com.tvo.propertyregister.model.outbox.OutboxMessage;
+import com.tvo.propertyregister.repository.OutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Service
+public class OutboxRelayService {
+
+    private final OutboxRepository outboxRepository;
+    private final InternalEmailSender emailSender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public OutboxRelayService(OutboxRepository outboxRepository,
+                              InternalEmailSender emailSender,
+                              @Value("${property-register.outbox.batch-size}") int batchSize,
+                              @Value("${property-register.outbox.max-attempts}") int maxAttempts,
+                              @Value("${property-register.outbox.lease}") Duration lease,
+                              @Value("${property-register.outbox.initial-backoff}") Duration initialBackoff,
+                              @Value("${property-register.outbox.max-backoff}") Duration maxBackoff) {
+        this.outboxRepository = outboxRepository;
+        this.emailSender = emailSender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public int relay() {
+        int relayed = 0;
+        int sent;
+        List<OutboxMessage> batch;
+
+        do {
+            batch = outboxRepository.claim(batchSize, lease);
+            sent = publish(batch);
+            relayed += sent;
+        } while (batch.size() == batchSize && sent > 0);
+
+        return relayed;
+    }
+
+    private int publish(List<OutboxMessage> batch) {
+        Queue<String> sent = new ConcurrentLinkedQueue<>();
+
+        // The broker sender confirms whole batches, so the messages are handed over concurrently.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (OutboxMessage message : batch) {
+                executor.execute(() -> {
+                    try {
+                        // the outbox id is stable across relay attempts, so consumers can drop redelivered emails
+                        emailSender.send(message.getId(), message.getEvent());
+                        sent.add(message.getId());
+                    } catch (RuntimeException e) {
+                        retryLater(message, e);
+                    }
+                });
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            outboxRepository.remove(List.copyOf(sent));
+        }
+
+        return sent.size();
+    }
+
+    private void retryLater(OutboxMessage message, RuntimeException error) {
+        if (message.getAttempts() >= maxAttempts) {
+            log.error("Giving up on outbox message {} after {} attempts", message.getId(), message.getAttempts(), error);
+            outboxRepository.markFailed(message, error.getMessage());
+            return;
+        }
+
+        Duration backoff = backoff(message.getAttempts());
+        log.warn("Outbox message {} failed on attempt {}, retrying in {}", message.getId(), message.getAttempts(), backoff);
+        outboxRepository.reschedule(message, Instant.now().plus(backoff), error.getMessage());
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+}
@@ -1,41 +1,85 @@
 package com.tvo.propertyregister.service;
 
+import com.tvo.propertyregister.exception.InvalidBatchRequestException;
+import com.tvo.propertyregister.exception.InvalidFieldSelectionException;
+import com.tvo.propertyregister.exception.InvalidPageRequestException;
 import com.tvo.propertyregister.exception.InvalidTaxRateNumberException;
 import com.tvo.propertyregister.exception.NoSuchOwnerException;
 import com.tvo.propertyregister.exception.PropertyNotFoundException;
 import com.tvo.propertyregister.exception.UpdateOwnerFailedException;
 import com.tvo.propertyregister.model.BigDecimalWrapper;
-import com.tvo.propertyregister.model.TaxRate;
-import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.dto.OwnerTaxObligationDto;
+import com.tvo.propertyregister.model.dto.TaxObligationBatchRequest;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
+import com.tvo.propertyregister.model.owner.DebtRecount;
 import com.tvo.propertyregister.model.owner.Owner;
-import com.tvo.propertyregister.model.property.Property;
-import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.model.owner.TaxObligation;
 import com.tvo.propertyregister.repository.OwnerRepository;
+import com.tvo.propertyregister.service.columnar.ColumnarOwnerStore;
+import com.tvo.propertyregister.service.columnar.OwnerColumns;
+import com.tvo.propertyregister.service.tax.TaxEngine;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-import static com.tvo.propertyregister.service.utils.Constants.TAXES_RATE_NUMBER;
+import static com.tvo.propertyregister.cache.CacheNames.DEBTORS;
+import static com.tvo.propertyregister.cache.CacheNames.OWNERS;
+import static com.tvo.propertyregister.service.utils.Constants.MAX_OWNERS_PAGE_SIZE;
+import static com.tvo.propertyregister.service.utils.Constants.MAX_TAX_OBLIGATION_BATCH_SIZE;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OwnerService {
 
+    private static final DebtRecount DEBT_GROWTH = new DebtRecount(new BigDecimal("1.05"), 1);
+    private static final Set<String> TAX_OBLIGATION_FIELDS = Set.of(
+            "id", "familyStatus", "hasChildren", "properties.propertyType", "properties.square");
+    private static final Set<String> OWNER_FIELDS = Arrays.stream(Owner.class.getDeclaredFields())
+            .filter(field -> !Modifier.isStatic(field.getModifiers()))
+            .map(Field::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
     private final OwnerRepository ownerRepository;
     private final TaxRateService taxRateService;
+    private final ColumnarOwnerStore columnarOwnerStore;
+    private final ExecutorService taxObligationRecompute =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("tax-obligation-recompute").factory());
+    private volatile TaxEngine taxEngine;
+
+    public List<Owner> getOwners(int afterId, int limit, Set<String> fields) {
+        if (limit < 1 || limit > MAX_OWNERS_PAGE_SIZE) {
+            throw new InvalidPageRequestException("Page limit must be between 1 and " + MAX_OWNERS_PAGE_SIZE);
+        }
+
+        return this.ownerRepository.findPage(afterId, limit, validFields(fields));
+    }
 
-    public List<Owner> getAllOwners() {
-        return this.ownerRepository.findAll();
+    public Stream<Owner> streamOwners(Set<String> fields) {
+        return this.ownerRepository.streamAll(validFields(fields));
     }
 
+    @Cacheable(cacheNames = OWNERS, key = "#id", sync = true)
     public Owner getOwnerById(int id) {
         Owner owner = ownerRepository.findById(id);
         if (Objects.isNull(owner)) {
@@ -49,17 +93,23 @@ public class OwnerService {
         return this.ownerRepository.findDebtors();
     }
 
+    @Cacheable(cacheNames = DEBTORS, key = "new java.util.TreeSet(#fields).toString()", sync = true)
+    public List<Owner> findDebtors(Set<String> fields) {
+        return this.ownerRepository.findDebtors(validFields(fields));
+    }
+
+    public long countDebtors() {
+        return this.ownerRepository.countDebtors();
+    }
+
+    public Stream<Owner> streamDebtors(Set<String> fields) {
+        return this.ownerRepository.streamDebtors(validFields(fields));
+    }
+
     public void recountDebtForDebtors() {
-        List<Owner> allDebtors = this.ownerRepository.findDebtors();
+        int recounted = this.ownerRepository.recountDebts(DEBT_GROWTH);
 
-        allDebtors.stream()
-                .filter(debtor -> debtor.getTaxesDebt().compareTo(new BigDecimal("0")) > 0)
-                .map(debtor -> {
-                    BigDecimal recalculatedDebt = debtor.getTaxesDebt().multiply(new BigDecimal("1.05"));
-                    BigDecimal roundedDebts = recalculatedDebt.setScale(1, RoundingMode.HALF_UP);
-                    return debtor.withTaxesDebt(roundedDebts);
-                })
-                .forEach(updatedDebtor -> ownerRepository.update(updatedDebtor.getId(), updatedDebtor));
+        log.info("Recounted debt for {} debtors", recounted);
     }
 
     public boolean addNewOwner(Owner owner) {
@@ -80,12 +130,13 @@ public class OwnerService {
             throw new UpdateOwnerFailedException("Updating owner was failed");
         }
 
-        Owner owner = this.ownerRepository.findById(id);
-        if (Objects.isNull(owner)) {
+        // written at the version the client read, so anything written since, a debt recount included, is a conflict
+        // for the client to resolve rather than something to overwrite with its copy
+        if (!this.ownerRepository.update(id, ownerToUpdate)) {
             throw new NoSuchOwnerException("This owner does not exists");
         }
 
-        return this.ownerRepository.update(id, ownerToUpdate);
+        return true;
     }
 
     public boolean removeOwner(int id) {
@@ -93,62 +144,175 @@ public class OwnerService {
     }
 
     public BigDecimal countTaxObligation(int id) {
-        Owner owner = this.ownerRepository.findById(id);
+        TaxRateSnapshot taxRates = this.taxRateService.getSnapshot();
+        TaxObligation stored = this.ownerRepository.findTaxObligation(id);
+
+        if (Objects.isNull(stored)) {
+            throw new NoSuchOwnerException("This owner does not exists");
+        }
 
+        if (stored.isCurrent(taxRates.version())) {
+            return stored.amount();
+        }
+
+        Owner owner = this.ownerRepository.findById(id);
         if (Objects.isNull(owner)) {
             throw new NoSuchOwnerException("This owner does not exists");
         }
 
-        BigDecimal leeway = new BigDecimal("1");
-        BigDecimal taxObligation = countBaseTax(owner);
+        BigDecimal taxObligation = countTaxObligation(owner, taxRates);
+        this.ownerRepository.updateTaxObligation(id, owner.getVersion(), new TaxObligation(taxObligation, taxRates.version()));
+
+        return taxObligation;
+    }
+
+    @EventListener
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        // other writes keep the stored obligation, so there is nothing to recompute for them
+        if (!event.taxInputsChanged()) {
+            return;
+        }
+
+        try {
+            Owner owner = this.ownerRepository.findById(event.ownerId());
+
+            if (Objects.nonNull(owner)) {
+                TaxRateSnapshot taxRates = this.taxRateService.getSnapshot();
+                TaxObligation taxObligation = new TaxObligation(countTaxObligation(owner, taxRates), taxRates.version());
+
+                this.ownerRepository.updateTaxObligation(owner.getId(), owner.getVersion(), taxObligation);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not materialise tax obligation of owner {}, it will be computed on read", event.ownerId(), e);
+        }
+    }
+
+    @EventListener
+    @Order
+    public void onTaxRateChanged(TaxRateChangedEvent event) {
+        this.taxObligationRecompute.execute(this::recomputeTaxObligations);
+    }
+
+    @PreDestroy
+    public void stopTaxObligationRecompute() {
+        this.taxObligationRecompute.shutdownNow();
+    }
+
+    public void recomputeTaxObligations() {
+        TaxRateSnapshot taxRates = this.taxRateService.getSnapshot();
+
+        try {
+            taxRates.requireComplete();
+        } catch (InvalidTaxRateNumberException e) {
+            log.warn("Skipping tax obligation recompute: {}", e.getMessage());
+            return;
+        }
+
+        int recomputed = this.ownerRepository.recomputeTaxObligations(owner -> {
+            try {
+                return countTaxObligation(owner, taxRates);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }, taxRates.version());
+
+        log.info("Recomputed tax obligations of {} owners against tax rates {}", recomputed, taxRates.version());
+    }
+
+    public Stream<OwnerTaxObligationDto> streamTaxObligations(TaxObligationBatchRequest request) {
+        TaxRateSnapshot taxRates = this.taxRateService.getSnapshot().requireComplete();
+        boolean byIds = isBatchByIds(request);
+
+        OwnerColumns columns = this.columnarOwnerStore.getColumns();
+        if (Objects.nonNull(columns)) {
+            TaxEngine engine = taxEngine(taxRates);
+
+            return rowsForBatch(columns, request, byIds)
+                    .mapToObj(row -> new OwnerTaxObligationDto(columns.id(row), columns.taxObligation(row, engine)));
+        }
+
+        Stream<Owner> owners = byIds
+                ? this.ownerRepository.streamByIds(Set.copyOf(request.ownerIds()), TAX_OBLIGATION_FIELDS)
+                : this.ownerRepository.streamByIdRange(request.fromId(), request.toId(), TAX_OBLIGATION_FIELDS);
+
+        return owners.map(owner -> new OwnerTaxObligationDto(owner.getId(), countTaxObligation(owner, taxRates)));
+    }
+
+    private static boolean isBatchByIds(TaxObligationBatchRequest request) {
+        boolean byIds = Objects.nonNull(request.ownerIds()) && !request.ownerIds().isEmpty();
+        boolean byRange = Objects.nonNull(request.fromId()) && Objects.nonNull(request.toId());
+
+        if (byIds == byRange) {
+            throw new InvalidBatchRequestException("Either ownerIds or fromId and toId must be given");
+        }
 
-        if (owner.isHasChildren()) {
-            if (FamilyStatus.SINGLE.equals(owner.getFamilyStatus())) {
-                leeway = leeway.subtract(new BigDecimal("0.3"));
-            } else {
-                leeway = leeway.subtract(new BigDecimal("0.1"));
+        if (byIds) {
+            if (request.ownerIds().size() > MAX_TAX_OBLIGATION_BATCH_SIZE) {
+                throw new InvalidBatchRequestException("At most " + MAX_TAX_OBLIGATION_BATCH_SIZE + " owners can be requested at once");
             }
+
+            return true;
         }
-        if (FamilyStatus.MARRIED.equals(owner.getFamilyStatus())) {
-            leeway = leeway.subtract(new BigDecimal("0.1"));
+
+        long size = (long) request.toId() - request.fromId() + 1;
+        if (size < 1 || size > MAX_TAX_OBLIGATION_BATCH_SIZE) {
+            throw new InvalidBatchRequestException("Owner id range must cover between 1 and " + MAX_TAX_OBLIGATION_BATCH_SIZE + " ids");
         }
 
-        return taxObligation.multiply(leeway);
+        return false;
     }
 
-    @Cacheable(cacheNames = "owner:totalDebt")
-    public String countTotalDebt() {
-        return ownerRepository.countAllDebts().toPlainString();
+    private static IntStream rowsForBatch(OwnerColumns columns, TaxObligationBatchRequest request, boolean byIds) {
+        if (byIds) {
+            return request.ownerIds().stream()
+                    .mapToInt(Integer::intValue)
+                    .map(columns::row)
+                    .filter(row -> row >= 0)
+                    .sorted()
+                    .distinct();
+        }
+
+        return IntStream.range(columns.rowAtOrAfter(request.fromId()), columns.rowAfter(request.toId()));
     }
 
-    private BigDecimal countBaseTax(Owner owner) {
-        List<Property> properties = owner.getProperties();
-        if (Objects.isNull(properties)) {
+    private BigDecimal countTaxObligation(Owner owner, TaxRateSnapshot taxRates) {
+        if (Objects.isNull(owner.getProperties())) {
             throw new PropertyNotFoundException("The list of property does not exist");
         }
 
-        List<TaxRate> taxRates = this.taxRateService.getAll();
-        if (taxRates.size() != TAXES_RATE_NUMBER) {
-            throw new InvalidTaxRateNumberException("Invalid number of tax rates. Current size is " + taxRates.size());
+        return taxEngine(taxRates).taxObligation(owner);
+    }
+
+    private TaxEngine taxEngine(TaxRateSnapshot taxRates) {
+        TaxEngine engine = this.taxEngine;
+
+        if (Objects.isNull(engine) || engine.snapshot() != taxRates) {
+            engine = TaxEngine.of(taxRates);
+            this.taxEngine = engine;
         }
 
-        BigDecimal FLAT_TAX = taxRates.get(0).getTax();
-        BigDecimal HOUSE_TAX = taxRates.get(1).getTax();
-        BigDecimal OFFICE_TAX = taxRates.get(2).getTax();
+        return engine;
+    }
+
+    public String countTotalDebt() {
+        return ownerRepository.countAllDebts().toPlainString();
+    }
+
+    public void reconcileTotalDebt() {
+        BigDecimal drift = this.ownerRepository.reconcileTotalDebt();
 
-        BigDecimal baseTax = new BigDecimal("0");
+        if (drift.signum() != 0) {
+            log.warn("Total debt ledger drifted by {} and was corrected", drift.toPlainString());
+        }
+    }
 
-        for (Property property : properties) {
-            BigDecimal square = new BigDecimal(property.getSquare());
-            if (property.getPropertyType() == PropertyType.FLAT) {
-                baseTax = baseTax.add(square.multiply(FLAT_TAX));
-            } else if (property.getPropertyType() == PropertyType.HOUSE) {
-                baseTax = baseTax.add(square.multiply(HOUSE_TAX));
-            } else {
-                baseTax = baseTax.add(square.multiply(OFFICE_TAX));
+    private static Set<String> validFields(Set<String> fields) {
+        for (String field : fields) {
+            if (!OWNER_FIELDS.contains(field)) {
+                throw new InvalidFieldSelectionException("Unknown owner field: " + field);
             }
         }
 
-        return baseTax;
+        return fields;
     }
 }
@@ -6,21 +6,20 @@ import com.tvo.propertyregister.model.owner.Owner;
 import com.tvo.propertyregister.model.property.Property;
 import com.tvo.propertyregister.repository.OwnerRepository;
 import com.tvo.propertyregister.repository.PropertyRepository;
+import com.tvo.propertyregister.service.utils.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-import static java.util.Objects.requireNonNull;
-
 @Service
 @RequiredArgsConstructor
 public class PropertyService {
 
     private final PropertyRepository propertyRepository;
     private final OwnerRepository ownerRepository;
+    private final OptimisticRetry optimisticRetry;
 
     public List<Property> getAll(int ownerId) {
         Owner owner = ownerRepository.findById(ownerId);
@@ -36,16 +35,7 @@ public class PropertyService {
             throw new PropertyNotFoundException("This property is empty");
         }
 
-        Owner owner = ownerRepository.findById(ownerId);
-        if (Objects.isNull(owner)) {
-            throw new NoSuchOwnerException("Owner with id " + ownerId + " not found");
-        }
-
-        if (Objects.isNull(owner.getProperties())) {
-            owner.setProperties(new ArrayList<>());
-        }
-
-        return this.propertyRepository.save(owner, property);
+        return this.optimisticRetry.execute(() -> this.propertyRepository.save(findOwner(ownerId), property));
     }
 
     public boolean update(int ownerId, int propertyId, Property property) {
@@ -53,44 +43,29 @@ public class PropertyService {
             throw new PropertyNotFoundException("This property is empty");
         }
 
-        Owner owner = ownerRepository.findById(ownerId);
-        if (Objects.isNull(owner)) {
-            throw new NoSuchOwnerException("Owner with id " + ownerId + " not found");
+        boolean updated = this.optimisticRetry.execute(() -> this.propertyRepository.update(findOwner(ownerId), propertyId, property));
+        if (!updated) {
+            throw new PropertyNotFoundException("Property not found with ID: " + propertyId);
         }
 
-        Property propertyToUpdate = owner.getProperties().stream()
-                .filter(currentProperty -> currentProperty.getId() == propertyId)
-                .findFirst()
-                .orElseThrow(() -> new PropertyNotFoundException("Property not found with ID: " + propertyId));
-
-        propertyToUpdate.setCity(property.getCity());
-        propertyToUpdate.setAddress(property.getAddress());
-        propertyToUpdate.setNumberOfRooms(property.getNumberOfRooms());
-        propertyToUpdate.setPropertyCondition(property.getPropertyCondition());
-
-        List<Property> allProperties = new ArrayList<>(owner.getProperties().stream()
-                .filter(currentProperty -> currentProperty.getId() != propertyId)
-                .toList());
+        return true;
+    }
 
-        allProperties.add(propertyToUpdate);
+    public boolean remove(int ownerId, int propertyId) {
+        boolean removed = this.optimisticRetry.execute(() -> this.propertyRepository.remove(findOwner(ownerId), propertyId));
+        if (!removed) {
+            throw new PropertyNotFoundException("Property with id " + propertyId + " not found");
+        }
 
-        return this.propertyRepository.update(ownerId, allProperties);
+        return true;
     }
 
-    public boolean remove(int ownerId, int propertyId) {
+    private Owner findOwner(int ownerId) {
         Owner owner = ownerRepository.findById(ownerId);
         if (Objects.isNull(owner)) {
             throw new NoSuchOwnerException("Owner with id " + ownerId + " not found");
         }
 
-        List<Property> filtered = owner.getProperties().stream()
-                .filter(p -> p.getId() != propertyId)
-                .toList();
-
-        if (filtered.size() == owner.getProperties().size()) {
-            throw new PropertyNotFoundException("Property with id " + propertyId + " not found");
-        }
-
-        return this.propertyRepository.update(ownerId, filtered);
+        return owner;
     }
 }
@@ -1,20 +1,45 @@
 package com.tvo.propertyregister.service;
 
 import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.event.RemoteTaxRatesChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
 import com.tvo.propertyregister.model.property.PropertyType;
 import com.tvo.propertyregister.repository.TaxRateRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static com.tvo.propertyregister.cache.CacheNames.TAX_RATES;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class TaxRateService {
+public class TaxRateService implements MessageListener {
+
+    public static final String SNAPSHOT_CHANNEL = "property-register:tax-rates";
 
     private final TaxRateRepository taxRateRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher events;
+    private final AtomicReference<TaxRateSnapshot> snapshot = new AtomicReference<>();
 
+    @Cacheable(cacheNames = TAX_RATES, key = "'all'", sync = true)
     public List<TaxRate> getAll() {
         return this.taxRateRepository.findAll();
     }
@@ -22,4 +47,62 @@ public class TaxRateService {
     public boolean changeTax(PropertyType propertyType, BigDecimal rate) {
         return this.taxRateRepository.changeTax(propertyType, rate);
     }
+
+    public TaxRateSnapshot getSnapshot() {
+        TaxRateSnapshot current = this.snapshot.get();
+
+        return Objects.isNull(current) ? reloadSnapshot() : current;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void loadSnapshot() {
+        reloadSnapshot();
+    }
+
+    public synchronized TaxRateSnapshot reloadSnapshot() {
+        TaxRateSnapshot loaded = TaxRateSnapshot.of(this.taxRateRepository.findAll());
+        this.snapshot.set(loaded);
+
+        log.info("Loaded tax rate snapshot {}", loaded.version());
+        return loaded;
+    }
+
+    /**
+     * Reloads the snapshot if the stored rates no longer match it. Announcements only make changes arrive sooner,
+     * this check is what guarantees an instance that missed one still catches up.
+     */
+    public synchronized void checkSnapshot() {
+        TaxRateSnapshot stored = TaxRateSnapshot.of(this.taxRateRepository.findLatest());
+        TaxRateSnapshot current = this.snapshot.get();
+
+        if (Objects.isNull(current) || !current.version().equals(stored.version())) {
+            this.events.publishEvent(new RemoteTaxRatesChangedEvent(stored.version()));
+            this.snapshot.set(stored);
+
+            log.info("Tax rate snapshot was behind the database, loaded {}", stored.version());
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onTaxRateChanged(TaxRateChangedEvent event) {
+        TaxRateSnapshot loaded = reloadSnapshot();
+
+        try {
+            this.redisTemplate.convertAndSend(SNAPSHOT_CHANNEL, loaded.version());
+        } catch (RuntimeException e) {
+            log.warn("Could not announce tax rate snapshot {} to other instances", loaded.version(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String version = new String(message.getBody(), StandardCharsets.UTF_8);
+        TaxRateSnapshot current = this.snapshot.get();
+
+        if (Objects.isNull(current) || !current.version().equals(version)) {
+            this.events.publishEvent(new RemoteTaxRatesChangedEvent(version));
+            reloadSnapshot();
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package com.tvo.propertyregister.service.codec;
+
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+
+public interface EmailEventCodec {
+
+    String contentType();
+
+    byte[] encode(EmailEventDto event);
+
+    EmailEventDto decode(byte[] body);
+}
@@ -0,0 +1,39 @@
+package com.tvo.propertyregister.service.codec;
+
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import org.springframework.amqp.core.Message;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class EmailEventCodecs {
+
+    private final Map<String, EmailEventCodec> codecs;
+    private final EmailEventCodec writer;
+
+    public EmailEventCodecs(List<EmailEventCodec> codecs, String writerContentType) {
+        this.codecs = codecs.stream().collect(Collectors.toUnmodifiableMap(EmailEventCodec::contentType, Function.identity()));
+        this.writer = forContentType(writerContentType);
+    }
+
+    public EmailEventCodec writer() {
+        return writer;
+    }
+
+    public EmailEventCodec forContentType(String contentType) {
+        EmailEventCodec codec = codecs.get(contentType);
+
+        if (Objects.isNull(codec)) {
+            throw new IllegalArgumentException("Unsupported email event content type: " + contentType);
+        }
+
+        return codec;
+    }
+
+    public EmailEventDto decode(Message message) {
+        return forContentType(message.getMessageProperties().getContentType()).decode(message.getBody());
+    }
+}
@@ -0,0 +1,59 @@
+package com.tvo.propertyregister.service.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public class JacksonEmailEventCodec implements EmailEventCodec {
+
+    public static final String JSON = "application/json";
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+
+    private final String contentType;
+    private final ObjectMapper mapper;
+
+    public JacksonEmailEventCodec(String contentType, ObjectMapper mapper) {
+        this.contentType = contentType;
+        this.mapper = mapper;
+    }
+
+    public static JacksonEmailEventCodec json(ObjectMapper mapper) {
+        return new JacksonEmailEventCodec(JSON, mapper);
+    }
+
+    public static JacksonEmailEventCodec cbor() {
+        return new JacksonEmailEventCodec(CBOR, new CBORMapper());
+    }
+
+    public static JacksonEmailEventCodec smile() {
+        return new JacksonEmailEventCodec(SMILE, new SmileMapper());
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] encode(EmailEventDto event) {
+        try {
+            return mapper.writeValueAsBytes(event);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public EmailEventDto decode(byte[] body) {
+        try {
+            return mapper.readValue(body, EmailEventDto.class);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.tvo.propertyregister.service.columnar;
+
+import com.tvo.propertyregister.model.event.DebtsRecountedEvent;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.event.RemoteOwnersChangedEvent;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.repository.OwnerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps an {@link OwnerColumns} snapshot of the owner repository when enabled. Owner write events, local or relayed
+ * from other instances, mark owners as changed and {@link #refresh()} patches just those rows, so reads may lag writes
+ * by one refresh interval. Writes made outside the application raise no event and are only picked up by the periodic
+ * {@link #load()}.
+ */
+@Slf4j
+@Component
+public class ColumnarOwnerStore {
+
+    public static final Set<String> OWNER_FIELDS = Set.of(
+            "id", "taxesDebt", "familyStatus", "hasChildren", "properties.propertyType", "properties.square");
+
+    private final OwnerRepository ownerRepository;
+    private final boolean enabled;
+    private final Set<Integer> changedIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuildRequested;
+    private volatile OwnerColumns columns;
+
+    public ColumnarOwnerStore(OwnerRepository ownerRepository,
+                              @Value("${property-register.columnar.enabled}") boolean enabled) {
+        this.ownerRepository = ownerRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the current snapshot, or {@code null} when the store is disabled or has not been built yet.
+     */
+    public OwnerColumns getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Rebuilds the whole snapshot, logging rather than throwing on failure. Runs at startup and then periodically.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void load() {
+        if (!this.enabled) {
+            return;
+        }
+
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Could not build the columnar owner snapshot, retrying on the next refresh", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        this.rebuildRequested = false;
+        this.changedIds.clear();
+
+        try (Stream<Owner> owners = this.ownerRepository.streamAll(OWNER_FIELDS)) {
+            this.columns = OwnerColumns.of(owners);
+        }
+
+        log.info("Built columnar owner snapshot of {} owners", this.columns.size());
+    }
+
+    public synchronized void refresh() {
+        if (!this.enabled) {
+            return;
+        }
+        if (Objects.isNull(this.columns) || this.rebuildRequested) {
+            rebuild();
+            return;
+        }
+
+        List<Integer> ids = drainChangedIds();
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        try (Stream<Owner> owners = this.ownerRepository.streamByIds(ids, OWNER_FIELDS)) {
+            this.columns = this.columns.patch(ids, owners.toList());
+        } catch (RuntimeException e) {
+            this.changedIds.addAll(ids);
+            throw e;
+        }
+    }
+
+    @EventListener
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        if (this.enabled) {
+            this.changedIds.add(event.ownerId());
+        }
+    }
+
+    @EventListener
+    public void onDebtsRecounted(DebtsRecountedEvent event) {
+        if (this.enabled) {
+            this.changedIds.addAll(event.ownerIds());
+        }
+    }
+
+    @EventListener
+    public void onRemoteOwnersChanged(RemoteOwnersChangedEvent event) {
+        if (!this.enabled) {
+            return;
+        }
+
+        if (Objects.isNull(event.ownerIds())) {
+            this.rebuildRequested = true;
+        } else {
+            this.changedIds.addAll(event.ownerIds());
+        }
+    }
+
+    private List<Integer> drainChangedIds() {
+        List<Integer> ids = new ArrayList<>();
+
+        for (Iterator<Integer> iterator = this.changedIds.iterator(); iterator.hasNext(); ) {
+            ids.add(iterator.next());
+            iterator.remove();
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,352 @@
+package com.tvo.propertyregister.service.columnar;
+
+import com.tvo.propertyregister.exception.PropertyNotFoundException;
+import com.tvo.propertyregister.exception.PropertyTypeDoesNotExistException;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.service.tax.TaxEngine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Immutable, column-oriented copy of the owner fields that debt and tax scans read. Row {@code i} holds owner
+ * {@code ids[i]} and ids ascend. Debts are {@code long} units at one shared scale, with each debt's own scale kept
+ * so it can be rebuilt exactly. The properties of row {@code i} are the {@code [propertyOffsets[i], propertyOffsets[i + 1])}
+ * slice of the property type and square columns.
+ */
+public final class OwnerColumns {
+
+    private static final FamilyStatus[] FAMILY_STATUSES = FamilyStatus.values();
+    private static final byte NONE = -1;
+    private static final int MAX_DEBT_SCALE = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_DEBT_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_DEBT_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int size;
+    private final int[] ids;
+    private final long[] debts;
+    private final byte[] debtScales;
+    private final byte[] familyStatuses;
+    private final boolean[] hasChildren;
+    private final boolean[] hasProperties;
+    private final int[] propertyOffsets;
+    private final byte[] propertyTypes;
+    private final int[] squares;
+    private final int debtScale;
+    private final int debtors;
+    private final BigDecimal totalDebt;
+
+    private OwnerColumns(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, builder.size);
+        this.debts = Arrays.copyOf(builder.debts, builder.size);
+        this.debtScales = Arrays.copyOf(builder.debtScales, builder.size);
+        this.familyStatuses = Arrays.copyOf(builder.familyStatuses, builder.size);
+        this.hasChildren = Arrays.copyOf(builder.hasChildren, builder.size);
+        this.hasProperties = Arrays.copyOf(builder.hasProperties, builder.size);
+        this.propertyOffsets = Arrays.copyOf(builder.propertyOffsets, builder.size + 1);
+        this.propertyTypes = Arrays.copyOf(builder.propertyTypes, builder.propertyCount);
+        this.squares = Arrays.copyOf(builder.squares, builder.propertyCount);
+        this.debtScale = builder.debtScale;
+
+        int debtorCount = 0;
+        long totalUnits = 0;
+        int totalScale = 0;
+        for (int row = 0; row < this.size; row++) {
+            if (this.debts[row] > 0) {
+                debtorCount++;
+                totalUnits = Math.addExact(totalUnits, this.debts[row]);
+                totalScale = Math.max(totalScale, this.debtScales[row]);
+            }
+        }
+
+        this.debtors = debtorCount;
+        this.totalDebt = debtorCount == 0
+                ? BigDecimal.ZERO
+                : BigDecimal.valueOf(totalUnits, this.debtScale).setScale(totalScale, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Builds the columns from owners streamed in ascending id order.
+     *
+     * @throws ArithmeticException if a debt does not fit the {@code long} debt column
+     */
+    public static OwnerColumns of(Stream<Owner> owners) {
+        Builder builder = new Builder(1024, 1024, 0);
+        owners.forEachOrdered(builder::add);
+
+        return builder.build();
+    }
+
+    /**
+     * Returns a copy in which the rows of {@code changedIds} are replaced by {@code changedOwners}. Changed ids
+     * without a matching owner are dropped, owners that have no row yet are inserted.
+     */
+    public OwnerColumns patch(Collection<Integer> changedIds, Collection<Owner> changedOwners) {
+        List<Owner> replacements = new ArrayList<>(changedOwners);
+        replacements.sort(Comparator.comparingInt(Owner::getId));
+
+        int[] changed = Stream.concat(changedIds.stream(), replacements.stream().map(Owner::getId))
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        Builder builder = new Builder(this.size + replacements.size(), this.squares.length + replacements.size(), this.debtScale);
+        Iterator<Owner> pending = replacements.iterator();
+        Owner next = pending.hasNext() ? pending.next() : null;
+        int nextChanged = 0;
+
+        for (int row = 0; row < this.size; row++) {
+            int id = this.ids[row];
+
+            while (Objects.nonNull(next) && next.getId() < id) {
+                builder.add(next);
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            while (nextChanged < changed.length && changed[nextChanged] < id) {
+                nextChanged++;
+            }
+
+            if (nextChanged < changed.length && changed[nextChanged] == id) {
+                if (Objects.nonNull(next) && next.getId() == id) {
+                    builder.add(next);
+                    next = pending.hasNext() ? pending.next() : null;
+                }
+            } else {
+                builder.copy(this, row);
+            }
+        }
+
+        while (Objects.nonNull(next)) {
+            builder.add(next);
+            next = pending.hasNext() ? pending.next() : null;
+        }
+
+        return builder.build();
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int id(int row) {
+        return this.ids[row];
+    }
+
+    /**
+     * Returns the row of the owner, or -1 when there is none.
+     */
+    public int row(int id) {
+        int row = Arrays.binarySearch(this.ids, 0, this.size, id);
+
+        return row < 0 ? -1 : row;
+    }
+
+    /**
+     * Returns the first row whose owner id is at least {@code id}, or {@link #size()} when there is none.
+     */
+    public int rowAtOrAfter(int id) {
+        int row = Arrays.binarySearch(this.ids, 0, this.size, id);
+
+        return row < 0 ? -row - 1 : row;
+    }
+
+    /**
+     * Returns the first row whose owner id is greater than {@code id}, or {@link #size()} when there is none.
+     */
+    public int rowAfter(int id) {
+        int row = Arrays.binarySearch(this.ids, 0, this.size, id);
+
+        return row < 0 ? -row - 1 : row + 1;
+    }
+
+    public int countDebtors() {
+        return this.debtors;
+    }
+
+    public BigDecimal totalDebt() {
+        return this.totalDebt;
+    }
+
+    public boolean isDebtor(int row) {
+        return this.debts[row] > 0;
+    }
+
+    public BigDecimal debt(int row) {
+        return BigDecimal.valueOf(this.debts[row], this.debtScale).setScale(this.debtScales[row], RoundingMode.UNNECESSARY);
+    }
+
+    public int[] debtorIds() {
+        int[] debtorIds = new int[this.debtors];
+        int next = 0;
+
+        for (int row = 0; row < this.size; row++) {
+            if (this.debts[row] > 0) {
+                debtorIds[next++] = this.ids[row];
+            }
+        }
+
+        return debtorIds;
+    }
+
+    public BigDecimal taxObligation(int row, TaxEngine taxEngine) {
+        if (!this.hasProperties[row]) {
+            throw new PropertyNotFoundException("The list of property does not exist");
+        }
+
+        int from = this.propertyOffsets[row];
+        int to = this.propertyOffsets[row + 1];
+        for (int i = from; i < to; i++) {
+            if (this.propertyTypes[i] == NONE) {
+                throw new PropertyTypeDoesNotExistException("A property of owner " + this.ids[row] + " has no property type");
+            }
+        }
+
+        byte familyStatus = this.familyStatuses[row];
+        return taxEngine.taxObligation(familyStatus == NONE ? null : FAMILY_STATUSES[familyStatus], this.hasChildren[row],
+                this.propertyTypes, this.squares, from, to);
+    }
+
+    private static final class Builder {
+
+        private int size;
+        private int propertyCount;
+        private int debtScale;
+        private int[] ids;
+        private long[] debts;
+        private byte[] debtScales;
+        private byte[] familyStatuses;
+        private boolean[] hasChildren;
+        private boolean[] hasProperties;
+        private int[] propertyOffsets;
+        private byte[] propertyTypes;
+        private int[] squares;
+
+        private Builder(int rows, int properties, int debtScale) {
+            this.debtScale = debtScale;
+            this.ids = new int[Math.max(rows, 1)];
+            this.debts = new long[this.ids.length];
+            this.debtScales = new byte[this.ids.length];
+            this.familyStatuses = new byte[this.ids.length];
+            this.hasChildren = new boolean[this.ids.length];
+            this.hasProperties = new boolean[this.ids.length];
+            this.propertyOffsets = new int[this.ids.length + 1];
+            this.propertyTypes = new byte[Math.max(properties, 1)];
+            this.squares = new int[this.propertyTypes.length];
+        }
+
+        private void add(Owner owner) {
+            BigDecimal debt = Objects.isNull(owner.getTaxesDebt()) ? BigDecimal.ZERO : owner.getTaxesDebt();
+            if (Math.abs(debt.scale()) > MAX_DEBT_SCALE) {
+                throw new ArithmeticException("Debt of owner " + owner.getId() + " has an unsupported scale " + debt.scale());
+            }
+            if (debt.scale() > this.debtScale) {
+                rescale(debt.scale());
+            }
+
+            long units = debt.setScale(this.debtScale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            FamilyStatus familyStatus = owner.getFamilyStatus();
+            List<Property> properties = owner.getProperties();
+            int row = beginRow(owner.getId(), units, (byte) debt.scale(),
+                    Objects.isNull(familyStatus) ? NONE : (byte) familyStatus.ordinal(), owner.isHasChildren(), Objects.nonNull(properties));
+
+            if (Objects.nonNull(properties)) {
+                ensurePropertyCapacity(this.propertyCount + properties.size());
+
+                for (Property property : properties) {
+                    this.propertyTypes[this.propertyCount] = Objects.isNull(property.getPropertyType())
+                            ? NONE
+                            : (byte) property.getPropertyType().ordinal();
+                    this.squares[this.propertyCount++] = property.getSquare();
+                }
+            }
+
+            this.propertyOffsets[row + 1] = this.propertyCount;
+        }
+
+        private void copy(OwnerColumns source, int sourceRow) {
+            long units = Math.multiplyExact(source.debts[sourceRow], POWERS_OF_TEN[this.debtScale - source.debtScale]);
+            int row = beginRow(source.ids[sourceRow], units, source.debtScales[sourceRow],
+                    source.familyStatuses[sourceRow], source.hasChildren[sourceRow], source.hasProperties[sourceRow]);
+
+            int from = source.propertyOffsets[sourceRow];
+            int count = source.propertyOffsets[sourceRow + 1] - from;
+            ensurePropertyCapacity(this.propertyCount + count);
+            System.arraycopy(source.propertyTypes, from, this.propertyTypes, this.propertyCount, count);
+            System.arraycopy(source.squares, from, this.squares, this.propertyCount, count);
+            this.propertyCount += count;
+
+            this.propertyOffsets[row + 1] = this.propertyCount;
+        }
+
+        private int beginRow(int id, long units, byte scale, byte familyStatus, boolean children, boolean properties) {
+            if (this.size > 0 && this.ids[this.size - 1] >= id) {
+                throw new IllegalStateException("Owners must be added in ascending id order, got " + id + " after " + this.ids[this.size - 1]);
+            }
+            if (this.size == this.ids.length) {
+                grow();
+            }
+
+            int row = this.size++;
+            this.ids[row] = id;
+            this.debts[row] = units;
+            this.debtScales[row] = scale;
+            this.familyStatuses[row] = familyStatus;
+            this.hasChildren[row] = children;
+            this.hasProperties[row] = properties;
+            this.propertyOffsets[row] = this.propertyCount;
+            return row;
+        }
+
+        private void rescale(int scale) {
+            long factor = POWERS_OF_TEN[scale - this.debtScale];
+            for (int row = 0; row < this.size; row++) {
+                this.debts[row] = Math.multiplyExact(this.debts[row], factor);
+            }
+
+            this.debtScale = scale;
+        }
+
+        private void grow() {
+            int capacity = this.ids.length * 2;
+
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.debts = Arrays.copyOf(this.debts, capacity);
+            this.debtScales = Arrays.copyOf(this.debtScales, capacity);
+            this.familyStatuses = Arrays.copyOf(this.familyStatuses, capacity);
+            this.hasChildren = Arrays.copyOf(this.hasChildren, capacity);
+            this.hasProperties = Arrays.copyOf(this.hasProperties, capacity);
+            this.propertyOffsets = Arrays.copyOf(this.propertyOffsets, capacity + 1);
+        }
+
+        private void ensurePropertyCapacity(int capacity) {
+            if (capacity > this.propertyTypes.length) {
+                int grown = Math.max(capacity, this.propertyTypes.length * 2);
+
+                this.propertyTypes = Arrays.copyOf(this.propertyTypes, grown);
+                this.squares = Arrays.copyOf(this.squares, grown);
+            }
+        }
+
+        private OwnerColumns build() {
+            return new OwnerColumns(this);
+        }
+    }
+}
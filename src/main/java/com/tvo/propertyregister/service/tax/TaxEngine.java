@@ -0,0 +1,203 @@
+package com.tvo.propertyregister.service.tax;
+
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Computes tax obligations in scaled {@code long} units against precomputed rate and leeway tables. Results,
+ * including their scale, are identical to multiplying and adding the rates as {@link BigDecimal}s; inputs that
+ * would overflow a {@code long} are computed that way instead.
+ */
+public final class TaxEngine {
+
+    private static final PropertyType[] PROPERTY_TYPES = PropertyType.values();
+    private static final int NO_FAMILY_STATUS = FamilyStatus.values().length;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+
+    // leeway in tenths and its BigDecimal scale, by [familyStatus ordinal, or NO_FAMILY_STATUS][hasChildren]
+    private static final long[][] LEEWAY_TENTHS = new long[NO_FAMILY_STATUS + 1][2];
+    private static final int[][] LEEWAY_SCALES = new int[NO_FAMILY_STATUS + 1][2];
+    private static final BigDecimal[][] LEEWAYS = new BigDecimal[NO_FAMILY_STATUS + 1][2];
+
+    static {
+        for (int status = 0; status <= NO_FAMILY_STATUS; status++) {
+            FamilyStatus familyStatus = status == NO_FAMILY_STATUS ? null : FamilyStatus.values()[status];
+
+            for (int children = 0; children < 2; children++) {
+                BigDecimal leeway = leeway(familyStatus, children == 1);
+                LEEWAYS[status][children] = leeway;
+                LEEWAY_TENTHS[status][children] = leeway.movePointRight(1).longValueExact();
+                LEEWAY_SCALES[status][children] = leeway.scale();
+            }
+        }
+    }
+
+    private final TaxRateSnapshot snapshot;
+    private final boolean complete;
+    private final boolean fixedPoint;
+    private final int unitScale;
+    private final long[] rateUnits = new long[PROPERTY_TYPES.length];
+    private final int[] rateScales = new int[PROPERTY_TYPES.length];
+
+    private TaxEngine(TaxRateSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.complete = isComplete(snapshot);
+
+        int scale = 0;
+        boolean representable = complete;
+        if (complete) {
+            for (PropertyType type : PROPERTY_TYPES) {
+                scale = Math.max(scale, snapshot.rates().get(type).scale());
+            }
+
+            for (PropertyType type : PROPERTY_TYPES) {
+                BigDecimal rate = snapshot.rates().get(type);
+                rateScales[type.ordinal()] = Math.max(rate.scale(), 0);
+
+                try {
+                    rateUnits[type.ordinal()] = rate.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+                } catch (ArithmeticException e) {
+                    representable = false;
+                }
+            }
+        }
+
+        this.unitScale = scale;
+        this.fixedPoint = representable && scale + 1 < POWERS_OF_TEN.length;
+    }
+
+    public static TaxEngine of(TaxRateSnapshot snapshot) {
+        return new TaxEngine(snapshot);
+    }
+
+    public TaxRateSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public BigDecimal taxObligation(Owner owner) {
+        List<Property> properties = owner.getProperties();
+        if (!properties.isEmpty() && !complete) {
+            snapshot.requireComplete();
+        }
+
+        int status = Objects.isNull(owner.getFamilyStatus()) ? NO_FAMILY_STATUS : owner.getFamilyStatus().ordinal();
+        int children = owner.isHasChildren() ? 1 : 0;
+
+        if (fixedPoint) {
+            try {
+                return fixedPointTaxObligation(properties, status, children);
+            } catch (ArithmeticException e) {
+                // overflowed a long, fall through to the exact path
+            }
+        }
+
+        return decimalTaxObligation(properties, status, children);
+    }
+
+    /**
+     * Same as {@link #taxObligation(Owner)} for an owner whose properties are the {@code [from, to)} slice of
+     * {@code propertyTypes} (ordinals) and {@code squares}.
+     */
+    public BigDecimal taxObligation(FamilyStatus familyStatus, boolean hasChildren,
+                                    byte[] propertyTypes, int[] squares, int from, int to) {
+        if (to > from && !complete) {
+            snapshot.requireComplete();
+        }
+
+        int status = Objects.isNull(familyStatus) ? NO_FAMILY_STATUS : familyStatus.ordinal();
+        int children = hasChildren ? 1 : 0;
+
+        if (fixedPoint) {
+            try {
+                long units = 0;
+                int baseScale = 0;
+
+                for (int i = from; i < to; i++) {
+                    int type = propertyTypes[i];
+                    units = Math.addExact(units, Math.multiplyExact(squares[i], rateUnits[type]));
+                    baseScale = Math.max(baseScale, rateScales[type]);
+                }
+
+                return fixedPointResult(units, baseScale, status, children);
+            } catch (ArithmeticException e) {
+                // overflowed a long, fall through to the exact path
+            }
+        }
+
+        BigDecimal baseTax = BigDecimal.ZERO;
+        for (int i = from; i < to; i++) {
+            baseTax = baseTax.add(BigDecimal.valueOf(squares[i]).multiply(snapshot.rate(PROPERTY_TYPES[propertyTypes[i]])));
+        }
+
+        return baseTax.multiply(LEEWAYS[status][children]);
+    }
+
+    private BigDecimal fixedPointTaxObligation(List<Property> properties, int status, int children) {
+        long units = 0;
+        int baseScale = 0;
+
+        for (int i = 0, size = properties.size(); i < size; i++) {
+            Property property = properties.get(i);
+            int type = property.getPropertyType().ordinal();
+
+            units = Math.addExact(units, Math.multiplyExact(property.getSquare(), rateUnits[type]));
+            baseScale = Math.max(baseScale, rateScales[type]);
+        }
+
+        return fixedPointResult(units, baseScale, status, children);
+    }
+
+    private BigDecimal fixedPointResult(long units, int baseScale, int status, int children) {
+        int scale = baseScale + LEEWAY_SCALES[status][children];
+        long scaled = Math.multiplyExact(units, LEEWAY_TENTHS[status][children]);
+
+        return BigDecimal.valueOf(scaled / POWERS_OF_TEN[unitScale + 1 - scale], scale);
+    }
+
+    private BigDecimal decimalTaxObligation(List<Property> properties, int status, int children) {
+        BigDecimal baseTax = BigDecimal.ZERO;
+
+        for (Property property : properties) {
+            baseTax = baseTax.add(BigDecimal.valueOf(property.getSquare()).multiply(snapshot.rate(property.getPropertyType())));
+        }
+
+        return baseTax.multiply(LEEWAYS[status][children]);
+    }
+
+    private static boolean isComplete(TaxRateSnapshot snapshot) {
+        try {
+            snapshot.requireComplete();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static BigDecimal leeway(FamilyStatus familyStatus, boolean hasChildren) {
+        BigDecimal leeway = new BigDecimal("1");
+
+        if (hasChildren) {
+            if (FamilyStatus.SINGLE.equals(familyStatus)) {
+                leeway = leeway.subtract(new BigDecimal("0.3"));
+            } else {
+                leeway = leeway.subtract(new BigDecimal("0.1"));
+            }
+        }
+        if (FamilyStatus.MARRIED.equals(familyStatus)) {
+            leeway = leeway.subtract(new BigDecimal("0.1"));
+        }
+
+        return leeway;
+    }
+}
@@ -5,4 +5,10 @@ public class Constants {
     public static final String EMAIL_TOPIC = "email-queue";
 
     public static final int TAXES_RATE_NUMBER = 3;
+
+    public static final int MAX_OWNERS_PAGE_SIZE = 1000;
+
+    public static final int MAX_TAX_OBLIGATION_BATCH_SIZE = 10_000;
+
+    public static final int MAX_IN_FLIGHT_NOTIFICATIONS = 1024;
 }
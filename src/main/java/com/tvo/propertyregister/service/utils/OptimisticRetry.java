@@ -0,0 +1,37 @@
+package com.tvo.propertyregister.service.utils;
+
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    private final int maxAttempts;
+
+    public OptimisticRetry(@Value("${property-register.concurrency.max-attempts}") int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OwnerConcurrentModificationException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+
+                log.debug("Retrying after concurrent modification, attempt {} of {}", attempt, maxAttempts);
+            }
+        }
+    }
+}
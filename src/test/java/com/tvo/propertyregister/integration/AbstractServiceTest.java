@@ -2,8 +2,10 @@ package com.tvo.propertyregister.integration;
 
 import com.tvo.propertyregister.integration.config.TestConfig;
 import com.tvo.propertyregister.integration.config.TestRedisConfig;
+import org.junit.jupiter.api.AfterEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.context.ActiveProfiles;
@@ -14,6 +16,8 @@ import org.testcontainers.containers.RabbitMQContainer;
 import java.util.Objects;
 import java.util.Set;
 
+import static java.util.Objects.requireNonNull;
+
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @Import({TestConfig.class, TestRedisConfig.class})
@@ -30,6 +34,14 @@ abstract class AbstractServiceTest {
     @Autowired
     protected RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    protected CacheManager cacheManager;
+
+    @AfterEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(cacheName -> requireNonNull(cacheManager.getCache(cacheName)).clear());
+    }
+
     protected void flushAllCache() {
         Set<String> keys = redisTemplate.keys("*");
 
@@ -1,12 +1,12 @@
 package com.tvo.propertyregister.integration;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tvo.propertyregister.integration.config.repository.OwnerTestRepository;
 import com.tvo.propertyregister.model.dto.BooleanResponseDto;
 import com.tvo.propertyregister.model.dto.EmailEventDto;
 import com.tvo.propertyregister.model.dto.EmailType;
 import com.tvo.propertyregister.model.dto.ErrorDto;
+import com.tvo.propertyregister.model.dto.NotificationJobDto;
+import com.tvo.propertyregister.model.dto.NotificationJobStatus;
 import com.tvo.propertyregister.model.owner.FamilyStatus;
 import com.tvo.propertyregister.model.owner.Owner;
 import com.tvo.propertyregister.model.property.Property;
@@ -14,10 +14,12 @@ import com.tvo.propertyregister.model.property.PropertyCondition;
 import com.tvo.propertyregister.model.property.PropertyType;
 import com.tvo.propertyregister.service.DebtorNotificationService;
 import com.tvo.propertyregister.service.EmailSender;
+import com.tvo.propertyregister.service.codec.EmailEventCodecs;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.web.client.TestRestTemplate;
@@ -28,10 +30,12 @@ import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import static com.tvo.propertyregister.service.utils.Constants.EMAIL_TOPIC;
 import static java.util.Objects.requireNonNull;
@@ -49,11 +53,13 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
     private EmailSender emailSender;
 
     @Autowired
-    private ObjectMapper mapper;
+    private EmailEventCodecs emailEventCodecs;
 
     @Autowired
     private TestRestTemplate restTemplate;
 
+    private static final long RECEIVE_TIMEOUT_MILLIS = 5000;
+
     private static final Property FIRST_HOUSE = new Property(2, PropertyType.HOUSE, "Prague", "Boris Niemcov Street 220",
             150, 5, new BigDecimal("750000"),
             LocalDate.of(2020, 4, 10),
@@ -70,6 +76,8 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
     static void setProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.data.mongodb.host", MONGO_DB_CONTAINER::getHost);
         registry.add("spring.data.mongodb.port", MONGO_DB_CONTAINER::getFirstMappedPort);
+        registry.add("spring.cache.redis.host", REDIS_CONTAINER::getHost);
+        registry.add("spring.cache.redis.port", REDIS_CONTAINER::getFirstMappedPort);
         registry.add("spring.rabbitmq.host", RABBIT_MQ_CONTAINER::getHost);
         registry.add("spring.rabbitmq.port", RABBIT_MQ_CONTAINER::getAmqpPort);
     }
@@ -77,11 +85,13 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
     @BeforeAll
     static void setUp() {
         MONGO_DB_CONTAINER.start();
+        REDIS_CONTAINER.start();
         RABBIT_MQ_CONTAINER.start();
     }
 
     @AfterAll
     public static void stopContainer() {
+        REDIS_CONTAINER.stop();
         MONGO_DB_CONTAINER.stop();
         RABBIT_MQ_CONTAINER.stop();
     }
@@ -92,7 +102,7 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
     }
 
     @Test
-    void should_send_notification_to_all_debtors() throws JsonProcessingException {
+    void should_send_notification_to_all_debtors() {
         Owner debtor = new Owner(1, "Frank", "John",
                 30, FamilyStatus.SINGLE,
                 false, "frankjohn@gmail.com",
@@ -112,26 +122,26 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
 
         ownerTestRepository.save(debtor);
 
-        ResponseEntity<BooleanResponseDto> response = restTemplate.exchange(
+        ResponseEntity<NotificationJobDto> response = restTemplate.exchange(
                 "/v1/debtors/notify",
                 HttpMethod.POST,
                 null,
-                BooleanResponseDto.class
+                NotificationJobDto.class
         );
 
-        BooleanResponseDto booleanResponseDto = requireNonNull(response.getBody());
-        String body = (String) rabbitTemplate.receiveAndConvert(EMAIL_TOPIC);
-        EmailEventDto receivedEmailDto = mapper.readValue(body, EmailEventDto.class);
+        NotificationJobDto job = requireNonNull(response.getBody());
+        Message body = rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
+        EmailEventDto receivedEmailDto = emailEventCodecs.decode(body);
 
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(booleanResponseDto.succeed());
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(1, job.total());
 
         assertTrue(Objects.nonNull(body));
         assertEquals(expectedEmailDto, receivedEmailDto);
     }
 
     @Test
-    void should_send_notification_if_there_is_more_than_one_debtor() throws JsonProcessingException {
+    void should_send_notification_if_there_is_more_than_one_debtor() {
         Owner firstDebtor = new Owner(1, "Frank", "John",
                 30, FamilyStatus.SINGLE,
                 false, "frankjohn@gmail.com",
@@ -168,31 +178,29 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
         ownerTestRepository.save(firstDebtor);
         ownerTestRepository.save(secondDebtor);
 
-        ResponseEntity<BooleanResponseDto> response = restTemplate.exchange(
+        ResponseEntity<NotificationJobDto> response = restTemplate.exchange(
                 "/v1/debtors/notify",
                 HttpMethod.POST,
                 null,
-                BooleanResponseDto.class
+                NotificationJobDto.class
         );
 
-        BooleanResponseDto booleanResponseDto = requireNonNull(response.getBody());
-        String firstBody = (String) rabbitTemplate.receiveAndConvert(EMAIL_TOPIC);
-        String secondBody = (String) rabbitTemplate.receiveAndConvert(EMAIL_TOPIC);
+        NotificationJobDto job = requireNonNull(response.getBody());
+        Message firstBody = rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
+        Message secondBody = rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
 
-        EmailEventDto firstReceivedEmailDto = mapper.readValue(firstBody, EmailEventDto.class);
-        EmailEventDto secondReceivedEmailDto = mapper.readValue(secondBody, EmailEventDto.class);
-
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(booleanResponseDto.succeed());
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(2, job.total());
 
         assertTrue(Objects.nonNull(firstBody));
         assertTrue(Objects.nonNull(secondBody));
-        assertEquals(expectedEmailDto1, firstReceivedEmailDto);
-        assertEquals(expectedEmailDto2, secondReceivedEmailDto);
+        assertEquals(Set.of(expectedEmailDto1, expectedEmailDto2), Set.of(
+                emailEventCodecs.decode(firstBody),
+                emailEventCodecs.decode(secondBody)));
     }
 
     @Test
-    void should_send_notification_if_there_is_debtor_and_owner_without_debts() throws JsonProcessingException {
+    void should_send_notification_if_there_is_debtor_and_owner_without_debts() {
         Owner debtor = new Owner(1, "Frank", "John",
                 30, FamilyStatus.SINGLE,
                 false, "frankjohn@gmail.com",
@@ -219,26 +227,67 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
         ownerTestRepository.save(debtor);
         ownerTestRepository.save(owner);
 
-        ResponseEntity<BooleanResponseDto> response = restTemplate.exchange(
+        ResponseEntity<NotificationJobDto> response = restTemplate.exchange(
                 "/v1/debtors/notify",
                 HttpMethod.POST,
                 null,
-                BooleanResponseDto.class
+                NotificationJobDto.class
         );
 
-        BooleanResponseDto booleanResponseDto = requireNonNull(response.getBody());
-        String firstBody = (String) rabbitTemplate.receiveAndConvert(EMAIL_TOPIC);
-        String secondBody = (String) rabbitTemplate.receiveAndConvert(EMAIL_TOPIC);
-        EmailEventDto receivedEvent = mapper.readValue(firstBody, EmailEventDto.class);
+        NotificationJobDto job = requireNonNull(response.getBody());
+        Message firstBody = rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
+        Message secondBody = rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
+        EmailEventDto receivedEvent = emailEventCodecs.decode(firstBody);
 
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(booleanResponseDto.succeed());
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(1, job.total());
 
         assertTrue(Objects.nonNull(firstBody));
         assertNull(secondBody);
         assertEquals(expectedEvent, receivedEvent);
     }
 
+    @Test
+    void should_report_notification_job_status() throws InterruptedException {
+        Owner debtor = new Owner(1, "Frank", "John",
+                30, FamilyStatus.SINGLE,
+                false, "frankjohn@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 5, 9),
+                new BigDecimal("10000.0"), List.of(FIRST_HOUSE));
+
+        ownerTestRepository.save(debtor);
+
+        ResponseEntity<NotificationJobDto> response = restTemplate.exchange(
+                "/v1/debtors/notify",
+                HttpMethod.POST,
+                null,
+                NotificationJobDto.class
+        );
+
+        URI jobLocation = requireNonNull(response.getHeaders().getLocation());
+        NotificationJobDto job = requireNonNull(restTemplate.getForObject(jobLocation, NotificationJobDto.class));
+
+        for (int attempt = 0; job.status() == NotificationJobStatus.RUNNING && attempt < 50; attempt++) {
+            Thread.sleep(100);
+            job = requireNonNull(restTemplate.getForObject(jobLocation, NotificationJobDto.class));
+        }
+
+        rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
+
+        assertEquals(NotificationJobStatus.COMPLETED, job.status());
+        assertEquals(1, job.total());
+        assertEquals(1, job.sent());
+        assertEquals(0, job.failed());
+    }
+
+    @Test
+    void should_not_find_unknown_notification_job() {
+        ResponseEntity<ErrorDto> response = restTemplate.getForEntity("/v1/debtors/notify/jobs/unknown", ErrorDto.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
     @Test
     void should_not_notify_debtors_if_the_list_is_empty() {
         ResponseEntity<ErrorDto> response = restTemplate.exchange(
@@ -255,7 +304,7 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
     }
 
     @Test
-    void should_send_email_event_to_rabbitmq_queue() throws JsonProcessingException {
+    void should_send_email_event_to_rabbitmq_queue() {
         EmailEventDto expectedEvent = new EmailEventDto(
                 "terebylov@ssemi.cz",
                 EmailType.ALL_DEBTOR_NOTIFICATION,
@@ -267,18 +316,18 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
 
         emailSender.send(expectedEvent);
 
-        String body = (String) rabbitTemplate.receiveAndConvert(EMAIL_TOPIC);
+        Message body = rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
 
         assertTrue(Objects.nonNull(body));
 
-        EmailEventDto receivedEvent = mapper.readValue(body, EmailEventDto.class);
+        EmailEventDto receivedEvent = emailEventCodecs.decode(body);
 
         assertTrue(Objects.nonNull(receivedEvent));
         assertEquals(expectedEvent, receivedEvent);
     }
 
     @Test
-    void should_send_notification_to_certain_debtor_by_id() throws JsonProcessingException {
+    void should_send_notification_to_certain_debtor_by_id() {
         Owner debtor = new Owner(1, "Frank", "John",
                 30, FamilyStatus.SINGLE,
                 false, "frankjohn@gmail.com",
@@ -307,8 +356,8 @@ public class DebtorNotificationServiceIntegrationTest extends AbstractServiceTes
         );
 
         BooleanResponseDto booleanResponseDto = requireNonNull(response.getBody());
-        String body = (String) rabbitTemplate.receiveAndConvert(EMAIL_TOPIC);
-        EmailEventDto receivedEvent = mapper.readValue(body, EmailEventDto.class);
+        Message body = rabbitTemplate.receive(EMAIL_TOPIC, RECEIVE_TIMEOUT_MILLIS);
+        EmailEventDto receivedEvent = emailEventCodecs.decode(body);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(booleanResponseDto.succeed());
@@ -0,0 +1,93 @@
+package com.tvo.propertyregister.integration;
+
+import com.tvo.propertyregister.integration.config.repository.OwnerTestRepository;
+import com.tvo.propertyregister.model.dto.IndexStatsDto;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.service.OwnerService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndexServiceIntegrationTest extends AbstractServiceTest {
+
+    @Autowired
+    private OwnerService ownerService;
+
+    @Autowired
+    private OwnerTestRepository ownerTestRepository;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.host", MONGO_DB_CONTAINER::getHost);
+        registry.add("spring.data.mongodb.port", MONGO_DB_CONTAINER::getFirstMappedPort);
+        registry.add("spring.cache.redis.host", REDIS_CONTAINER::getHost);
+        registry.add("spring.cache.redis.port", REDIS_CONTAINER::getFirstMappedPort);
+    }
+
+    @BeforeAll
+    public static void startContainer() {
+        MONGO_DB_CONTAINER.start();
+        REDIS_CONTAINER.start();
+    }
+
+    @AfterAll
+    public static void stopContainer() {
+        REDIS_CONTAINER.stop();
+        MONGO_DB_CONTAINER.stop();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ownerTestRepository.clear();
+    }
+
+    @Test
+    void should_serve_debtors_from_partial_debtor_index() {
+        Owner debtor = new Owner(1, "Frank", "John",
+                30, FamilyStatus.SINGLE,
+                false, "frankjohn@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 5, 9),
+                new BigDecimal("10000.0"), List.of());
+
+        ownerTestRepository.save(debtor);
+        ownerService.findDebtors();
+
+        ResponseEntity<List<IndexStatsDto>> response = restTemplate.exchange(
+                "/v1/admin/indexes",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                });
+
+        IndexStatsDto debtorsIndex = requireNonNull(response.getBody()).stream()
+                .filter(stats -> stats.name().equals("taxesDebt_debtors"))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("owners", debtorsIndex.collection());
+        assertTrue(debtorsIndex.accesses() > 0);
+    }
+}
@@ -1,5 +1,9 @@
 package com.tvo.propertyregister.integration;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.cache.CacheNames;
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
 import com.tvo.propertyregister.integration.config.repository.OwnerTestRepository;
 import com.tvo.propertyregister.integration.config.repository.PropertyTestRepository;
 import com.tvo.propertyregister.integration.config.repository.TaxRateTestRepository;
@@ -7,25 +11,36 @@ import com.tvo.propertyregister.model.TaxRate;
 import com.tvo.propertyregister.model.dto.*;
 import com.tvo.propertyregister.model.owner.FamilyStatus;
 import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.owner.TaxObligation;
 import com.tvo.propertyregister.model.property.Property;
 import com.tvo.propertyregister.model.property.PropertyCondition;
 import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.repository.OwnerRepository;
 import com.tvo.propertyregister.service.OwnerService;
 import com.tvo.propertyregister.service.PropertyService;
+import com.tvo.propertyregister.service.TaxRateService;
+import org.bson.Document;
+import org.bson.types.Decimal128;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 import static org.junit.jupiter.api.Assertions.*;
@@ -90,6 +105,18 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private TaxRateService taxRateService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
     @DynamicPropertySource
     static void setProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.data.mongodb.host", MONGO_DB_CONTAINER::getHost);
@@ -155,6 +182,64 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
         assertEquals(List.of(SINGLE_OWNER_WITHOUT_CHILDREN), actualOwners);
     }
 
+    @Test
+    void should_return_owners_page_by_page() {
+        ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
+        ownerService.addNewOwner(MARRIED_OWNER_WITH_CHILDREN);
+        ownerService.addNewOwner(DEBTOR);
+
+        ResponseEntity<List<Owner>> firstPage = restTemplate.exchange(
+                "/v1/owners?limit=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                });
+
+        ResponseEntity<List<Owner>> secondPage = restTemplate.exchange(
+                "/v1/owners?limit=2&afterId=" + MARRIED_OWNER_WITH_CHILDREN.getId(),
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                });
+
+        assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+        assertEquals(List.of(SINGLE_OWNER_WITHOUT_CHILDREN, MARRIED_OWNER_WITH_CHILDREN), firstPage.getBody());
+        assertTrue(requireNonNull(firstPage.getHeaders().getFirst(HttpHeaders.LINK)).contains("afterId=" + MARRIED_OWNER_WITH_CHILDREN.getId()));
+        assertEquals(List.of(DEBTOR), secondPage.getBody());
+        assertNull(secondPage.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    void should_not_return_owners_page_if_limit_is_too_large() {
+        ResponseEntity<ErrorDto> response = restTemplate.exchange(
+                "/v1/owners?limit=100000",
+                HttpMethod.GET,
+                null,
+                ErrorDto.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void should_stream_all_owners_as_ndjson() throws JsonProcessingException {
+        ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
+        ownerService.addNewOwner(DEBTOR);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/v1/owners/stream",
+                HttpMethod.GET,
+                null,
+                String.class);
+
+        List<String> lines = requireNonNull(response.getBody()).lines().toList();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, requireNonNull(response.getHeaders().getContentType()));
+        assertEquals(2, lines.size());
+        assertEquals(SINGLE_OWNER_WITHOUT_CHILDREN, mapper.readValue(lines.get(0), Owner.class));
+        assertEquals(DEBTOR, mapper.readValue(lines.get(1), Owner.class));
+    }
+
     @Test
     void should_return_owner_by_id() {
         ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
@@ -204,6 +289,38 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
         assertEquals(List.of(), actualDebtors);
     }
 
+    @Test
+    void should_return_only_requested_fields_of_debtors() {
+        ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
+        ownerService.addNewOwner(DEBTOR);
+
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+                "/v1/owners/debtors?fields=id,email,taxesDebt",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                });
+
+        List<Map<String, Object>> debtors = requireNonNull(response.getBody());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, debtors.size());
+        assertEquals(Set.of("id", "email", "taxesDebt"), debtors.get(0).keySet());
+        assertEquals(DEBTOR.getEmail(), debtors.get(0).get("email"));
+    }
+
+    @Test
+    void should_not_return_owners_with_unknown_field() {
+        ResponseEntity<ErrorDto> response = restTemplate.exchange(
+                "/v1/owners?fields=id,password",
+                HttpMethod.GET,
+                null,
+                ErrorDto.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(requireNonNull(response.getBody()).detail().contains("password"));
+    }
+
     @Test
     void should_return_all_debtors_when_the_list_is_empty() {
         ResponseEntity<List<Owner>> response = restTemplate.exchange(
@@ -337,7 +454,8 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
                 owner.getEmail(),
                 owner.getPhoneNumber(),
                 owner.getBirthday(),
-                owner.getTaxesDebt()
+                owner.getTaxesDebt(),
+                owner.getVersion()
         );
 
         HttpEntity<UpdateOwnerDto> updateOwnerDtoHttpEntity = new HttpEntity<>(updateOwnerDto);
@@ -364,6 +482,63 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
         assertTrue(compareOwners(owner, actualOwner));
     }
 
+    @Test
+    void should_serve_cached_owner_until_it_is_updated() {
+        Owner owner = new Owner(1, "John", "Smith",
+                30, FamilyStatus.MARRIED,
+                false, "johnsmith@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 8, 9),
+                new BigDecimal("0"), List.of(FLAT));
+
+        ownerService.addNewOwner(owner);
+
+        restTemplate.getForEntity("/v1/owners/" + owner.getId(), Owner.class);
+
+        assertNotNull(requireNonNull(cacheManager.getCache(CacheNames.OWNERS)).get(owner.getId()));
+
+        UpdateOwnerDto updateOwnerDto = new UpdateOwnerDto(
+                "Frank",
+                owner.getLastName(),
+                owner.getAge(),
+                owner.getFamilyStatus(),
+                owner.isHasChildren(),
+                owner.getEmail(),
+                owner.getPhoneNumber(),
+                owner.getBirthday(),
+                owner.getTaxesDebt(),
+                owner.getVersion()
+        );
+
+        restTemplate.exchange("/v1/owners/" + owner.getId(), HttpMethod.PUT, new HttpEntity<>(updateOwnerDto), BooleanResponseDto.class);
+
+        assertNull(requireNonNull(cacheManager.getCache(CacheNames.OWNERS)).get(owner.getId()));
+
+        Owner actualOwner = requireNonNull(restTemplate.getForEntity("/v1/owners/" + owner.getId(), Owner.class).getBody());
+
+        assertEquals("Frank", actualOwner.getFirstName());
+    }
+
+    @Test
+    void should_evict_cached_debtor_when_debts_are_recounted() {
+        Owner owner = new Owner(1, "John", "Smith",
+                30, FamilyStatus.MARRIED,
+                false, "johnsmith@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 8, 9),
+                new BigDecimal("100"), List.of(FLAT));
+
+        ownerService.addNewOwner(owner);
+        ownerService.getOwnerById(owner.getId());
+        ownerService.findDebtors(Set.of());
+
+        ownerService.recountDebtForDebtors();
+
+        assertNull(requireNonNull(cacheManager.getCache(CacheNames.OWNERS)).get(owner.getId()));
+        assertNull(requireNonNull(cacheManager.getCache(CacheNames.DEBTORS)).get("[]"));
+        assertEquals(0, new BigDecimal("105.0").compareTo(ownerService.getOwnerById(owner.getId()).getTaxesDebt()));
+    }
+
     @Test
     void should_not_update_owner_and_throw_exception_if_does_not_exist() {
         HttpEntity<UpdateOwnerDto> request = new HttpEntity<>(null);
@@ -389,7 +564,8 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
                 SINGLE_OWNER_WITHOUT_CHILDREN.getEmail(),
                 SINGLE_OWNER_WITHOUT_CHILDREN.getPhoneNumber(),
                 SINGLE_OWNER_WITHOUT_CHILDREN.getBirthday(),
-                SINGLE_OWNER_WITHOUT_CHILDREN.getTaxesDebt()
+                SINGLE_OWNER_WITHOUT_CHILDREN.getTaxesDebt(),
+                SINGLE_OWNER_WITHOUT_CHILDREN.getVersion()
         ));
 
         ResponseEntity<ErrorDto> response = restTemplate.exchange(
@@ -404,6 +580,42 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
         assertTrue(response.getBody().detail().contains("does not exists"));
     }
 
+    @Test
+    void should_not_update_owner_changed_since_client_read_it() {
+        Owner owner = new Owner(1, "John", "Smith",
+                30, FamilyStatus.MARRIED,
+                false, "johnsmith@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 8, 9),
+                new BigDecimal("100"), List.of(FLAT));
+
+        ownerService.addNewOwner(owner);
+        ownerService.recountDebtForDebtors();
+
+        HttpEntity<UpdateOwnerDto> request = new HttpEntity<>(new UpdateOwnerDto(
+                "Frank",
+                owner.getLastName(),
+                owner.getAge(),
+                owner.getFamilyStatus(),
+                owner.isHasChildren(),
+                owner.getEmail(),
+                owner.getPhoneNumber(),
+                owner.getBirthday(),
+                owner.getTaxesDebt(),
+                owner.getVersion()
+        ));
+
+        ResponseEntity<ErrorDto> response = restTemplate.exchange(
+                "/v1/owners/" + owner.getId(),
+                HttpMethod.PUT,
+                request,
+                ErrorDto.class
+        );
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(0, new BigDecimal("105.0").compareTo(ownerService.getOwnerById(owner.getId()).getTaxesDebt()));
+    }
+
     @Test
     void should_remove_owner() {
         ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
@@ -459,6 +671,72 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
         assertEquals(expectedTaxObligation, actualTaxObligation);
     }
 
+    @Test
+    void should_materialise_tax_obligation_on_write() {
+        ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
+        propertyService.add(SINGLE_OWNER_WITHOUT_CHILDREN.getId(), FLAT);
+
+        TaxObligation taxObligation = ownerRepository.findTaxObligation(SINGLE_OWNER_WITHOUT_CHILDREN.getId());
+
+        assertEquals(new BigDecimal("420"), taxObligation.amount());
+        assertTrue(taxObligation.isCurrent(taxRateService.getSnapshot().version()));
+    }
+
+    @Test
+    void should_recompute_materialised_tax_obligations_when_tax_rate_changes() throws InterruptedException {
+        ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
+        propertyService.add(SINGLE_OWNER_WITHOUT_CHILDREN.getId(), FLAT);
+
+        taxRateService.changeTax(PropertyType.FLAT, new BigDecimal("10"));
+
+        TaxObligation taxObligation = ownerRepository.findTaxObligation(SINGLE_OWNER_WITHOUT_CHILDREN.getId());
+        for (int attempt = 0; !taxObligation.isCurrent(taxRateService.getSnapshot().version()) && attempt < 50; attempt++) {
+            Thread.sleep(100);
+            taxObligation = ownerRepository.findTaxObligation(SINGLE_OWNER_WITHOUT_CHILDREN.getId());
+        }
+
+        assertEquals(0, new BigDecimal("700").compareTo(taxObligation.amount()));
+    }
+
+    @Test
+    void should_stream_tax_obligations_for_batch_of_owners() throws JsonProcessingException {
+        ownerService.addNewOwner(SINGLE_OWNER_WITHOUT_CHILDREN);
+        propertyService.add(SINGLE_OWNER_WITHOUT_CHILDREN.getId(), FLAT);
+        ownerService.addNewOwner(MARRIED_OWNER_WITH_CHILDREN);
+        propertyService.add(MARRIED_OWNER_WITH_CHILDREN.getId(), FIRST_HOUSE);
+
+        TaxObligationBatchRequest request = new TaxObligationBatchRequest(
+                List.of(SINGLE_OWNER_WITHOUT_CHILDREN.getId(), MARRIED_OWNER_WITH_CHILDREN.getId(), INVALID_ID), null, null);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/v1/owners/tax-obligations",
+                HttpMethod.POST,
+                new HttpEntity<>(request),
+                String.class);
+
+        Set<OwnerTaxObligationDto> obligations = new HashSet<>();
+        for (String line : requireNonNull(response.getBody()).lines().toList()) {
+            obligations.add(mapper.readValue(line, OwnerTaxObligationDto.class));
+        }
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, requireNonNull(response.getHeaders().getContentType()));
+        assertEquals(Set.of(
+                new OwnerTaxObligationDto(SINGLE_OWNER_WITHOUT_CHILDREN.getId(), new BigDecimal("420")),
+                new OwnerTaxObligationDto(MARRIED_OWNER_WITH_CHILDREN.getId(), new BigDecimal("960.0"))), obligations);
+    }
+
+    @Test
+    void should_reject_tax_obligation_batch_without_owner_ids() {
+        ResponseEntity<ErrorDto> response = restTemplate.exchange(
+                "/v1/owners/tax-obligations",
+                HttpMethod.POST,
+                new HttpEntity<>(new TaxObligationBatchRequest(List.of(), null, null)),
+                ErrorDto.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     void should_count_tax_obligations_with_multiple_leeway() {
         ownerService.addNewOwner(MARRIED_OWNER_WITH_CHILDREN);
@@ -644,6 +922,78 @@ public class OwnerServiceIntegrationTest extends AbstractServiceTest {
         assertEquals(expectedTotalDebt, actualTotalDebt);
     }
 
+    @Test
+    void should_keep_total_debt_in_sync_after_update_and_remove() {
+        Owner firstOwner = new Owner(1, "John", "Smith",
+                30, FamilyStatus.SINGLE,
+                true, "johnsmith@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 8, 9),
+                new BigDecimal("15000.0"), List.of(FLAT));
+        Owner secondOwner = new Owner(2, "Frank", "John",
+                30, FamilyStatus.SINGLE,
+                false, "frankjohn@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 5, 9),
+                new BigDecimal("10000.0"), List.of(SECOND_HOUSE));
+
+        ownerService.addNewOwner(firstOwner);
+        ownerService.addNewOwner(secondOwner);
+
+        ownerService.updateInfo(firstOwner.getId(), firstOwner.withTaxesDebt(new BigDecimal("5000.0")));
+        ownerService.removeOwner(secondOwner.getId());
+
+        ResponseEntity<BigDecimal> response = restTemplate.exchange(
+                "/v1/owners/totalDebt",
+                HttpMethod.GET,
+                null,
+                BigDecimal.class
+        );
+
+        BigDecimal actualTotalDebt = requireNonNull(response.getBody());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new BigDecimal("5000.0"), actualTotalDebt);
+    }
+
+    @Test
+    void should_reject_owner_write_based_on_stale_version() {
+        Owner owner = new Owner(1, "Frank", "John",
+                30, FamilyStatus.SINGLE,
+                false, "frankjohn@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 5, 9),
+                new BigDecimal("10000.0"), List.of());
+
+        ownerService.addNewOwner(owner);
+        Owner staleOwner = ownerService.getOwnerById(owner.getId());
+
+        ownerService.updateInfo(owner.getId(), owner.withTaxesDebt(new BigDecimal("5000.0")));
+
+        assertEquals(staleOwner.getVersion() + 1, ownerService.getOwnerById(owner.getId()).getVersion());
+        assertThrows(OwnerConcurrentModificationException.class,
+                () -> ownerRepository.update(owner.getId(), staleOwner.withTaxesDebt(new BigDecimal("0"))));
+    }
+
+    @Test
+    void should_store_money_amounts_as_decimal128() {
+        Owner debtor = new Owner(1, "Frank", "John",
+                30, FamilyStatus.SINGLE,
+                false, "frankjohn@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 5, 9),
+                new BigDecimal("10000.55"), List.of(SECOND_HOUSE));
+
+        ownerService.addNewOwner(debtor);
+
+        Document stored = requireNonNull(mongoTemplate.findById(debtor.getId(), Document.class, "owners"));
+        Document storedProperty = stored.getList("properties", Document.class).get(0);
+
+        assertEquals(new Decimal128(new BigDecimal("10000.55")), stored.get("taxesDebt"));
+        assertEquals(new Decimal128(new BigDecimal("1000000")), storedProperty.get("cost"));
+        assertEquals(List.of(debtor), ownerService.findDebtors());
+    }
+
     @Test
     void should_return_zero_if_there_is_no_debtors() {
         Owner firstOwner = new Owner(1, "John", "Smith",
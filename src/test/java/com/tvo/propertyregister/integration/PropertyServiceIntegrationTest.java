@@ -28,6 +28,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static java.util.Objects.requireNonNull;
 import static org.junit.jupiter.api.Assertions.*;
@@ -75,15 +76,19 @@ public class PropertyServiceIntegrationTest extends AbstractServiceTest {
     static void setProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.data.mongodb.host", MONGO_DB_CONTAINER::getHost);
         registry.add("spring.data.mongodb.port", MONGO_DB_CONTAINER::getFirstMappedPort);
+        registry.add("spring.cache.redis.host", REDIS_CONTAINER::getHost);
+        registry.add("spring.cache.redis.port", REDIS_CONTAINER::getFirstMappedPort);
     }
 
     @BeforeAll
     public static void startContainer() {
         MONGO_DB_CONTAINER.start();
+        REDIS_CONTAINER.start();
     }
 
     @AfterAll
     public static void stopContainer() {
+        REDIS_CONTAINER.stop();
         MONGO_DB_CONTAINER.stop();
     }
 
@@ -365,6 +370,28 @@ public class PropertyServiceIntegrationTest extends AbstractServiceTest {
         assertEquals(List.of(FIRST_PROPERTY, property), actualOwner.getProperties());
     }
 
+    @Test
+    void should_keep_every_property_when_added_concurrently() {
+        Owner owner = new Owner(1, "Frank", "John",
+                30, FamilyStatus.SINGLE,
+                false, "frankjohn@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 5, 9),
+                new BigDecimal("0"), new ArrayList<>());
+
+        ownerService.addNewOwner(owner);
+
+        IntStream.range(0, 20).parallel()
+                .forEach(i -> propertyService.add(owner.getId(), new Property(0, PropertyType.FLAT, "Prague", "Evropska " + i,
+                        70, 3, new BigDecimal("500000"),
+                        LocalDate.of(2020, 4, 10),
+                        LocalDate.of(2012, 1, 9),
+                        PropertyCondition.GOOD)));
+
+        Owner actualOwner = ownerService.getOwnerById(owner.getId());
+
+        assertEquals(20, actualOwner.getProperties().size());
+    }
 
     @Test
     void should_not_update_property_for_certain_owner_if_owner_id_is_wrong() {
@@ -35,15 +35,19 @@ public class TaxRateServiceIntegrationTest extends AbstractServiceTest {
     static void setProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.data.mongodb.host", MONGO_DB_CONTAINER::getHost);
         registry.add("spring.data.mongodb.port", MONGO_DB_CONTAINER::getFirstMappedPort);
+        registry.add("spring.cache.redis.host", REDIS_CONTAINER::getHost);
+        registry.add("spring.cache.redis.port", REDIS_CONTAINER::getFirstMappedPort);
     }
 
     @BeforeAll
     public static void startContainer() {
         MONGO_DB_CONTAINER.start();
+        REDIS_CONTAINER.start();
     }
 
     @AfterAll
     public static void stopContainer() {
+        REDIS_CONTAINER.stop();
         MONGO_DB_CONTAINER.stop();
     }
 
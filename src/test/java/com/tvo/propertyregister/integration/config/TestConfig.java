@@ -6,6 +6,7 @@ import com.mongodb.client.MongoClients;
 import com.tvo.propertyregister.integration.config.repository.OwnerTestRepository;
 import com.tvo.propertyregister.integration.config.repository.PropertyTestRepository;
 import com.tvo.propertyregister.integration.config.repository.TaxRateTestRepository;
+import com.tvo.propertyregister.service.TaxRateService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -38,8 +39,8 @@ public class TestConfig {
     }
 
     @Bean
-    public TaxRateTestRepository taxRatesTestRepository(MongoTemplate mongoTemplate) {
-        return new TaxRateTestRepository(mongoTemplate);
+    public TaxRateTestRepository taxRatesTestRepository(MongoTemplate mongoTemplate, TaxRateService taxRateService) {
+        return new TaxRateTestRepository(mongoTemplate, taxRateService);
     }
 
     @Bean
@@ -3,6 +3,7 @@ package com.tvo.propertyregister.integration.config.repository;
 import com.mongodb.client.result.UpdateResult;
 import com.tvo.propertyregister.model.TaxRate;
 import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.service.TaxRateService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -18,6 +19,7 @@ public class TaxRateTestRepository {
     private static final String TAX_RATE_COLLECTION = "taxRates";
 
     private final MongoTemplate mongoTemplate;
+    private final TaxRateService taxRateService;
 
     public List<TaxRate> findAll() {
         Query criteria = new Query();
@@ -33,6 +35,7 @@ public class TaxRateTestRepository {
         mongoTemplate.insert(flatRate, TAX_RATE_COLLECTION);
         mongoTemplate.insert(houseRate, TAX_RATE_COLLECTION);
         mongoTemplate.insert(officeRate, TAX_RATE_COLLECTION);
+        taxRateService.reloadSnapshot();
     }
 
     public void insertTaxRate(TaxRate newRate) {
@@ -41,9 +44,11 @@ public class TaxRateTestRepository {
         }
 
         mongoTemplate.insert(newRate, TAX_RATE_COLLECTION);
+        taxRateService.reloadSnapshot();
     }
 
     public void clear() {
         mongoTemplate.remove(new Query(), TAX_RATE_COLLECTION);
+        taxRateService.reloadSnapshot();
     }
 }
@@ -0,0 +1,114 @@
+package com.tvo.propertyregister.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tvo.propertyregister.cache.CacheInvalidator;
+import com.tvo.propertyregister.cache.RefreshPolicy;
+import com.tvo.propertyregister.cache.TwoTierCacheManager;
+import com.tvo.propertyregister.model.event.DebtsRecountedEvent;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
+import com.tvo.propertyregister.model.property.PropertyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.tvo.propertyregister.cache.CacheNames.DEBTORS;
+import static com.tvo.propertyregister.cache.CacheNames.OWNERS;
+import static com.tvo.propertyregister.cache.CacheNames.TAX_RATES;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheInvalidatorTest {
+
+    private static final RefreshPolicy POLICY = new RefreshPolicy(Duration.ofMinutes(1), Duration.ZERO, 0);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private Cache owners;
+    private Cache debtors;
+    private Cache taxRates;
+    private CacheInvalidator cacheInvalidator;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager(OWNERS, DEBTORS, TAX_RATES);
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(Map.of(
+                OWNERS, localTier(),
+                DEBTORS, localTier(),
+                TAX_RATES, localTier()), remoteCacheManager, redisTemplate, new ObjectMapper(), Clock.systemUTC());
+
+        owners = cacheManager.getCache(OWNERS);
+        debtors = cacheManager.getCache(DEBTORS);
+        taxRates = cacheManager.getCache(TAX_RATES);
+        cacheInvalidator = new CacheInvalidator(cacheManager);
+
+        owners.put(1, "John");
+        owners.put(2, "Alice");
+        debtors.put("[]", List.of("John"));
+        taxRates.put("all", List.of("FLAT"));
+    }
+
+    @Test
+    void should_evict_only_changed_owner_when_owner_is_not_a_debtor() {
+        cacheInvalidator.onOwnerChanged(new OwnerChangedEvent(1, false, false));
+
+        assertNull(owners.get(1));
+        assertNotNull(owners.get(2));
+        assertNotNull(debtors.get("[]"));
+    }
+
+    @Test
+    void should_evict_owner_and_debtor_lists_when_debtor_changes() {
+        cacheInvalidator.onOwnerChanged(new OwnerChangedEvent(1, true, false));
+
+        assertNull(owners.get(1));
+        assertNull(debtors.get("[]"));
+    }
+
+    @Test
+    void should_evict_recounted_owners_and_debtor_lists() {
+        owners.put(3, "Bob");
+
+        cacheInvalidator.onDebtsRecounted(new DebtsRecountedEvent(List.of(1, 3)));
+
+        assertNull(owners.get(1));
+        assertNull(owners.get(3));
+        assertNotNull(owners.get(2));
+        assertNull(debtors.get("[]"));
+    }
+
+    @Test
+    void should_clear_tax_rates_when_rate_changes() {
+        cacheInvalidator.onTaxRateChanged(new TaxRateChangedEvent(PropertyType.FLAT));
+
+        assertNull(taxRates.get("all"));
+        assertNotNull(owners.get(1));
+    }
+
+    @Test
+    void should_not_fail_write_when_cache_is_unavailable() {
+        doThrow(new IllegalStateException("Redis is down")).when(redisTemplate).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), anyString());
+
+        assertDoesNotThrow(() -> cacheInvalidator.onOwnerChanged(new OwnerChangedEvent(1, true, false)));
+        assertNull(owners.get(1));
+    }
+
+    private static TwoTierCacheManager.LocalTier localTier() {
+        return new TwoTierCacheManager.LocalTier(Caffeine.newBuilder().maximumSize(100).build(), POLICY);
+    }
+}
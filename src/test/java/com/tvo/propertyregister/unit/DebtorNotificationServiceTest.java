@@ -3,8 +3,11 @@ package com.tvo.propertyregister.unit;
 import com.tvo.propertyregister.exception.DontHaveTaxDebtsException;
 import com.tvo.propertyregister.exception.NoDebtorsInDebtorListException;
 import com.tvo.propertyregister.exception.NoSuchOwnerException;
+import com.tvo.propertyregister.exception.NotificationJobNotFoundException;
 import com.tvo.propertyregister.model.dto.EmailEventDto;
 import com.tvo.propertyregister.model.dto.EmailType;
+import com.tvo.propertyregister.model.dto.NotificationJobDto;
+import com.tvo.propertyregister.model.dto.NotificationJobStatus;
 import com.tvo.propertyregister.model.owner.FamilyStatus;
 import com.tvo.propertyregister.model.owner.Owner;
 import com.tvo.propertyregister.service.DebtorNotificationService;
@@ -17,11 +20,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -57,12 +59,13 @@ public class DebtorNotificationServiceTest {
                 EmailType.ALL_DEBTOR_NOTIFICATION,
                 params);
 
-        when(ownerService.findDebtors()).thenReturn(List.of(debtor));
+        when(ownerService.countDebtors()).thenReturn(1L);
+        when(ownerService.streamDebtors(anySet())).thenReturn(Stream.of(debtor));
 
-        boolean result = debtorNotificationService.notifyAllDebtors();
+        NotificationJobDto job = debtorNotificationService.notifyAllDebtors();
 
-        verify(emailSender, times(1)).send(eq(expectedEmailDto));
-        assertTrue(result);
+        verify(emailSender, timeout(1000).times(1)).send(eq(expectedEmailDto));
+        assertEquals(1, job.total());
     }
 
     @Test
@@ -77,25 +80,74 @@ public class DebtorNotificationServiceTest {
                 FamilyStatus.SINGLE
         );
 
-        List<Owner> debtors = List.of(debtor, debtor2);
+        when(ownerService.countDebtors()).thenReturn(2L);
+        when(ownerService.streamDebtors(anySet())).thenReturn(Stream.of(debtor, debtor2));
 
-        when(ownerService.findDebtors()).thenReturn(debtors);
+        NotificationJobDto job = debtorNotificationService.notifyAllDebtors();
 
-        boolean result = debtorNotificationService.notifyAllDebtors();
-
-        verify(emailSender, times(2)).send(any(EmailEventDto.class));
-        assertTrue(result);
+        verify(emailSender, timeout(1000).times(2)).send(any(EmailEventDto.class));
+        assertEquals(2, job.total());
     }
 
     @Test
     void should_notify_all_debtors_when_no_debtors() {
-        when(ownerService.findDebtors()).thenReturn(List.of());
+        when(ownerService.countDebtors()).thenReturn(0L);
 
         assertThrows(NoDebtorsInDebtorListException.class, () -> debtorNotificationService.notifyAllDebtors());
 
+        verify(ownerService, never()).streamDebtors(anySet());
         verify(emailSender, never()).send(any());
     }
 
+    @Test
+    void should_report_progress_of_notification_job() {
+        Owner debtor2 = new Owner(
+                2,
+                "frank@ssemi.cz",
+                "Frank",
+                "John",
+                new BigDecimal("10000"),
+                false,
+                FamilyStatus.SINGLE
+        );
+
+        when(ownerService.countDebtors()).thenReturn(2L);
+        when(ownerService.streamDebtors(anySet())).thenReturn(Stream.of(debtor, debtor2));
+        lenient().doThrow(new IllegalStateException("Broker is unavailable"))
+                .when(emailSender).send(argThat(event -> event.email().equals(debtor2.getEmail())));
+
+        String jobId = debtorNotificationService.notifyAllDebtors().id();
+
+        NotificationJobDto job = awaitFinished(jobId);
+
+        assertEquals(NotificationJobStatus.COMPLETED, job.status());
+        assertEquals(1, job.sent());
+        assertEquals(1, job.failed());
+        assertNotNull(job.finishedAt());
+    }
+
+    @Test
+    void should_skip_debtors_that_cannot_be_notified() {
+        Owner withoutName = new Owner(2, "frank@ssemi.cz", null, null, new BigDecimal("10000"), false, FamilyStatus.SINGLE);
+        Owner withoutEmail = new Owner(3, null, "Alice", "Wonder", new BigDecimal("500"), false, FamilyStatus.SINGLE);
+
+        when(ownerService.countDebtors()).thenReturn(2L);
+        when(ownerService.streamDebtors(anySet())).thenReturn(Stream.of(withoutName, withoutEmail));
+
+        NotificationJobDto job = awaitFinished(debtorNotificationService.notifyAllDebtors().id());
+
+        verify(emailSender, times(1)).send(eq(new EmailEventDto("frank@ssemi.cz", EmailType.ALL_DEBTOR_NOTIFICATION,
+                Map.of("debt", "10000", "numberOfDebtors", "2"))));
+        assertEquals(NotificationJobStatus.COMPLETED, job.status());
+        assertEquals(1, job.sent());
+        assertEquals(1, job.failed());
+    }
+
+    @Test
+    void should_not_return_unknown_notification_job() {
+        assertThrows(NotificationJobNotFoundException.class, () -> debtorNotificationService.getJob("unknown"));
+    }
+
     @Test
     void should_notify_debtor_by_id() {
         String hasChildren = debtor.isHasChildren() ? "Yes" : "No";
@@ -140,4 +192,16 @@ public class DebtorNotificationServiceTest {
 
         verify(emailSender, never()).send(any());
     }
+
+    private NotificationJobDto awaitFinished(String jobId) {
+        long deadline = System.currentTimeMillis() + 1000;
+        NotificationJobDto job = debtorNotificationService.getJob(jobId);
+
+        while (job.status() == NotificationJobStatus.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+            job = debtorNotificationService.getJob(jobId);
+        }
+
+        return job;
+    }
 }
@@ -0,0 +1,63 @@
+package com.tvo.propertyregister.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.model.dto.EmailType;
+import com.tvo.propertyregister.service.codec.EmailEventCodec;
+import com.tvo.propertyregister.service.codec.EmailEventCodecs;
+import com.tvo.propertyregister.service.codec.JacksonEmailEventCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailEventCodecsTest {
+
+    private final EmailEventDto event = new EmailEventDto(
+            "terebylov@ssemi.cz",
+            EmailType.ALL_DEBTOR_NOTIFICATION,
+            Map.of("firstName", "John",
+                    "lastName", "Doe",
+                    "debt", "100.0",
+                    "numberOfDebtors", "1"));
+
+    private final EmailEventCodecs codecs = new EmailEventCodecs(List.of(
+            JacksonEmailEventCodec.json(new ObjectMapper()),
+            JacksonEmailEventCodec.cbor(),
+            JacksonEmailEventCodec.smile()
+    ), JacksonEmailEventCodec.SMILE);
+
+    @Test
+    void should_decode_message_with_codec_selected_by_content_type() {
+        for (String contentType : List.of(JacksonEmailEventCodec.JSON, JacksonEmailEventCodec.CBOR, JacksonEmailEventCodec.SMILE)) {
+            EmailEventCodec codec = codecs.forContentType(contentType);
+            Message message = MessageBuilder.withBody(codec.encode(event)).setContentType(contentType).build();
+
+            assertEquals(event, codecs.decode(message));
+        }
+    }
+
+    @Test
+    void should_encode_binary_formats_smaller_than_json() {
+        int jsonSize = codecs.forContentType(JacksonEmailEventCodec.JSON).encode(event).length;
+
+        assertTrue(codecs.forContentType(JacksonEmailEventCodec.CBOR).encode(event).length < jsonSize);
+        assertTrue(codecs.forContentType(JacksonEmailEventCodec.SMILE).encode(event).length < jsonSize);
+    }
+
+    @Test
+    void should_write_with_configured_content_type() {
+        assertEquals(JacksonEmailEventCodec.SMILE, codecs.writer().contentType());
+    }
+
+    @Test
+    void should_reject_unknown_content_type() {
+        Message message = MessageBuilder.withBody(new byte[0]).setContentType("text/plain").build();
+
+        assertThrows(IllegalArgumentException.class, () -> codecs.decode(message));
+    }
+}
@@ -0,0 +1,219 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.exception.NoSuchOwnerException;
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
+import com.tvo.propertyregister.exception.UpdateOwnerFailedException;
+import com.tvo.propertyregister.model.owner.DebtRecount;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.owner.TaxObligation;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyCondition;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.repository.inmemory.InMemoryOwnerRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryOwnerRepositoryTest {
+
+    private final InMemoryOwnerRepository ownerRepository = new InMemoryOwnerRepository();
+
+    @Test
+    public void should_assign_sequential_ids_and_find_owner_by_id() {
+        Owner first = owner("0");
+        Owner second = owner("0");
+
+        ownerRepository.save(first);
+        ownerRepository.save(second);
+
+        assertEquals(1, first.getId());
+        assertEquals(2, second.getId());
+        assertEquals(second, ownerRepository.findById(2));
+        assertThrows(NoSuchOwnerException.class, () -> ownerRepository.findById(3));
+    }
+
+    @Test
+    public void should_return_debtors_with_largest_debt_first() {
+        ownerRepository.save(owner("100"));
+        ownerRepository.save(owner("0"));
+        ownerRepository.save(owner("2500.5"));
+        ownerRepository.save(owner("100.0"));
+
+        List<Integer> debtorIds = ownerRepository.findDebtors().stream().map(Owner::getId).toList();
+
+        assertEquals(List.of(3, 1, 4), debtorIds);
+        assertEquals(3, ownerRepository.countDebtors());
+    }
+
+    @Test
+    public void should_maintain_total_debt_across_writes() {
+        ownerRepository.save(owner("100"));
+        ownerRepository.save(owner("50.5"));
+        ownerRepository.save(owner("-20"));
+
+        ownerRepository.update(1, owner("0"));
+        ownerRepository.recountDebts(new DebtRecount(new BigDecimal("2"), 1));
+        ownerRepository.remove(3);
+
+        assertEquals(new BigDecimal("101.0"), ownerRepository.countAllDebts());
+        assertEquals(1, ownerRepository.countDebtors());
+        assertEquals(0, ownerRepository.reconcileTotalDebt().signum());
+    }
+
+    @Test
+    public void should_throw_exception_when_updating_missing_owner() {
+        assertThrows(UpdateOwnerFailedException.class, () -> ownerRepository.update(1, owner("0")));
+    }
+
+    @Test
+    public void should_store_tax_obligation_only_at_current_version() {
+        ownerRepository.save(owner("0"));
+        TaxObligation taxObligation = new TaxObligation(new BigDecimal("420"), "v1");
+
+        assertFalse(ownerRepository.updateTaxObligation(1, 1, taxObligation));
+        assertTrue(ownerRepository.updateTaxObligation(1, 0, taxObligation));
+        assertEquals(taxObligation, ownerRepository.findTaxObligation(1));
+        assertNull(ownerRepository.findTaxObligation(2));
+
+        ownerRepository.update(1, owner("0").withFamilyStatus(FamilyStatus.MARRIED));
+
+        assertEquals(TaxObligation.NONE, ownerRepository.findTaxObligation(1));
+    }
+
+    @Test
+    public void should_keep_tax_obligation_when_update_leaves_tax_inputs_alone() {
+        ownerRepository.save(owner("0"));
+        TaxObligation taxObligation = new TaxObligation(new BigDecimal("420"), "v1");
+        ownerRepository.updateTaxObligation(1, 0, taxObligation);
+
+        ownerRepository.update(1, owner("10").withEmail("john.smith@gmail.com"));
+
+        assertEquals(taxObligation, ownerRepository.findTaxObligation(1));
+    }
+
+    @Test
+    public void should_page_and_stream_owners_in_id_order() {
+        IntStream.range(0, 10).forEach(i -> ownerRepository.save(owner("0")));
+        ownerRepository.remove(3);
+
+        assertEquals(List.of(2, 4, 5), ownerRepository.findPage(1, 3, Set.of()).stream().map(Owner::getId).toList());
+        assertEquals(List.of(8, 9, 10), ownerRepository.streamByIdRange(8, 20, Set.of()).map(Owner::getId).toList());
+    }
+
+    @Test
+    public void should_keep_total_debt_consistent_under_concurrent_writes() {
+        int numberOfOwners = 1000;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, numberOfOwners).forEach(i -> executor.execute(() -> ownerRepository.save(owner("10"))));
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.rangeClosed(1, numberOfOwners).forEach(id -> executor.execute(() -> {
+                updateAtCurrentVersion(id, owner(id % 2 == 0 ? "5.5" : "0"));
+                ownerRepository.recountDebts(new DebtRecount(BigDecimal.ONE, 1));
+            }));
+        }
+
+        assertEquals(new BigDecimal("2750.0"), ownerRepository.countAllDebts());
+        assertEquals(numberOfOwners / 2, ownerRepository.countDebtors());
+        assertEquals(numberOfOwners / 2, ownerRepository.findDebtors().size());
+        assertEquals(0, ownerRepository.reconcileTotalDebt().signum());
+    }
+
+    @Test
+    public void should_not_share_owner_instances_with_callers() {
+        Owner saved = owner("100");
+        ownerRepository.save(saved);
+
+        saved.setTaxesDebt(new BigDecimal("5"));
+        ownerRepository.findById(1).getProperties().clear();
+
+        Owner stored = ownerRepository.findById(1);
+        assertEquals(new BigDecimal("100"), stored.getTaxesDebt());
+        assertEquals(1, stored.getProperties().size());
+        assertEquals(new BigDecimal("100"), ownerRepository.countAllDebts());
+    }
+
+    @Test
+    public void should_reject_update_at_stale_version() {
+        ownerRepository.save(owner("0"));
+        Owner read = ownerRepository.findById(1);
+
+        ownerRepository.update(1, read.withTaxesDebt(new BigDecimal("10")));
+
+        assertEquals(1, ownerRepository.findById(1).getVersion());
+        assertThrows(OwnerConcurrentModificationException.class, () -> ownerRepository.update(1, read));
+        assertEquals(new BigDecimal("10"), ownerRepository.findById(1).getTaxesDebt());
+    }
+
+    @Test
+    public void should_save_owner_without_properties() {
+        ownerRepository.save(owner("0").withProperties(null));
+
+        assertNull(ownerRepository.findById(1).getProperties());
+    }
+
+    @Test
+    public void should_keep_stored_properties_on_update() {
+        ownerRepository.save(owner("0"));
+        Owner stored = ownerRepository.findById(1);
+
+        ownerRepository.update(1, stored.withFirstName("Jack").withProperties(null));
+        ownerRepository.update(1, stored.withVersion(1).withProperties(new ArrayList<>()));
+
+        Owner updated = ownerRepository.findById(1);
+        assertEquals(stored.getProperties(), updated.getProperties());
+        assertEquals(2, updated.getVersion());
+    }
+
+    @Test
+    public void should_leave_owner_passed_to_rejected_update_untouched() {
+        ownerRepository.save(owner("0"));
+        ownerRepository.update(1, ownerRepository.findById(1).withTaxesDebt(new BigDecimal("10")));
+        Owner stale = owner("0");
+
+        assertThrows(OwnerConcurrentModificationException.class, () -> ownerRepository.update(1, stale));
+        assertEquals(owner("0"), stale);
+        assertEquals(1, ownerRepository.findById(1).getProperties().get(0).getId());
+    }
+
+    private void updateAtCurrentVersion(int id, Owner owner) {
+        while (true) {
+            try {
+                ownerRepository.update(id, owner.withVersion(ownerRepository.findById(id).getVersion()));
+                return;
+            } catch (OwnerConcurrentModificationException e) {
+                // recounted in between, read the new version and try again
+            }
+        }
+    }
+
+    private static Owner owner(String taxesDebt) {
+        Property property = new Property(0, PropertyType.FLAT, "Prague", "Evropska 6",
+                70, 3, new BigDecimal("500000"),
+                LocalDate.of(2020, 4, 10),
+                LocalDate.of(2012, 1, 9),
+                PropertyCondition.GOOD);
+
+        return new Owner(0, "John", "Smith",
+                30, FamilyStatus.SINGLE,
+                false, "johnsmith@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 8, 9),
+                new BigDecimal(taxesDebt), new ArrayList<>(List.of(property)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.model.dto.IndexStatsDto;
+import com.tvo.propertyregister.repository.IndexRepository;
+import com.tvo.propertyregister.service.IndexService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IndexServiceTest {
+
+    @Mock
+    private IndexRepository indexRepository;
+
+    @InjectMocks
+    private IndexService indexService;
+
+    @Test
+    void should_ensure_indexes() {
+        indexService.ensureIndexes();
+
+        verify(indexRepository, times(1)).ensureIndexes();
+    }
+
+    @Test
+    void should_return_index_stats() {
+        List<IndexStatsDto> expectedStats = List.of(
+                new IndexStatsDto("owners", "_id_", Map.of("_id", 1), 42, Instant.EPOCH),
+                new IndexStatsDto("owners", "taxesDebt_debtors", Map.of("taxesDebt", 1), 7, Instant.EPOCH));
+
+        when(indexRepository.findIndexStats()).thenReturn(expectedStats);
+
+        List<IndexStatsDto> result = indexService.getIndexStats();
+
+        assertEquals(expectedStats, result);
+    }
+}
@@ -0,0 +1,154 @@
+package com.tvo.propertyregister.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvo.propertyregister.exception.EmailNotPublishedException;
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.model.dto.EmailType;
+import com.tvo.propertyregister.service.InternalEmailSender;
+import com.tvo.propertyregister.service.codec.JacksonEmailEventCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.tvo.propertyregister.service.utils.Constants.EMAIL_TOPIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InternalEmailSenderTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations operations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InternalEmailSender emailSender;
+
+    private final EmailEventDto email = new EmailEventDto(
+            "terebylov@ssemi.cz",
+            EmailType.ALL_DEBTOR_NOTIFICATION,
+            Map.of("firstName", "John", "lastName", "Doe", "debt", "100.0", "numberOfDebtors", "1"));
+
+    @BeforeEach
+    void setUp() {
+        emailSender = new InternalEmailSender(JacksonEmailEventCodec.json(new ObjectMapper()), rabbitTemplate, meterRegistry,
+                10, Duration.ofMillis(200), Duration.ofSeconds(1), Duration.ofSeconds(5));
+        emailSender.start();
+
+        lenient().when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class)))
+                .thenAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+        lenient().when(operations.waitForConfirms(anyLong())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        emailSender.stop();
+    }
+
+    @Test
+    void should_publish_concurrent_emails_in_one_confirmed_batch() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                sends.add(executor.submit(() -> emailSender.send(email)));
+            }
+            for (Future<?> send : sends) {
+                send.get();
+            }
+        }
+
+        verify(rabbitTemplate, times(1)).invoke(any(RabbitOperations.OperationsCallback.class));
+        verify(operations, times(3)).send(eq(EMAIL_TOPIC), any(Message.class));
+        verify(operations, times(1)).waitForConfirms(anyLong());
+        assertEquals(3, meterRegistry.counter("email.publish.confirmed").count());
+    }
+
+    @Test
+    void should_publish_email_with_given_message_id() {
+        emailSender.send("65f1c0de9b1e8a3f2c4d5e6f", email);
+
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(operations).send(eq(EMAIL_TOPIC), message.capture());
+        assertEquals("65f1c0de9b1e8a3f2c4d5e6f", message.getValue().getMessageProperties().getMessageId());
+    }
+
+    @Test
+    void should_fail_send_when_batch_is_nacked() {
+        when(operations.waitForConfirms(anyLong())).thenReturn(false);
+
+        assertThrows(EmailNotPublishedException.class, () -> emailSender.send(email));
+
+        assertEquals(1, meterRegistry.counter("email.publish.nacked").count());
+        assertEquals(0, meterRegistry.counter("email.publish.failed").count());
+        assertEquals(0, meterRegistry.counter("email.publish.confirmed").count());
+    }
+
+    @Test
+    void should_count_confirm_timeout_as_failure_rather_than_nack() {
+        when(operations.waitForConfirms(anyLong())).thenThrow(new AmqpTimeoutException("Timed out waiting for confirms"));
+
+        assertThrows(EmailNotPublishedException.class, () -> emailSender.send(email));
+
+        assertEquals(1, meterRegistry.counter("email.publish.failed").count());
+        assertEquals(0, meterRegistry.counter("email.publish.nacked").count());
+    }
+
+    @Test
+    void should_fail_send_when_email_is_returned() {
+        ArgumentCaptor<RabbitTemplate.ReturnsCallback> returnsCallback = ArgumentCaptor.forClass(RabbitTemplate.ReturnsCallback.class);
+        verify(rabbitTemplate).setReturnsCallback(returnsCallback.capture());
+
+        doAnswer(invocation -> {
+            Message message = invocation.getArgument(1);
+            returnsCallback.getValue().returnedMessage(new ReturnedMessage(message, 312, "NO_ROUTE", "", EMAIL_TOPIC));
+            return null;
+        }).when(operations).send(eq(EMAIL_TOPIC), any(Message.class));
+
+        assertThrows(EmailNotPublishedException.class, () -> emailSender.send(email));
+
+        assertEquals(1, meterRegistry.counter("email.publish.returned").count());
+        assertEquals(0, meterRegistry.counter("email.publish.confirmed").count());
+    }
+
+    @Test
+    void should_keep_publishing_after_unexpected_batch_failure() {
+        when(operations.waitForConfirms(anyLong())).thenThrow(new IllegalStateException("Channel closed")).thenReturn(true);
+
+        assertThrows(EmailNotPublishedException.class, () -> emailSender.send(email));
+        emailSender.send(email);
+
+        assertEquals(1, meterRegistry.counter("email.publish.confirmed").count());
+    }
+
+    @Test
+    void should_reject_send_when_sender_is_stopped() throws InterruptedException {
+        emailSender.stop();
+
+        assertThrows(EmailNotPublishedException.class, () -> emailSender.send(email));
+    }
+}
@@ -0,0 +1,211 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.config.SnapshotProperties;
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.event.RemoteOwnersChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.repository.inmemory.InMemoryOwnerRepository;
+import com.tvo.propertyregister.repository.inmemory.InMemoryTaxRateRepository;
+import com.tvo.propertyregister.repository.mapped.MappedOwnerRepository;
+import com.tvo.propertyregister.repository.mapped.MappedOwnerSnapshot;
+import com.tvo.propertyregister.repository.mapped.MappedTaxRateRepository;
+import com.tvo.propertyregister.repository.mapped.OwnerSnapshotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MappedOwnerRepositoryTest {
+
+    @TempDir
+    private Path directory;
+
+    private InMemoryOwnerRepository source;
+    private InMemoryTaxRateRepository taxRates;
+    private OwnerSnapshotStore store;
+    private MappedOwnerRepository ownerRepository;
+
+    @BeforeEach
+    public void setUp() {
+        this.source = spy(new InMemoryOwnerRepository());
+        this.taxRates = new InMemoryTaxRateRepository();
+        for (int i = 0; i < 5; i++) {
+            this.source.save(owner(i % 2 == 0 ? "10" : "0"));
+        }
+
+        this.store = store(this.source);
+        this.store.load();
+        this.ownerRepository = new MappedOwnerRepository(this.store);
+    }
+
+    @Test
+    public void should_serve_reads_from_snapshot() {
+        assertNotNull(this.store.viewForScans());
+        assertEquals(this.source.findById(3), this.ownerRepository.findById(3));
+        assertEquals(List.of(4, 5), ids(this.ownerRepository.findPage(3, 10, Set.of())));
+        assertEquals(List.of(2, 3, 4), ids(this.ownerRepository.streamByIdRange(2, 4, Set.of()).toList()));
+        assertEquals(List.of(1, 5), ids(this.ownerRepository.streamByIds(List.of(5, 1, 5, 9), Set.of()).toList()));
+        assertEquals(List.of(1, 3, 5), ids(this.ownerRepository.findDebtors()));
+        assertEquals(3, this.ownerRepository.countDebtors());
+    }
+
+    @Test
+    public void should_lay_changed_owners_over_snapshot_for_scans() {
+        this.ownerRepository.update(2, this.source.findById(2).withTaxesDebt(new BigDecimal("99")));
+        this.store.onOwnerChanged(new OwnerChangedEvent(2, true, false));
+
+        assertNull(this.store.viewFor(2));
+        assertNotNull(this.store.viewFor(1));
+        assertEquals(new BigDecimal("99"), this.ownerRepository.findById(2).getTaxesDebt());
+
+        assertEquals(List.of(1, 2, 3, 5), ids(this.ownerRepository.findDebtors()));
+        assertEquals(4, this.ownerRepository.countDebtors());
+        assertEquals(List.of(2, 3), ids(this.ownerRepository.findPage(1, 2, Set.of())));
+        assertNotNull(this.store.viewFor(2));
+        verify(this.source).streamByIds(Set.of(2), Set.of());
+    }
+
+    @Test
+    public void should_hide_removed_owners_from_scans() {
+        this.source.remove(3);
+        this.store.onOwnerChanged(new OwnerChangedEvent(3, true, false));
+
+        assertEquals(List.of(1, 5), ids(this.ownerRepository.findDebtors()));
+        assertEquals(List.of(2, 4), ids(this.ownerRepository.streamByIdRange(2, 4, Set.of()).toList()));
+        assertEquals(2, this.ownerRepository.countDebtors());
+    }
+
+    @Test
+    public void should_fall_back_to_source_for_owners_missing_from_snapshot() {
+        this.source.save(owner("0"));
+
+        assertEquals(6, this.ownerRepository.findById(6).getId());
+    }
+
+    @Test
+    public void should_map_existing_snapshot_on_load() {
+        OwnerSnapshotStore restarted = store(new InMemoryOwnerRepository());
+        restarted.load();
+
+        assertEquals(5, restarted.viewForScans().size());
+    }
+
+    @Test
+    public void should_catch_up_with_owners_written_since_snapshot_on_load() {
+        this.source.update(2, this.source.findById(2).withTaxesDebt(new BigDecimal("99")));
+        this.source.save(owner("0"));
+
+        OwnerSnapshotStore restarted = store(this.source);
+        restarted.load();
+
+        MappedOwnerRepository restartedRepository = new MappedOwnerRepository(restarted);
+        assertEquals(new BigDecimal("99"), restartedRepository.findById(2).getTaxesDebt());
+        assertEquals(6, restarted.viewForScans().size());
+        verify(this.source, times(1)).streamAll(Set.of());
+    }
+
+    @Test
+    public void should_not_read_all_owners_again_on_refresh() {
+        this.source.update(2, this.source.findById(2).withTaxesDebt(new BigDecimal("99")));
+
+        this.store.refresh();
+
+        assertEquals(List.of(1, 2, 3, 5), ids(this.ownerRepository.findDebtors()));
+        verify(this.source, times(1)).streamAll(Set.of());
+    }
+
+    @Test
+    public void should_rewrite_snapshot_from_view_once_overlay_grows_large() {
+        for (int i = 0; i < 1100; i++) {
+            this.source.save(owner("0"));
+        }
+
+        this.store.refresh();
+
+        assertEquals(1105, MappedOwnerSnapshot.open(this.directory.resolve("owners.snapshot")).size());
+        assertEquals(1105, this.store.viewForScans().size());
+        verify(this.source, times(1)).streamAll(Set.of());
+    }
+
+    @Test
+    public void should_read_owner_from_source_after_version_conflict() {
+        Owner stale = this.ownerRepository.findById(2);
+        this.source.update(2, this.source.findById(2).withTaxesDebt(new BigDecimal("99")));
+
+        assertThrows(OwnerConcurrentModificationException.class,
+                () -> this.ownerRepository.update(2, stale.withTaxesDebt(BigDecimal.ONE)));
+        assertEquals(new BigDecimal("99"), this.ownerRepository.findById(2).getTaxesDebt());
+    }
+
+    @Test
+    public void should_read_owners_changed_by_other_instances_from_source_until_refreshed() {
+        this.store.onRemoteOwnersChanged(new RemoteOwnersChangedEvent(List.of(2)));
+
+        assertNull(this.store.viewFor(2));
+        assertNotNull(this.store.viewFor(1));
+
+        this.store.onRemoteOwnersChanged(new RemoteOwnersChangedEvent(null));
+
+        assertNull(this.store.viewFor(1));
+        assertNull(this.store.viewForScans());
+
+        this.store.refresh();
+
+        assertNotNull(this.store.viewFor(1));
+        assertNotNull(this.store.viewForScans());
+    }
+
+    @Test
+    public void should_read_tax_rates_from_source_after_change() {
+        MappedTaxRateRepository taxRateRepository = new MappedTaxRateRepository(this.store);
+        assertEquals(this.taxRates.findAll(), taxRateRepository.findAll());
+
+        taxRateRepository.changeTax(PropertyType.FLAT, new BigDecimal("7"));
+        this.store.onTaxRateChanged(new TaxRateChangedEvent(PropertyType.FLAT));
+
+        assertNull(this.store.currentTaxRates());
+        assertSame(this.taxRates.findAll(), taxRateRepository.findAll());
+
+        this.store.refresh();
+
+        assertEquals(new BigDecimal("7"), this.store.currentTaxRates().stream()
+                .filter(taxRate -> taxRate.getPropertyType() == PropertyType.FLAT)
+                .findFirst().orElseThrow().getTax());
+    }
+
+    private OwnerSnapshotStore store(InMemoryOwnerRepository owners) {
+        return new OwnerSnapshotStore(
+                new SnapshotProperties(true, this.directory.resolve("owners.snapshot"), Duration.ofHours(1)),
+                owners, this.taxRates);
+    }
+
+    private static List<Integer> ids(List<Owner> owners) {
+        return owners.stream().map(Owner::getId).toList();
+    }
+
+    private static Owner owner(String taxesDebt) {
+        return new Owner(0, "First", "Last", 40, FamilyStatus.SINGLE, false,
+                "owner@gmail.com", "+420", LocalDate.of(1984, 2, 29),
+                new BigDecimal(taxesDebt), new ArrayList<>(), 0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyCondition;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.repository.mapped.MappedOwnerSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedOwnerSnapshotTest {
+
+    private static final List<TaxRate> TAX_RATES = List.of(
+            new TaxRate(1, PropertyType.FLAT, new BigDecimal("6")),
+            new TaxRate(2, PropertyType.HOUSE, new BigDecimal("8.5")),
+            new TaxRate(3, PropertyType.OFFICE, new BigDecimal("13.25")));
+
+    private static final Instant NOW = Instant.now();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void should_read_back_written_owners_and_tax_rates() {
+        Path path = this.directory.resolve("owners.snapshot");
+        List<Owner> owners = List.of(
+                owner(2, "150.75", new Property(7, PropertyType.HOUSE, "Brno", "Masarykova 4", 120, 5,
+                        new BigDecimal("5200000.00"), LocalDate.of(2019, 3, 1), LocalDate.of(1999, 6, 30),
+                        PropertyCondition.GOOD)),
+                new Owner(5, "Žofie", null, 0, null, false, null, null, null, null, null, 3));
+
+        Instant sourcedAt = Instant.ofEpochMilli(1_700_000_000_000L);
+        MappedOwnerSnapshot.write(path, owners.stream(), TAX_RATES, sourcedAt, sourcedAt.plusSeconds(42));
+        MappedOwnerSnapshot snapshot = MappedOwnerSnapshot.open(path);
+
+        assertEquals(2, snapshot.size());
+        assertEquals(owners.get(0), snapshot.owner(0));
+        assertEquals(owners.get(1), snapshot.owner(1));
+        assertEquals(TAX_RATES, snapshot.taxRates());
+        assertEquals(sourcedAt, snapshot.sourcedAt());
+        assertEquals(sourcedAt.plusSeconds(42), snapshot.changedSince());
+    }
+
+    @Test
+    public void should_find_owners_by_id() {
+        Path path = this.directory.resolve("owners.snapshot");
+        MappedOwnerSnapshot.write(path, Stream.of(owner(3, "0"), owner(10, "0"), owner(11, "0")), TAX_RATES, NOW, NOW);
+        MappedOwnerSnapshot snapshot = MappedOwnerSnapshot.open(path);
+
+        assertEquals(0, snapshot.indexOf(3));
+        assertEquals(2, snapshot.indexOf(11));
+        assertEquals(-1, snapshot.indexOf(1));
+        assertEquals(-2, snapshot.indexOf(4));
+        assertEquals(-4, snapshot.indexOf(12));
+        assertEquals(10, snapshot.id(1));
+    }
+
+    @Test
+    public void should_list_only_positive_debts_as_debtors() {
+        Path path = this.directory.resolve("owners.snapshot");
+        MappedOwnerSnapshot.write(path, Stream.of(owner(1, "100"), owner(2, "0"), owner(3, "-5"), owner(4, "0.01")), TAX_RATES, NOW, NOW);
+        MappedOwnerSnapshot snapshot = MappedOwnerSnapshot.open(path);
+
+        assertEquals(2, snapshot.countDebtors());
+        assertEquals(1, snapshot.debtor(0).getId());
+        assertEquals(4, snapshot.debtor(1).getId());
+        assertTrue(snapshot.isDebtor(3));
+        assertFalse(snapshot.isDebtor(1));
+    }
+
+    @Test
+    public void should_keep_previous_snapshot_readable_when_rewritten() {
+        Path path = this.directory.resolve("owners.snapshot");
+        MappedOwnerSnapshot.write(path, Stream.of(owner(1, "100")), TAX_RATES, NOW, NOW);
+        MappedOwnerSnapshot previous = MappedOwnerSnapshot.open(path);
+
+        MappedOwnerSnapshot.write(path, Stream.of(owner(1, "0"), owner(2, "0")), TAX_RATES, NOW, NOW);
+
+        assertEquals(new BigDecimal("100"), previous.owner(0).getTaxesDebt());
+        assertEquals(2, MappedOwnerSnapshot.open(path).size());
+    }
+
+    @Test
+    public void should_reject_owners_out_of_id_order() {
+        Path path = this.directory.resolve("owners.snapshot");
+
+        assertThrows(IllegalStateException.class,
+                () -> MappedOwnerSnapshot.write(path, Stream.of(owner(2, "0"), owner(1, "0")), TAX_RATES, NOW, NOW));
+    }
+
+    @Test
+    public void should_reject_file_that_is_not_a_snapshot() throws Exception {
+        Path path = Files.write(this.directory.resolve("owners.snapshot"), new byte[64]);
+
+        assertThrows(IllegalStateException.class, () -> MappedOwnerSnapshot.open(path));
+    }
+
+    private static Owner owner(int id, String taxesDebt, Property... properties) {
+        return new Owner(id, "First" + id, "Last" + id, 40, FamilyStatus.MARRIED, true,
+                "owner" + id + "@gmail.com", "+420" + id, LocalDate.of(1984, 2, 29),
+                new BigDecimal(taxesDebt), new ArrayList<>(List.of(properties)), 1);
+    }
+}
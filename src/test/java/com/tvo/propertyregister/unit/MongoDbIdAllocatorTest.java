@@ -0,0 +1,90 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.repository.mongodb.MongoDbIdAllocator;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MongoDbIdAllocatorTest {
+
+    private static final int BLOCK_SIZE = 10;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final AtomicInteger storedSequence = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Document.class), eq("counters")))
+                .thenAnswer(invocation -> new Document("sequence_value", storedSequence.addAndGet(BLOCK_SIZE)));
+    }
+
+    @Test
+    void should_hand_out_sequential_ids_from_one_reserved_block() {
+        MongoDbIdAllocator allocator = new MongoDbIdAllocator(mongoTemplate, BLOCK_SIZE);
+
+        List<Integer> ids = IntStream.range(0, BLOCK_SIZE).map(i -> allocator.nextId("ownerId")).boxed().toList();
+
+        assertEquals(IntStream.rangeClosed(1, BLOCK_SIZE).boxed().toList(), ids);
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Document.class), eq("counters"));
+    }
+
+    @Test
+    void should_reserve_next_block_when_current_is_exhausted() {
+        MongoDbIdAllocator allocator = new MongoDbIdAllocator(mongoTemplate, BLOCK_SIZE);
+
+        IntStream.range(0, BLOCK_SIZE).forEach(i -> allocator.nextId("ownerId"));
+        int id = allocator.nextId("ownerId");
+
+        assertEquals(BLOCK_SIZE + 1, id);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Document.class), eq("counters"));
+    }
+
+    @Test
+    void should_not_hand_out_duplicate_ids_under_concurrency() throws Exception {
+        MongoDbIdAllocator allocator = new MongoDbIdAllocator(mongoTemplate, BLOCK_SIZE);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<Boolean>> results = IntStream.range(0, 1000)
+                    .mapToObj(i -> executor.submit(() -> ids.add(allocator.nextId("propertyId"))))
+                    .toList();
+
+            for (Future<Boolean> result : results) {
+                result.get();
+            }
+        }
+
+        assertEquals(1000, ids.size());
+        verify(mongoTemplate, times(1000 / BLOCK_SIZE)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Document.class), eq("counters"));
+    }
+
+    @Test
+    void should_reject_non_positive_block_size() {
+        assertThrows(IllegalArgumentException.class, () -> new MongoDbIdAllocator(mongoTemplate, 0));
+    }
+}
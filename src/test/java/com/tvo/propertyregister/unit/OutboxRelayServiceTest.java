@@ -0,0 +1,117 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.exception.EmailNotPublishedException;
+import com.tvo.propertyregister.model.dto.EmailEventDto;
+import com.tvo.propertyregister.model.dto.EmailType;
+import com.tvo.propertyregister.model.outbox.OutboxMessage;
+import com.tvo.propertyregister.model.outbox.OutboxStatus;
+import com.tvo.propertyregister.repository.OutboxRepository;
+import com.tvo.propertyregister.service.InternalEmailSender;
+import com.tvo.propertyregister.service.OutboxRelayService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayServiceTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private InternalEmailSender emailSender;
+
+    private OutboxRelayService outboxRelayService;
+
+    private final EmailEventDto event = new EmailEventDto(
+            "terebylov@ssemi.cz",
+            EmailType.SINGLE_DEBTOR_NOTIFICATION,
+            Map.of("firstName", "John", "lastName", "Doe", "debt", "100.0"));
+
+    @BeforeEach
+    void setUp() {
+        outboxRelayService = new OutboxRelayService(outboxRepository, emailSender,
+                2, 3, LEASE, Duration.ofSeconds(1), Duration.ofSeconds(3));
+    }
+
+    @Test
+    void should_remove_relayed_messages_from_outbox() {
+        when(outboxRepository.claim(2, LEASE)).thenReturn(List.of(message("1", 1)));
+
+        int result = outboxRelayService.relay();
+
+        verify(emailSender, times(1)).send("1", event);
+        verify(outboxRepository, times(1)).remove(List.of("1"));
+        assertEquals(1, result);
+    }
+
+    @Test
+    void should_keep_claiming_while_batches_are_full() {
+        when(outboxRepository.claim(2, LEASE))
+                .thenReturn(List.of(message("1", 1), message("2", 1)))
+                .thenReturn(List.of(message("3", 1)));
+
+        int result = outboxRelayService.relay();
+
+        verify(outboxRepository, times(2)).claim(2, LEASE);
+        verify(emailSender, times(3)).send(anyString(), eq(event));
+        assertEquals(3, result);
+    }
+
+    @Test
+    void should_reschedule_message_with_backoff_when_publishing_fails() {
+        OutboxMessage message = message("1", 2);
+        when(outboxRepository.claim(2, LEASE)).thenReturn(List.of(message));
+        doThrow(new EmailNotPublishedException("Broker is down")).when(emailSender).send("1", event);
+
+        Instant before = Instant.now();
+        int result = outboxRelayService.relay();
+
+        ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxRepository, times(1)).reschedule(eq(message), nextAttemptAt.capture(), eq("Broker is down"));
+        verify(outboxRepository, never()).remove(anyList());
+        assertFalse(nextAttemptAt.getValue().isBefore(before.plusSeconds(2)));
+        assertEquals(0, result);
+    }
+
+    @Test
+    void should_mark_message_failed_after_max_attempts() {
+        OutboxMessage message = message("1", 3);
+        when(outboxRepository.claim(2, LEASE)).thenReturn(List.of(message));
+        doThrow(new EmailNotPublishedException("Broker is down")).when(emailSender).send("1", event);
+
+        outboxRelayService.relay();
+
+        verify(outboxRepository, times(1)).markFailed(message, "Broker is down");
+        verify(outboxRepository, never()).reschedule(any(), any(), any());
+    }
+
+    @Test
+    void should_do_nothing_when_outbox_is_empty() {
+        when(outboxRepository.claim(2, LEASE)).thenReturn(List.of());
+
+        int result = outboxRelayService.relay();
+
+        verify(emailSender, never()).send(anyString(), any());
+        assertEquals(0, result);
+    }
+
+    private OutboxMessage message(String id, int attempts) {
+        return new OutboxMessage(id, event, OutboxStatus.IN_FLIGHT, attempts, Instant.now(), "relay", Instant.now().plus(LEASE), null, Instant.now());
+    }
+}
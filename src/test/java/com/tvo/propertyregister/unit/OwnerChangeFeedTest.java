@@ -0,0 +1,85 @@
+package com.tvo.propertyregister.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tvo.propertyregister.cache.CacheInvalidation;
+import com.tvo.propertyregister.cache.OwnerChangeFeed;
+import com.tvo.propertyregister.cache.RefreshPolicy;
+import com.tvo.propertyregister.cache.TwoTierCacheManager;
+import com.tvo.propertyregister.model.event.RemoteOwnersChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.tvo.propertyregister.cache.CacheNames.DEBTORS;
+import static com.tvo.propertyregister.cache.CacheNames.OWNERS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class OwnerChangeFeedTest {
+
+    private static final RefreshPolicy POLICY = new RefreshPolicy(Duration.ofMinutes(1), Duration.ZERO, 0);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private TwoTierCacheManager cacheManager;
+    private OwnerChangeFeed ownerChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TwoTierCacheManager(Map.of(
+                OWNERS, localTier(),
+                DEBTORS, localTier()), new ConcurrentMapCacheManager(OWNERS, DEBTORS), redisTemplate, mapper,
+                Clock.systemUTC());
+        ownerChangeFeed = new OwnerChangeFeed(cacheManager, mapper, events);
+    }
+
+    @Test
+    void should_relay_owner_evictions_from_other_instances() throws Exception {
+        receive(new CacheInvalidation("other", OWNERS, List.of("1", "3")));
+
+        verify(events).publishEvent(new RemoteOwnersChangedEvent(List.of(1, 3)));
+    }
+
+    @Test
+    void should_relay_owner_cache_clear_as_change_to_any_owner() throws Exception {
+        receive(new CacheInvalidation("other", OWNERS, null));
+
+        verify(events).publishEvent(new RemoteOwnersChangedEvent(null));
+    }
+
+    @Test
+    void should_ignore_own_and_non_owner_invalidations() throws Exception {
+        receive(new CacheInvalidation(cacheManager.getInstanceId(), OWNERS, List.of("1")));
+        receive(new CacheInvalidation("other", DEBTORS, null));
+
+        verify(events, never()).publishEvent(any(Object.class));
+    }
+
+    private void receive(CacheInvalidation invalidation) throws Exception {
+        byte[] channel = TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes();
+        ownerChangeFeed.onMessage(new DefaultMessage(channel, mapper.writeValueAsBytes(invalidation)), channel);
+    }
+
+    private static TwoTierCacheManager.LocalTier localTier() {
+        return new TwoTierCacheManager.LocalTier(Caffeine.newBuilder().maximumSize(100).build(), POLICY);
+    }
+}
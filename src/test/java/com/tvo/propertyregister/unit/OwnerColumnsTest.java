@@ -0,0 +1,131 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.exception.PropertyNotFoundException;
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyCondition;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.service.columnar.OwnerColumns;
+import com.tvo.propertyregister.service.tax.TaxEngine;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OwnerColumnsTest {
+
+    private static final TaxEngine TAX_ENGINE = TaxEngine.of(TaxRateSnapshot.of(List.of(
+            new TaxRate(1, PropertyType.FLAT, new BigDecimal("6")),
+            new TaxRate(2, PropertyType.HOUSE, new BigDecimal("8.5")),
+            new TaxRate(3, PropertyType.OFFICE, new BigDecimal("13.25")))));
+
+    @Test
+    public void should_sum_debts_and_list_debtors() {
+        OwnerColumns columns = OwnerColumns.of(Stream.of(
+                owner(1, "100", FamilyStatus.SINGLE, false),
+                owner(2, "0", FamilyStatus.MARRIED, true),
+                owner(3, "20.25", FamilyStatus.SINGLE, true),
+                owner(4, "-5", FamilyStatus.MARRIED, false)));
+
+        assertEquals(2, columns.countDebtors());
+        assertArrayEquals(new int[]{1, 3}, columns.debtorIds());
+        assertEquals(new BigDecimal("120.25"), columns.totalDebt());
+        assertEquals(new BigDecimal("100"), columns.debt(0));
+        assertEquals(new BigDecimal("-5"), columns.debt(3));
+    }
+
+    @Test
+    public void should_count_same_tax_obligation_as_owner_path() {
+        List<Owner> owners = List.of(
+                owner(1, "0", FamilyStatus.SINGLE, false, property(PropertyType.FLAT, 70), property(PropertyType.OFFICE, 33)),
+                owner(2, "0", FamilyStatus.MARRIED, true, property(PropertyType.HOUSE, 150)),
+                owner(3, "0", FamilyStatus.SINGLE, true),
+                owner(4, "0", null, true, property(PropertyType.HOUSE, 15), property(PropertyType.FLAT, 1)));
+
+        OwnerColumns columns = OwnerColumns.of(owners.stream());
+
+        for (int row = 0; row < owners.size(); row++) {
+            assertEquals(TAX_ENGINE.taxObligation(owners.get(row)), columns.taxObligation(row, TAX_ENGINE));
+        }
+    }
+
+    @Test
+    public void should_patch_changed_removed_and_new_owners() {
+        OwnerColumns columns = OwnerColumns.of(Stream.of(
+                owner(1, "10", FamilyStatus.SINGLE, false),
+                owner(2, "20", FamilyStatus.SINGLE, false),
+                owner(4, "40", FamilyStatus.SINGLE, false)));
+
+        OwnerColumns patched = columns.patch(Set.of(2, 3, 4, 5), List.of(
+                owner(5, "0.005", FamilyStatus.MARRIED, false),
+                owner(3, "30", FamilyStatus.SINGLE, false, property(PropertyType.OFFICE, 10)),
+                owner(4, "0", FamilyStatus.SINGLE, false)));
+
+        assertEquals(4, patched.size());
+        assertEquals(List.of(1, 3, 4, 5), List.of(patched.id(0), patched.id(1), patched.id(2), patched.id(3)));
+        assertArrayEquals(new int[]{1, 3, 5}, patched.debtorIds());
+        assertEquals(new BigDecimal("40.005"), patched.totalDebt());
+        assertEquals(new BigDecimal("10"), patched.debt(0));
+        assertEquals(new BigDecimal("132.50"), patched.taxObligation(1, TAX_ENGINE));
+        assertEquals(3, columns.size());
+    }
+
+    @Test
+    public void should_find_rows_by_owner_id() {
+        OwnerColumns columns = OwnerColumns.of(Stream.of(
+                owner(2, "0", FamilyStatus.SINGLE, false),
+                owner(5, "0", FamilyStatus.SINGLE, false),
+                owner(9, "0", FamilyStatus.SINGLE, false)));
+
+        assertEquals(1, columns.row(5));
+        assertEquals(-1, columns.row(6));
+        assertEquals(1, columns.rowAtOrAfter(3));
+        assertEquals(2, columns.rowAfter(5));
+        assertEquals(3, columns.rowAfter(9));
+    }
+
+    @Test
+    public void should_reject_owners_out_of_id_order() {
+        assertThrows(IllegalStateException.class, () -> OwnerColumns.of(Stream.of(
+                owner(2, "0", FamilyStatus.SINGLE, false),
+                owner(1, "0", FamilyStatus.SINGLE, false))));
+    }
+
+    @Test
+    public void should_throw_exception_when_owner_has_no_property_list() {
+        Owner owner = owner(1, "0", FamilyStatus.SINGLE, false);
+        owner.setProperties(null);
+
+        OwnerColumns columns = OwnerColumns.of(Stream.of(owner));
+
+        assertThrows(PropertyNotFoundException.class, () -> columns.taxObligation(0, TAX_ENGINE));
+    }
+
+    private static Owner owner(int id, String taxesDebt, FamilyStatus familyStatus, boolean hasChildren, Property... properties) {
+        return new Owner(id, "John", "Smith",
+                30, familyStatus,
+                hasChildren, "johnsmith@gmail.com",
+                "+456987123",
+                LocalDate.of(1994, 8, 9),
+                new BigDecimal(taxesDebt), new ArrayList<>(List.of(properties)));
+    }
+
+    private static Property property(PropertyType propertyType, int square) {
+        return new Property(1, propertyType, "Prague", "Evropska 6",
+                square, 3, new BigDecimal("500000"),
+                LocalDate.of(2020, 4, 10),
+                LocalDate.of(2012, 1, 9),
+                PropertyCondition.GOOD);
+    }
+}
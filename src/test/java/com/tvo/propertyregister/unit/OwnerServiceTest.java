@@ -1,18 +1,33 @@
 package com.tvo.propertyregister.unit;
 
+import com.tvo.propertyregister.exception.InvalidBatchRequestException;
+import com.tvo.propertyregister.exception.InvalidFieldSelectionException;
+import com.tvo.propertyregister.exception.InvalidPageRequestException;
+import com.tvo.propertyregister.exception.InvalidTaxRateNumberException;
 import com.tvo.propertyregister.exception.NoSuchOwnerException;
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
 import com.tvo.propertyregister.exception.UpdateOwnerFailedException;
 import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.dto.OwnerTaxObligationDto;
+import com.tvo.propertyregister.model.dto.TaxObligationBatchRequest;
+import com.tvo.propertyregister.model.event.OwnerChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
+import com.tvo.propertyregister.model.owner.DebtRecount;
 import com.tvo.propertyregister.model.owner.FamilyStatus;
 import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.owner.TaxObligation;
 import com.tvo.propertyregister.model.property.Property;
 import com.tvo.propertyregister.model.property.PropertyCondition;
 import com.tvo.propertyregister.model.property.PropertyType;
 import com.tvo.propertyregister.repository.OwnerRepository;
 import com.tvo.propertyregister.service.OwnerService;
 import com.tvo.propertyregister.service.TaxRateService;
+import com.tvo.propertyregister.service.columnar.ColumnarOwnerStore;
+import com.tvo.propertyregister.service.columnar.OwnerColumns;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -20,7 +35,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import static com.tvo.propertyregister.service.utils.Constants.MAX_OWNERS_PAGE_SIZE;
+import static com.tvo.propertyregister.service.utils.Constants.MAX_TAX_OBLIGATION_BATCH_SIZE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -79,28 +99,78 @@ public class OwnerServiceTest {
     @Mock
     private TaxRateService taxRateService;
 
+    @Mock
+    private ColumnarOwnerStore columnarOwnerStore;
+
     @InjectMocks
     private OwnerService ownerService;
 
 
     @Test
-    public void should_return_all_owners() {
-        when(ownerRepository.findAll()).thenReturn(List.of(OWNER));
+    public void should_return_page_of_owners() {
+        when(ownerRepository.findPage(0, 100, Set.of())).thenReturn(List.of(OWNER));
 
-        List<Owner> result = ownerService.getAllOwners();
+        List<Owner> result = ownerService.getOwners(0, 100, Set.of());
 
         assertEquals(List.of(OWNER), result);
     }
 
     @Test
-    public void should_return_empty_list_if_no_owners() {
-        when(ownerRepository.findAll()).thenReturn(List.of());
+    public void should_return_empty_page_if_no_owners() {
+        when(ownerRepository.findPage(0, 100, Set.of())).thenReturn(List.of());
 
-        List<Owner> result = ownerService.getAllOwners();
+        List<Owner> result = ownerService.getOwners(0, 100, Set.of());
 
         assertEquals(List.of(), result);
     }
 
+    @Test
+    public void should_continue_page_after_given_owner_id() {
+        when(ownerRepository.findPage(OWNER.getId(), 2, Set.of())).thenReturn(List.of(DEBTOR, OWNER_2));
+
+        List<Owner> result = ownerService.getOwners(OWNER.getId(), 2, Set.of());
+
+        assertEquals(List.of(DEBTOR, OWNER_2), result);
+    }
+
+    @Test
+    public void should_not_return_page_with_invalid_limit() {
+        assertThrows(InvalidPageRequestException.class, () -> ownerService.getOwners(0, 0, Set.of()));
+        assertThrows(InvalidPageRequestException.class, () -> ownerService.getOwners(0, MAX_OWNERS_PAGE_SIZE + 1, Set.of()));
+
+        verify(ownerRepository, never()).findPage(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void should_project_requested_owner_fields() {
+        Set<String> fields = Set.of("id", "firstName", "lastName", "email", "taxesDebt");
+        Owner projected = new Owner(DEBTOR.getId(), DEBTOR.getEmail(), DEBTOR.getFirstName(), DEBTOR.getLastName(),
+                DEBTOR.getTaxesDebt(), false, null);
+
+        when(ownerRepository.findDebtors(fields)).thenReturn(List.of(projected));
+
+        List<Owner> result = ownerService.findDebtors(fields);
+
+        assertEquals(List.of(projected), result);
+    }
+
+    @Test
+    public void should_not_project_unknown_owner_fields() {
+        assertThrows(InvalidFieldSelectionException.class, () -> ownerService.getOwners(0, 100, Set.of("id", "password")));
+        assertThrows(InvalidFieldSelectionException.class, () -> ownerService.findDebtors(Set.of("FIELDS_FILTER")));
+
+        verifyNoInteractions(ownerRepository);
+    }
+
+    @Test
+    public void should_stream_all_owners() {
+        when(ownerRepository.streamAll(Set.of())).thenReturn(Stream.of(OWNER, DEBTOR));
+
+        List<Owner> result = ownerService.streamOwners(Set.of()).toList();
+
+        assertEquals(List.of(OWNER, DEBTOR), result);
+    }
+
     @Test
     public void should_return_owner_by_id() {
         when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
@@ -138,29 +208,29 @@ public class OwnerServiceTest {
 
     @Test
     void should_recalculate_debt_for_debtors() {
-        List<Owner> allDebtors = List.of(DEBTOR);
-        Owner expectedDebtor = new Owner(2, "Linda", "Johnson",
-                31, FamilyStatus.MARRIED,
-                true, "lindajohnson@gmail.com",
-                "+789456147",
-                LocalDate.of(1993, 7, 17),
-                new BigDecimal("10500.0"), List.of(PROPERTY_FLAT));
+        ownerService.recountDebtForDebtors();
+
+        ArgumentCaptor<DebtRecount> recount = ArgumentCaptor.forClass(DebtRecount.class);
+        verify(ownerRepository, times(1)).recountDebts(recount.capture());
 
-        when(ownerRepository.findDebtors()).thenReturn(allDebtors);
+        assertEquals(new BigDecimal("10500.0"), recount.getValue().apply(DEBTOR.getTaxesDebt()));
+    }
 
+    @Test
+    void should_round_recalculated_debt_half_up() {
         ownerService.recountDebtForDebtors();
 
-        verify(ownerRepository, times(1)).findDebtors();
-        verify(ownerRepository, times(1)).update(DEBTOR.getId(), expectedDebtor);
+        ArgumentCaptor<DebtRecount> recount = ArgumentCaptor.forClass(DebtRecount.class);
+        verify(ownerRepository, times(1)).recountDebts(recount.capture());
+
+        assertEquals(new BigDecimal("1.1"), recount.getValue().apply(new BigDecimal("1.0")));
     }
 
     @Test
-    void should_not_recalculate_debt_is_the_owner_does_not_have_debts() {
-        when(ownerRepository.findDebtors()).thenReturn(List.of());
-
+    void should_recalculate_debt_without_loading_or_updating_debtors_one_by_one() {
         ownerService.recountDebtForDebtors();
 
-        verify(ownerRepository, times(1)).findDebtors();
+        verify(ownerRepository, never()).findDebtors();
         verify(ownerRepository, never()).update(anyInt(), any());
     }
 
@@ -178,10 +248,21 @@ public class OwnerServiceTest {
     }
 
     @Test
-    public void should_update_owner_info() {
-        when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
+    public void should_update_owner_info_at_version_client_read() {
+        when(ownerRepository.update(OWNER.getId(), OWNER)).thenReturn(true);
 
-        ownerService.updateInfo(OWNER.getId(), OWNER);
+        assertTrue(ownerService.updateInfo(OWNER.getId(), OWNER));
+
+        verify(ownerRepository, times(1)).update(OWNER.getId(), OWNER);
+        verify(ownerRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    public void should_report_conflict_without_retrying_when_owner_changed_since_client_read_it() {
+        when(ownerRepository.update(OWNER.getId(), OWNER))
+                .thenThrow(new OwnerConcurrentModificationException("Owner with id 1 was modified concurrently"));
+
+        assertThrows(OwnerConcurrentModificationException.class, () -> ownerService.updateInfo(OWNER.getId(), OWNER));
 
         verify(ownerRepository, times(1)).update(OWNER.getId(), OWNER);
     }
@@ -189,7 +270,7 @@ public class OwnerServiceTest {
     @Test
     public void should_not_update_non_existing_owner() {
         int wrongId = -1;
-        when(ownerRepository.findById(wrongId)).thenReturn(null);
+        when(ownerRepository.update(wrongId, OWNER)).thenReturn(false);
 
         assertThrows(NoSuchOwnerException.class, () -> ownerService.updateInfo(wrongId, OWNER));
     }
@@ -216,16 +297,37 @@ public class OwnerServiceTest {
         assertFalse(result);
     }
 
+    @Test
+    void should_count_total_debt_from_ledger() {
+        when(ownerRepository.countAllDebts()).thenReturn(new BigDecimal("25000.0"));
+
+        String totalDebt = ownerService.countTotalDebt();
+
+        assertEquals("25000.0", totalDebt);
+        verify(ownerRepository, never()).findDebtors();
+    }
+
+    @Test
+    void should_reconcile_total_debt_ledger() {
+        when(ownerRepository.reconcileTotalDebt()).thenReturn(new BigDecimal("-500.0"));
+
+        ownerService.reconcileTotalDebt();
+
+        verify(ownerRepository, times(1)).reconcileTotalDebt();
+    }
+
     @Test
     public void should_count_base_tax_for_owner_with_no_leeway() {
 
         BigDecimal expectedBaseTax = new BigDecimal("3320");
 
         // when
-        when(taxRateService.getAll()).thenReturn(List.of(
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
                 TAX_RATE_FLAT,
                 TAX_RATE_HOUSE,
-                TAX_RATE_OFFICE));
+                TAX_RATE_OFFICE)));
+
+        when(ownerRepository.findTaxObligation(OWNER.getId())).thenReturn(TaxObligation.NONE);
 
         when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
 
@@ -241,10 +343,12 @@ public class OwnerServiceTest {
         BigDecimal expectedBaseTax = new BigDecimal("336.0");
 
         // when
-        when(taxRateService.getAll()).thenReturn(List.of(
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
                 TAX_RATE_FLAT,
                 TAX_RATE_HOUSE,
-                TAX_RATE_OFFICE));
+                TAX_RATE_OFFICE)));
+
+        when(ownerRepository.findTaxObligation(DEBTOR.getId())).thenReturn(TaxObligation.NONE);
 
         when(ownerRepository.findById(DEBTOR.getId())).thenReturn(DEBTOR);
 
@@ -258,11 +362,13 @@ public class OwnerServiceTest {
     public void should_count_base_tax_for_single_owner_and_with_children() {
         BigDecimal expectedTaxObligation = new BigDecimal("1120.0");
 
-        when(taxRateService.getAll()).thenReturn(List.of(
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
                 TAX_RATE_FLAT,
                 TAX_RATE_HOUSE,
                 TAX_RATE_OFFICE
-        ));
+        )));
+
+        when(ownerRepository.findTaxObligation(OWNER_2.getId())).thenReturn(TaxObligation.NONE);
 
         when(ownerRepository.findById(OWNER_2.getId())).thenReturn(OWNER_2);
 
@@ -282,11 +388,13 @@ public class OwnerServiceTest {
                 LocalDate.of(1993, 7, 17),
                 new BigDecimal("10000"), List.of(PROPERTY_FLAT));
 
-        when(taxRateService.getAll()).thenReturn(List.of(
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
                 TAX_RATE_FLAT,
                 TAX_RATE_HOUSE,
                 TAX_RATE_OFFICE
-        ));
+        )));
+
+        when(ownerRepository.findTaxObligation(owner.getId())).thenReturn(TaxObligation.NONE);
 
         when(ownerRepository.findById(owner.getId())).thenReturn(owner);
 
@@ -294,4 +402,173 @@ public class OwnerServiceTest {
 
         assertEquals(expectedTaxObligations, taxObligationResult);
     }
+
+    @Test
+    public void should_stream_tax_obligations_for_requested_owners_against_one_snapshot() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
+                TAX_RATE_FLAT,
+                TAX_RATE_HOUSE,
+                TAX_RATE_OFFICE)));
+        when(ownerRepository.streamByIds(eq(Set.of(OWNER.getId(), OWNER_2.getId())), anySet())).thenReturn(Stream.of(OWNER, OWNER_2));
+
+        List<OwnerTaxObligationDto> result = ownerService.streamTaxObligations(
+                new TaxObligationBatchRequest(List.of(OWNER.getId(), OWNER_2.getId()), null, null)).toList();
+
+        assertEquals(List.of(
+                new OwnerTaxObligationDto(OWNER.getId(), new BigDecimal("3320")),
+                new OwnerTaxObligationDto(OWNER_2.getId(), new BigDecimal("1120.0"))), result);
+        verify(taxRateService, times(1)).getSnapshot();
+    }
+
+    @Test
+    public void should_stream_tax_obligations_for_owner_id_range() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
+                TAX_RATE_FLAT,
+                TAX_RATE_HOUSE,
+                TAX_RATE_OFFICE)));
+        when(ownerRepository.streamByIdRange(eq(1), eq(3), anySet())).thenReturn(Stream.of(OWNER, OWNER_2));
+
+        List<OwnerTaxObligationDto> result = ownerService.streamTaxObligations(new TaxObligationBatchRequest(null, 1, 3)).toList();
+
+        assertEquals(2, result.size());
+    }
+
+    @Test
+    public void should_stream_tax_obligations_from_owner_columns_when_available() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
+                TAX_RATE_FLAT,
+                TAX_RATE_HOUSE,
+                TAX_RATE_OFFICE)));
+        when(columnarOwnerStore.getColumns()).thenReturn(OwnerColumns.of(Stream.of(OWNER, OWNER_2)));
+
+        List<OwnerTaxObligationDto> byIds = ownerService.streamTaxObligations(
+                new TaxObligationBatchRequest(List.of(OWNER_2.getId(), OWNER.getId(), 999), null, null)).toList();
+        List<OwnerTaxObligationDto> byRange = ownerService.streamTaxObligations(new TaxObligationBatchRequest(null, 1, 3)).toList();
+
+        List<OwnerTaxObligationDto> expected = List.of(
+                new OwnerTaxObligationDto(OWNER.getId(), new BigDecimal("3320")),
+                new OwnerTaxObligationDto(OWNER_2.getId(), new BigDecimal("1120.0")));
+        assertEquals(expected, byIds);
+        assertEquals(expected, byRange);
+        verify(ownerRepository, never()).streamByIds(any(), anySet());
+        verify(ownerRepository, never()).streamByIdRange(anyInt(), anyInt(), anySet());
+    }
+
+    @Test
+    public void should_reject_batch_with_both_ids_and_range() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
+                TAX_RATE_FLAT,
+                TAX_RATE_HOUSE,
+                TAX_RATE_OFFICE)));
+
+        assertThrows(InvalidBatchRequestException.class,
+                () -> ownerService.streamTaxObligations(new TaxObligationBatchRequest(List.of(1), 1, 3)));
+        assertThrows(InvalidBatchRequestException.class,
+                () -> ownerService.streamTaxObligations(new TaxObligationBatchRequest(null, null, null)));
+    }
+
+    @Test
+    public void should_reject_batch_range_larger_than_limit() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(
+                TAX_RATE_FLAT,
+                TAX_RATE_HOUSE,
+                TAX_RATE_OFFICE)));
+
+        assertThrows(InvalidBatchRequestException.class,
+                () -> ownerService.streamTaxObligations(new TaxObligationBatchRequest(null, 1, MAX_TAX_OBLIGATION_BATCH_SIZE + 1)));
+        verifyNoInteractions(ownerRepository);
+    }
+
+    @Test
+    public void should_reject_batch_when_tax_rate_table_is_incomplete() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(TAX_RATE_FLAT, TAX_RATE_HOUSE)));
+
+        assertThrows(InvalidTaxRateNumberException.class,
+                () -> ownerService.streamTaxObligations(new TaxObligationBatchRequest(List.of(1), null, null)));
+        verifyNoInteractions(ownerRepository);
+    }
+
+    @Test
+    public void should_return_materialised_tax_obligation_without_loading_owner() {
+        TaxRateSnapshot taxRates = TaxRateSnapshot.of(List.of(TAX_RATE_FLAT, TAX_RATE_HOUSE, TAX_RATE_OFFICE));
+        when(taxRateService.getSnapshot()).thenReturn(taxRates);
+        when(ownerRepository.findTaxObligation(OWNER.getId())).thenReturn(new TaxObligation(new BigDecimal("3320"), taxRates.version()));
+
+        BigDecimal result = ownerService.countTaxObligation(OWNER.getId());
+
+        assertEquals(new BigDecimal("3320"), result);
+        verify(ownerRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    public void should_recompute_and_store_tax_obligation_computed_against_old_rates() {
+        TaxRateSnapshot taxRates = TaxRateSnapshot.of(List.of(TAX_RATE_FLAT, TAX_RATE_HOUSE, TAX_RATE_OFFICE));
+        when(taxRateService.getSnapshot()).thenReturn(taxRates);
+        when(ownerRepository.findTaxObligation(OWNER.getId())).thenReturn(new TaxObligation(new BigDecimal("1000"), "old"));
+        when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
+
+        BigDecimal result = ownerService.countTaxObligation(OWNER.getId());
+
+        assertEquals(new BigDecimal("3320"), result);
+        verify(ownerRepository).updateTaxObligation(OWNER.getId(), OWNER.getVersion(), new TaxObligation(new BigDecimal("3320"), taxRates.version()));
+    }
+
+    @Test
+    public void should_throw_exception_when_counting_tax_obligation_of_missing_owner() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(TAX_RATE_FLAT, TAX_RATE_HOUSE, TAX_RATE_OFFICE)));
+        when(ownerRepository.findTaxObligation(OWNER.getId())).thenReturn(null);
+
+        assertThrows(NoSuchOwnerException.class, () -> ownerService.countTaxObligation(OWNER.getId()));
+    }
+
+    @Test
+    public void should_materialise_tax_obligation_when_owner_changes() {
+        TaxRateSnapshot taxRates = TaxRateSnapshot.of(List.of(TAX_RATE_FLAT, TAX_RATE_HOUSE, TAX_RATE_OFFICE));
+        when(taxRateService.getSnapshot()).thenReturn(taxRates);
+        when(ownerRepository.findById(OWNER_2.getId())).thenReturn(OWNER_2);
+
+        ownerService.onOwnerChanged(new OwnerChangedEvent(OWNER_2.getId(), false, true));
+
+        verify(ownerRepository).updateTaxObligation(OWNER_2.getId(), OWNER_2.getVersion(), new TaxObligation(new BigDecimal("1120.0"), taxRates.version()));
+    }
+
+    @Test
+    public void should_keep_tax_obligation_when_owner_write_leaves_tax_inputs_alone() {
+        ownerService.onOwnerChanged(new OwnerChangedEvent(OWNER.getId(), false, false));
+
+        verify(ownerRepository, never()).findById(anyInt());
+        verify(ownerRepository, never()).updateTaxObligation(anyInt(), anyLong(), any());
+    }
+
+    @Test
+    public void should_not_fail_owner_write_when_tax_obligation_cannot_be_materialised() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(TAX_RATE_FLAT)));
+        when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
+
+        assertDoesNotThrow(() -> ownerService.onOwnerChanged(new OwnerChangedEvent(OWNER.getId(), false, true)));
+        verify(ownerRepository, never()).updateTaxObligation(anyInt(), anyLong(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_recompute_all_tax_obligations_against_current_rates() {
+        TaxRateSnapshot taxRates = TaxRateSnapshot.of(List.of(TAX_RATE_FLAT, TAX_RATE_HOUSE, TAX_RATE_OFFICE));
+        when(taxRateService.getSnapshot()).thenReturn(taxRates);
+        ArgumentCaptor<Function<Owner, BigDecimal>> taxObligation = ArgumentCaptor.forClass(Function.class);
+
+        ownerService.recomputeTaxObligations();
+
+        verify(ownerRepository).recomputeTaxObligations(taxObligation.capture(), eq(taxRates.version()));
+        assertEquals(new BigDecimal("3320"), taxObligation.getValue().apply(OWNER));
+        assertNull(taxObligation.getValue().apply(OWNER.withProperties(null)));
+    }
+
+    @Test
+    public void should_recompute_tax_obligations_in_background_when_tax_rate_changes() {
+        when(taxRateService.getSnapshot()).thenReturn(TaxRateSnapshot.of(List.of(TAX_RATE_FLAT, TAX_RATE_HOUSE, TAX_RATE_OFFICE)));
+
+        ownerService.onTaxRateChanged(new TaxRateChangedEvent(PropertyType.FLAT));
+
+        verify(ownerRepository, timeout(1000)).recomputeTaxObligations(any(), anyString());
+    }
 }
@@ -1,6 +1,7 @@
 package com.tvo.propertyregister.unit;
 
 import com.tvo.propertyregister.exception.NoSuchOwnerException;
+import com.tvo.propertyregister.exception.OwnerConcurrentModificationException;
 import com.tvo.propertyregister.exception.PropertyNotFoundException;
 import com.tvo.propertyregister.model.owner.FamilyStatus;
 import com.tvo.propertyregister.model.owner.Owner;
@@ -10,19 +11,21 @@ import com.tvo.propertyregister.model.property.PropertyType;
 import com.tvo.propertyregister.repository.OwnerRepository;
 import com.tvo.propertyregister.repository.PropertyRepository;
 import com.tvo.propertyregister.service.PropertyService;
+import com.tvo.propertyregister.service.utils.OptimisticRetry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +37,9 @@ public class PropertyServiceTest {
     @Mock
     private OwnerRepository ownerRepository;
 
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3);
+
     @InjectMocks
     private PropertyService propertyService;
 
@@ -148,6 +154,21 @@ public class PropertyServiceTest {
         verify(propertyRepository, times(1)).save(OWNER, SECOND_PROPERTY);
     }
 
+    @Test
+    public void should_retry_adding_property_with_fresh_owner_after_concurrent_modification() {
+        Owner modifiedOwner = OWNER.withVersion(OWNER.getVersion() + 1);
+
+        when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER, modifiedOwner);
+        when(propertyRepository.save(any(Owner.class), eq(SECOND_PROPERTY)))
+                .thenThrow(new OwnerConcurrentModificationException("Owner with id 1 was modified concurrently"))
+                .thenReturn(true);
+
+        boolean result = propertyService.add(OWNER.getId(), SECOND_PROPERTY);
+
+        assertTrue(result);
+        verify(propertyRepository, times(1)).save(argThat(owner -> owner.getVersion() == modifiedOwner.getVersion()), eq(SECOND_PROPERTY));
+    }
+
     @Test
     public void should_not_add_new_property_if_owner_does_not_exists() {
         when(ownerRepository.findById(INVALID_OWNER.getId())).thenReturn(null);
@@ -158,25 +179,12 @@ public class PropertyServiceTest {
     @Test
     public void should_update_property_info() {
         when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
-        propertyService.update(OWNER.getId(), FIRST_PROPERTY.getId(), THIRD_PROPERTY);
-
-        Property propertyToUpdate = OWNER.getProperties().stream()
-                .filter(property -> property.getId() == FIRST_PROPERTY.getId())
-                .findFirst()
-                .orElseThrow(() -> new PropertyNotFoundException("Property not found with ID: " + FIRST_PROPERTY.getId()));
+        when(propertyRepository.update(OWNER, FIRST_PROPERTY.getId(), THIRD_PROPERTY)).thenReturn(true);
 
-        propertyToUpdate.setCity(THIRD_PROPERTY.getCity());
-        propertyToUpdate.setAddress(THIRD_PROPERTY.getAddress());
-        propertyToUpdate.setNumberOfRooms(THIRD_PROPERTY.getNumberOfRooms());
-        propertyToUpdate.setPropertyCondition(THIRD_PROPERTY.getPropertyCondition());
+        boolean result = propertyService.update(OWNER.getId(), FIRST_PROPERTY.getId(), THIRD_PROPERTY);
 
-        List<Property> properties = new ArrayList<>(OWNER.getProperties().stream()
-                .filter(property -> property.getId() != FIRST_PROPERTY.getId())
-                .toList());
-
-        properties.add(propertyToUpdate);
-
-        verify(propertyRepository, times(1)).update(OWNER.getId(), properties);
+        assertTrue(result);
+        verify(propertyRepository, times(1)).update(OWNER, FIRST_PROPERTY.getId(), THIRD_PROPERTY);
     }
 
     @Test
@@ -196,13 +204,19 @@ public class PropertyServiceTest {
     @Test
     public void should_delete_property() {
         when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
-        propertyService.remove(OWNER.getId(), FIRST_PROPERTY.getId());
+        when(propertyRepository.remove(OWNER, FIRST_PROPERTY.getId())).thenReturn(true);
 
-        List<Property> properties = new ArrayList<>(OWNER.getProperties().stream()
-                .filter(property -> property.getId() != FIRST_PROPERTY.getId())
-                .toList());
+        boolean result = propertyService.remove(OWNER.getId(), FIRST_PROPERTY.getId());
+
+        assertTrue(result);
+        verify(propertyRepository, times(1)).remove(OWNER, FIRST_PROPERTY.getId());
+    }
+
+    @Test
+    public void should_not_delete_property_if_property_does_not_exists() {
+        when(ownerRepository.findById(OWNER.getId())).thenReturn(OWNER);
 
-        verify(propertyRepository, times(1)).update(OWNER.getId(), properties);
+        assertThrows(PropertyNotFoundException.class, () -> propertyService.remove(OWNER.getId(), INVALID_PROPERTY.getId()));
     }
 
     @Test
@@ -0,0 +1,133 @@
+package com.tvo.propertyregister.unit;
+
+import com.tvo.propertyregister.exception.InvalidTaxRateNumberException;
+import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.owner.FamilyStatus;
+import com.tvo.propertyregister.model.owner.Owner;
+import com.tvo.propertyregister.model.property.Property;
+import com.tvo.propertyregister.model.property.PropertyCondition;
+import com.tvo.propertyregister.model.property.PropertyType;
+import com.tvo.propertyregister.service.tax.TaxEngine;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Provide;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaxEngineTest {
+
+    @net.jqwik.api.Property(tries = 2000)
+    public void should_match_big_decimal_tax_obligation(@ForAll("snapshots") TaxRateSnapshot taxRates,
+                                                        @ForAll("owners") Owner owner) {
+        assertEquals(referenceTaxObligation(owner, taxRates), TaxEngine.of(taxRates).taxObligation(owner));
+    }
+
+    @net.jqwik.api.Property(tries = 500)
+    public void should_match_big_decimal_tax_obligation_when_long_overflows(@ForAll("wideSnapshots") TaxRateSnapshot taxRates,
+                                                                            @ForAll("owners") Owner owner) {
+        assertEquals(referenceTaxObligation(owner, taxRates), TaxEngine.of(taxRates).taxObligation(owner));
+    }
+
+    @Test
+    public void should_count_tax_obligation_for_married_owner_with_children() {
+        TaxRateSnapshot taxRates = snapshot(new BigDecimal("6"), new BigDecimal("8"), new BigDecimal("13"));
+        Owner owner = owner(FamilyStatus.MARRIED, true, List.of(property(PropertyType.FLAT, 50), property(PropertyType.OFFICE, 10)));
+
+        assertEquals(new BigDecimal("344.0"), TaxEngine.of(taxRates).taxObligation(owner));
+    }
+
+    @Test
+    public void should_throw_exception_when_tax_rates_are_incomplete() {
+        TaxRateSnapshot taxRates = TaxRateSnapshot.of(List.of(new TaxRate(1, PropertyType.FLAT, new BigDecimal("6"))));
+        Owner owner = owner(FamilyStatus.SINGLE, false, List.of(property(PropertyType.FLAT, 50)));
+
+        assertThrows(InvalidTaxRateNumberException.class, () -> TaxEngine.of(taxRates).taxObligation(owner));
+    }
+
+    @Provide
+    Arbitrary<TaxRateSnapshot> snapshots() {
+        return snapshots(Arbitraries.longs().between(-1_000_000, 1_000_000), Arbitraries.integers().between(-3, 6));
+    }
+
+    @Provide
+    Arbitrary<TaxRateSnapshot> wideSnapshots() {
+        return snapshots(Arbitraries.longs(), Arbitraries.integers().between(-20, 25));
+    }
+
+    @Provide
+    Arbitrary<Owner> owners() {
+        Arbitrary<Integer> squares = Arbitraries.oneOf(
+                Arbitraries.integers().between(0, 100_000),
+                Arbitraries.integers());
+        Arbitrary<Property> properties = Combinators.combine(
+                Arbitraries.of(PropertyType.class), squares).as(TaxEngineTest::property);
+
+        return Combinators.combine(
+                Arbitraries.of(FamilyStatus.class).injectNull(0.1),
+                Arbitraries.of(true, false),
+                properties.list().ofMaxSize(8)).as(TaxEngineTest::owner);
+    }
+
+    private static Arbitrary<TaxRateSnapshot> snapshots(Arbitrary<Long> unscaledValues, Arbitrary<Integer> scales) {
+        Arbitrary<BigDecimal> rates = Combinators.combine(unscaledValues, scales).as(BigDecimal::valueOf);
+
+        return Combinators.combine(rates, rates, rates).as(TaxEngineTest::snapshot);
+    }
+
+    private static TaxRateSnapshot snapshot(BigDecimal flat, BigDecimal house, BigDecimal office) {
+        return TaxRateSnapshot.of(List.of(
+                new TaxRate(1, PropertyType.FLAT, flat),
+                new TaxRate(2, PropertyType.HOUSE, house),
+                new TaxRate(3, PropertyType.OFFICE, office)));
+    }
+
+    private static Property property(PropertyType propertyType, int square) {
+        return new Property(1, propertyType, "Prague", "Evropska 1",
+                square, 1, new BigDecimal("750000"),
+                LocalDate.of(2020, 4, 10),
+                LocalDate.of(2012, 1, 9),
+                PropertyCondition.GOOD);
+    }
+
+    private static Owner owner(FamilyStatus familyStatus, boolean hasChildren, List<Property> properties) {
+        return new Owner(1, "John", "Smith",
+                30, familyStatus,
+                hasChildren, "johnsmith@gmail.com",
+                "+420123456789",
+                LocalDate.of(1994, 1, 1),
+                BigDecimal.ZERO, new ArrayList<>(properties));
+    }
+
+    private static BigDecimal referenceTaxObligation(Owner owner, TaxRateSnapshot taxRates) {
+        BigDecimal leeway = new BigDecimal("1");
+        BigDecimal baseTax = new BigDecimal("0");
+
+        for (Property property : owner.getProperties()) {
+            BigDecimal square = new BigDecimal(property.getSquare());
+            baseTax = baseTax.add(square.multiply(taxRates.rate(property.getPropertyType())));
+        }
+
+        if (owner.isHasChildren()) {
+            if (FamilyStatus.SINGLE.equals(owner.getFamilyStatus())) {
+                leeway = leeway.subtract(new BigDecimal("0.3"));
+            } else {
+                leeway = leeway.subtract(new BigDecimal("0.1"));
+            }
+        }
+        if (FamilyStatus.MARRIED.equals(owner.getFamilyStatus())) {
+            leeway = leeway.subtract(new BigDecimal("0.1"));
+        }
+
+        return baseTax.multiply(leeway);
+    }
+}
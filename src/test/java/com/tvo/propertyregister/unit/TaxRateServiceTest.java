@@ -1,6 +1,10 @@
 package com.tvo.propertyregister.unit;
 
+import com.tvo.propertyregister.exception.InvalidTaxRateNumberException;
 import com.tvo.propertyregister.model.TaxRate;
+import com.tvo.propertyregister.model.TaxRateSnapshot;
+import com.tvo.propertyregister.model.event.RemoteTaxRatesChangedEvent;
+import com.tvo.propertyregister.model.event.TaxRateChangedEvent;
 import com.tvo.propertyregister.model.property.PropertyType;
 import com.tvo.propertyregister.repository.TaxRateRepository;
 import com.tvo.propertyregister.service.TaxRateService;
@@ -9,12 +13,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +51,12 @@ public class TaxRateServiceTest {
     @Mock
     private TaxRateRepository taxRateRepository;
 
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
     @InjectMocks
     private TaxRateService taxRateService;
 
@@ -85,4 +104,80 @@ public class TaxRateServiceTest {
 
         assertTrue(result);
     }
+
+    @Test
+    public void should_look_up_rates_by_property_type_regardless_of_document_order() {
+        when(taxRateRepository.findAll()).thenReturn(List.of(OFFICE_RATE, FLAT_RATE, HOUSE_RATE));
+
+        TaxRateSnapshot snapshot = taxRateService.getSnapshot();
+
+        assertEquals(new BigDecimal("6"), snapshot.rate(PropertyType.FLAT));
+        assertEquals(new BigDecimal("8"), snapshot.rate(PropertyType.HOUSE));
+        assertEquals(new BigDecimal("13"), snapshot.rate(PropertyType.OFFICE));
+    }
+
+    @Test
+    public void should_serve_snapshot_without_reading_repository_again() {
+        when(taxRateRepository.findAll()).thenReturn(List.of(FLAT_RATE, HOUSE_RATE, OFFICE_RATE));
+
+        taxRateService.reloadSnapshot();
+        taxRateService.getSnapshot();
+        taxRateService.getSnapshot();
+
+        verify(taxRateRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void should_reload_and_announce_snapshot_when_rate_changes() {
+        when(taxRateRepository.findAll()).thenReturn(
+                List.of(FLAT_RATE, HOUSE_RATE, OFFICE_RATE),
+                List.of(new TaxRate(1, PropertyType.FLAT, new BigDecimal("7")), HOUSE_RATE, OFFICE_RATE));
+        TaxRateSnapshot previous = taxRateService.reloadSnapshot();
+
+        taxRateService.onTaxRateChanged(new TaxRateChangedEvent(PropertyType.FLAT));
+
+        TaxRateSnapshot current = taxRateService.getSnapshot();
+        assertEquals(new BigDecimal("7"), current.rate(PropertyType.FLAT));
+        assertNotEquals(previous.version(), current.version());
+        verify(redisTemplate).convertAndSend(TaxRateService.SNAPSHOT_CHANNEL, current.version());
+    }
+
+    @Test
+    public void should_reload_snapshot_only_when_other_instance_announces_different_version() {
+        when(taxRateRepository.findAll()).thenReturn(List.of(FLAT_RATE, HOUSE_RATE, OFFICE_RATE));
+        TaxRateSnapshot current = taxRateService.reloadSnapshot();
+
+        taxRateService.onMessage(new DefaultMessage(TaxRateService.SNAPSHOT_CHANNEL.getBytes(), current.version().getBytes()), null);
+        taxRateService.onMessage(new DefaultMessage(TaxRateService.SNAPSHOT_CHANNEL.getBytes(), "other".getBytes()), null);
+
+        verify(taxRateRepository, times(2)).findAll();
+        verify(events).publishEvent(new RemoteTaxRatesChangedEvent("other"));
+    }
+
+    @Test
+    public void should_reload_snapshot_when_stored_rates_no_longer_match_it() {
+        TaxRate changedFlatRate = new TaxRate(1, PropertyType.FLAT, new BigDecimal("7"));
+        when(taxRateRepository.findAll()).thenReturn(List.of(FLAT_RATE, HOUSE_RATE, OFFICE_RATE));
+        when(taxRateRepository.findLatest()).thenReturn(
+                List.of(FLAT_RATE, HOUSE_RATE, OFFICE_RATE),
+                List.of(changedFlatRate, HOUSE_RATE, OFFICE_RATE));
+        taxRateService.reloadSnapshot();
+
+        taxRateService.checkSnapshot();
+        verify(events, never()).publishEvent(any(RemoteTaxRatesChangedEvent.class));
+
+        taxRateService.checkSnapshot();
+        TaxRateSnapshot current = taxRateService.getSnapshot();
+        assertEquals(new BigDecimal("7"), current.rate(PropertyType.FLAT));
+        verify(events).publishEvent(new RemoteTaxRatesChangedEvent(current.version()));
+    }
+
+    @Test
+    public void should_reject_incomplete_rate_table() {
+        when(taxRateRepository.findAll()).thenReturn(List.of(FLAT_RATE, HOUSE_RATE));
+
+        TaxRateSnapshot snapshot = taxRateService.getSnapshot();
+
+        assertThrows(InvalidTaxRateNumberException.class, () -> snapshot.rate(PropertyType.OFFICE));
+    }
 }
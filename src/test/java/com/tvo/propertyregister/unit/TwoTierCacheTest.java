@@ -0,0 +1,269 @@
+package com.tvo.propertyregister.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tvo.propertyregister.cache.CacheInvalidation;
+import com.tvo.propertyregister.cache.CachedValue;
+import com.tvo.propertyregister.cache.RefreshPolicy;
+import com.tvo.propertyregister.cache.TwoTierCacheManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TwoTierCacheTest {
+
+    private static final String CACHE = "owners";
+    private static final RefreshPolicy POLICY = new RefreshPolicy(Duration.ofMinutes(1), Duration.ofSeconds(30), 0);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Cache<String, CachedValue<?>> local = Caffeine.newBuilder().maximumSize(100).build();
+    private final ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager(CACHE);
+    private final MutableClock clock = new MutableClock();
+
+    private TwoTierCacheManager cacheManager;
+    private org.springframework.cache.Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TwoTierCacheManager(Map.of(CACHE, new TwoTierCacheManager.LocalTier(local, POLICY)),
+                remoteCacheManager, redisTemplate, mapper, clock);
+        cache = cacheManager.getCache(CACHE);
+    }
+
+    @Test
+    void should_serve_local_hit_without_remote_lookup() {
+        local.put("1", fresh("John"));
+        remoteCacheManager.getCache(CACHE).put(1, fresh("Stale"));
+
+        assertEquals("John", cache.get(1, String.class));
+    }
+
+    @Test
+    void should_populate_local_tier_from_remote_hit() {
+        remoteCacheManager.getCache(CACHE).put(1, fresh("John"));
+
+        assertEquals("John", cache.get(1, String.class));
+        assertEquals("John", local.getIfPresent("1").value());
+    }
+
+    @Test
+    void should_not_keep_remote_hit_locally_when_invalidated_during_remote_lookup() {
+        ConcurrentMapCacheManager slowRemote = new ConcurrentMapCacheManager(CACHE) {
+            @Override
+            protected org.springframework.cache.Cache createConcurrentMapCache(String name) {
+                return new ConcurrentMapCache(name) {
+                    @Override
+                    public ValueWrapper get(Object key) {
+                        ValueWrapper value = super.get(key);
+                        evictFromOtherInstance(String.valueOf(key));
+                        return value;
+                    }
+                };
+            }
+        };
+        cacheManager = new TwoTierCacheManager(Map.of(CACHE, new TwoTierCacheManager.LocalTier(local, POLICY)),
+                slowRemote, redisTemplate, mapper, clock);
+        slowRemote.getCache(CACHE).put(1, fresh("Stale"));
+
+        assertEquals("Stale", cacheManager.getCache(CACHE).get(1, String.class));
+        assertNull(local.getIfPresent("1"));
+    }
+
+    @Test
+    void should_load_and_store_in_both_tiers_on_miss() {
+        String result = cache.get(1, () -> "John");
+
+        assertEquals("John", result);
+        assertEquals("John", local.getIfPresent("1").value());
+        assertEquals("John", remoteCacheManager.getCache(CACHE).get(1, CachedValue.class).value());
+        verify(redisTemplate, never()).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    void should_not_store_value_loaded_before_concurrent_eviction() {
+        String result = cache.get(1, () -> {
+            cache.evict(1);
+            return "Stale";
+        });
+
+        assertEquals("Stale", result);
+        assertNull(local.getIfPresent("1"));
+        assertNull(remoteCacheManager.getCache(CACHE).get(1));
+        assertEquals("John", cache.get(1, () -> "John"));
+    }
+
+    @Test
+    void should_evict_both_tiers_and_notify_other_instances() {
+        cache.put(1, "John");
+
+        cache.evict(1);
+
+        assertNull(local.getIfPresent("1"));
+        assertNull(remoteCacheManager.getCache(CACHE).get(1));
+        verify(redisTemplate, times(2)).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    void should_evict_local_entry_when_other_instance_invalidates_it() throws Exception {
+        local.put("1", fresh("John"));
+        local.put("2", fresh("Alice"));
+
+        cacheManager.onMessage(message(new CacheInvalidation("other-instance", CACHE, List.of("1"))), null);
+
+        assertNull(local.getIfPresent("1"));
+        assertEquals("Alice", local.getIfPresent("2").value());
+    }
+
+    @Test
+    void should_clear_local_tier_when_other_instance_clears_cache() throws Exception {
+        local.put("1", fresh("John"));
+        local.put("2", fresh("Alice"));
+
+        cacheManager.onMessage(message(new CacheInvalidation("other-instance", CACHE, null)), null);
+
+        assertEquals(0, local.asMap().size());
+    }
+
+    @Test
+    void should_load_once_for_concurrent_misses_on_same_key() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(readers.submit(() -> cache.get(1, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "John";
+            })));
+            assertTrue(loading.await(1, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 10; i++) {
+                results.add(readers.submit(() -> cache.get(1, () -> {
+                    loads.incrementAndGet();
+                    return "Other";
+                })));
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("John", result.get(1, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void should_serve_stale_value_while_refreshing_it() throws Exception {
+        cache.get(1, () -> "John");
+        clock.advance(Duration.ofSeconds(61));
+        CountDownLatch refreshed = new CountDownLatch(1);
+
+        String result = cache.get(1, () -> {
+            refreshed.countDown();
+            return "Johnny";
+        });
+
+        assertEquals("John", result);
+        assertTrue(refreshed.await(1, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!"Johnny".equals(cache.get(1, String.class)) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals("Johnny", cache.get(1, String.class));
+    }
+
+    @Test
+    void should_load_synchronously_once_stale_window_has_passed() {
+        cache.get(1, () -> "John");
+        clock.advance(Duration.ofSeconds(91));
+
+        assertNull(cache.get(1));
+        assertEquals("Johnny", cache.get(1, () -> "Johnny"));
+    }
+
+    @Test
+    void should_propagate_loader_failure_without_caching_it() {
+        assertThrows(org.springframework.cache.Cache.ValueRetrievalException.class,
+                () -> cache.get(1, () -> {
+                    throw new IllegalStateException("Mongo is down");
+                }));
+
+        assertNull(local.getIfPresent("1"));
+        assertEquals("John", cache.get(1, () -> "John"));
+    }
+
+    private void evictFromOtherInstance(String key) {
+        try {
+            cacheManager.onMessage(message(new CacheInvalidation("other-instance", CACHE, List.of(key))), null);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CachedValue<String> fresh(String value) {
+        return new CachedValue<>(value, 1, clock.millis() + POLICY.ttl().toMillis(), clock.millis() + POLICY.retention().toMillis());
+    }
+
+    private DefaultMessage message(CacheInvalidation invalidation) throws Exception {
+        return new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(), mapper.writeValueAsBytes(invalidation));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}